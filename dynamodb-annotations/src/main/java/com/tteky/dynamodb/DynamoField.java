@@ -19,5 +19,27 @@ public @interface DynamoField {
      */
     String type() default "";
 
+    /**
+     * Encoding of values of type Object held by the field
+     */
+    ObjectEncoding objectEncoding() default ObjectEncoding.JSON;
+
+    /**
+     * Name of the codec used to store the field compressed as a binary attribute, ie., "deflate".
+     * If empty, the field is stored uncompressed. Compressed fields can't be projected or updated by nested paths.
+     */
+    String compress() default "";
+
+    /**
+     * Fields whose serialized size is below this many bytes are stored uncompressed
+     */
+    int compressThreshold() default 1024;
+
+    /**
+     * Stores a Set of strings or numbers as native string/number set attribute instead of a list, so that values can be
+     * added and removed atomically, ie., dao.addToSet(..). DynamoDB sets can't be empty, empty sets are not stored.
+     */
+    boolean nativeSet() default false;
+
 
 }
@@ -0,0 +1,18 @@
+package com.tteky.dynamodb;
+
+/**
+ * How values of type Object, ie., values of a Map&lt;String,Object&gt; field, are stored
+ */
+public enum ObjectEncoding {
+
+    /**
+     * Serialized as JSON string
+     */
+    JSON,
+
+    /**
+     * Maps, lists, numbers, booleans and strings are stored as native M, L, N, BOOL and S attributes, so that
+     * nested paths can be projected and updated
+     */
+    NATIVE
+}
@@ -0,0 +1,95 @@
+package com.tteky.dynamodb.benchmarks;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zero latency client answering every call with canned responses, so that benchmarks measure only the work done by the
+ * DAO and the mapper. Nothing is stored, the same item is returned for every key.
+ * <ul>
+ * <li>get item of a key with {@link #MISSING_TITLE} returns no item</li>
+ * <li>conditional put of an item with {@link #CONFLICT_TITLE} fails the condition</li>
+ * <li>scans return pages of the canned item till the configured number of pages is served</li>
+ * </ul>
+ */
+public class FakeDynamoDbClient implements DynamoDbClient {
+
+    public static final String MISSING_TITLE = "Missing Movie";
+    public static final String CONFLICT_TITLE = "Conflicting Movie";
+
+    private static final String PAGE_KEY = "page";
+
+    private final Map<String, AttributeValue> item;
+    private final int pageSize;
+    private final int pages;
+    private final List<Map<String, AttributeValue>> page;
+
+    /**
+     * @param item     returned by get, update and scan calls
+     * @param pageSize items per scan page, unless the request has a smaller limit
+     * @param pages    number of pages returned by a full scan
+     */
+    public FakeDynamoDbClient(Map<String, AttributeValue> item, int pageSize, int pages) {
+        this.item = item;
+        this.pageSize = pageSize;
+        this.pages = pages;
+        this.page = Collections.nCopies(pageSize, item);
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        AttributeValue title = request.key().get("title");
+        if (title != null && MISSING_TITLE.equals(title.s())) {
+            return GetItemResponse.builder().build();
+        }
+        return GetItemResponse.builder().item(item).build();
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        AttributeValue title = request.item().get("title");
+        if (request.conditionExpression() != null && title != null && CONFLICT_TITLE.equals(title.s())) {
+            throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+        }
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        return UpdateItemResponse.builder().attributes(item).build();
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        return DeleteItemResponse.builder().attributes(item).build();
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        int pageNumber = request.exclusiveStartKey().containsKey(PAGE_KEY)
+                ? Integer.parseInt(request.exclusiveStartKey().get(PAGE_KEY).n()) + 1
+                : 0;
+        int size = request.limit() == null ? pageSize : Math.min(pageSize, request.limit());
+        var response = ScanResponse.builder()
+                .items(size == pageSize ? page : new ArrayList<>(page.subList(0, size)))
+                .count(size);
+        if (pageNumber + 1 < pages) {
+            response.lastEvaluatedKey(Map.of(PAGE_KEY, AttributeValue.builder().n(Integer.toString(pageNumber)).build()));
+        }
+        return response.build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
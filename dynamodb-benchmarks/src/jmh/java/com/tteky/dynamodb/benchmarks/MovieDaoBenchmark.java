@@ -0,0 +1,132 @@
+package com.tteky.dynamodb.benchmarks;
+
+import com.tteky.dynamodb.benchmarks.MovieFixtures.ItemSize;
+import com.tteky.dynamodb.dao.MovieDao;
+import com.tteky.dynamodb.dao.MovieMapper;
+import com.tteky.dynamodb.domain.Movie;
+import com.ttkey.dynamodb.dao.ConditionalWriteResult;
+import com.ttkey.dynamodb.dao.PagedQueryResults;
+import com.ttkey.dynamodb.exception.CouldNotInsertException;
+import com.ttkey.dynamodb.exception.ItemDoesNotExistException;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead added by the generated {@link MovieDao} per call, ie., key extraction, condition expressions, exception
+ * translation and result conversion. The DAO is backed by {@link FakeDynamoDbClient}, so no time is spent on network.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class MovieDaoBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int PAGES = 10;
+
+    @Param({"SMALL", "TYPICAL"})
+    private ItemSize itemSize;
+
+    private MovieDao dao;
+    private Movie movie;
+    private Movie key;
+    private Movie missingKey;
+    private Movie conflictingMovie;
+    private Map<String, AttributeValue> keyAttributes;
+
+    @Setup
+    public void setup() {
+        movie = MovieFixtures.movie(itemSize, 2019, "Benchmark Movie");
+        dao = new MovieDao(new FakeDynamoDbClient(new MovieMapper().movieToAttributes(movie), PAGE_SIZE, PAGES));
+        key = keyOf(movie.getTitle());
+        missingKey = keyOf(FakeDynamoDbClient.MISSING_TITLE);
+        conflictingMovie = MovieFixtures.movie(itemSize, 2019, FakeDynamoDbClient.CONFLICT_TITLE);
+        keyAttributes = Map.of(
+                "yr", AttributeValue.builder().n("2019").build(),
+                "title", AttributeValue.builder().s(movie.getTitle()).build());
+    }
+
+    private static Movie keyOf(String title) {
+        Movie key = new Movie();
+        key.setYear(2019);
+        key.setTitle(title);
+        return key;
+    }
+
+    @Benchmark
+    public Movie getEntity() {
+        return dao.getEntity(key);
+    }
+
+    /**
+     * Cost of a miss, dominated by the exception raised for it
+     */
+    @Benchmark
+    public Object getMissingEntity() {
+        try {
+            return dao.getEntity(missingKey);
+        } catch (ItemDoesNotExistException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Optional<Movie> findMissingEntity() {
+        return dao.findEntity(missingKey);
+    }
+
+    @Benchmark
+    public Movie insertEntity() {
+        dao.insertEntity(movie);
+        return movie;
+    }
+
+    /**
+     * Cost of a failed condition, including the translation of the client exception
+     */
+    @Benchmark
+    public Object insertExistingEntity() {
+        try {
+            dao.insertEntity(conflictingMovie);
+            return conflictingMovie;
+        } catch (CouldNotInsertException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public ConditionalWriteResult<Movie> tryInsertExistingEntity() {
+        return dao.tryInsert(conflictingMovie);
+    }
+
+    @Benchmark
+    public Movie updateItem() {
+        return dao.updateItem(UpdateItemRequest.builder()
+                .key(keyAttributes)
+                .updateExpression("SET genre = :genre")
+                .expressionAttributeValues(Map.of(":genre", AttributeValue.builder().s("COMEDY").build())), "yr", "title");
+    }
+
+    /**
+     * One page of 100 items
+     */
+    @Benchmark
+    public PagedQueryResults<Movie> scanItemsByPage() {
+        return dao.scanItemsByPage(ScanRequest.builder(), PAGE_SIZE, null);
+    }
+
+    /**
+     * 10 pages of 100 items
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAGES)
+    public List<Movie> scanAllItems() {
+        return dao.scanAllItems(ScanRequest.builder());
+    }
+}
@@ -0,0 +1,102 @@
+package com.tteky.dynamodb.benchmarks;
+
+import com.tteky.dynamodb.dao.MovieMapper;
+import com.tteky.dynamodb.domain.Genre;
+import com.tteky.dynamodb.domain.Info;
+import com.tteky.dynamodb.domain.Movie;
+import com.tteky.dynamodb.domain.Review;
+import com.ttkey.dynamodb.utils.ItemSizes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds deterministic movies of a given stored size, measured as {@link ItemSizes} of the mapped attributes.
+ */
+public class MovieFixtures {
+
+    public enum ItemSize {
+        /**
+         * Keys, scalar fields and empty maps
+         */
+        SMALL(0, 0),
+        /**
+         * A handful of reviews and info entries, about 4 KB
+         */
+        TYPICAL(5, 4 * 1024),
+        /**
+         * Close to the 400 KB item limit of DynamoDB
+         */
+        LARGE(50, 390 * 1024);
+
+        private final int reviews;
+        private final long targetBytes;
+
+        ItemSize(int reviews, long targetBytes) {
+            this.reviews = reviews;
+            this.targetBytes = targetBytes;
+        }
+    }
+
+    private static final MovieMapper MAPPER = new MovieMapper();
+
+    private MovieFixtures() {
+    }
+
+    public static Movie movie(ItemSize size, int year, String title) {
+        Movie movie = new Movie();
+        movie.setYear(year);
+        movie.setTitle(title);
+        movie.setGenre(Genre.DRAMA);
+        movie.setCreatedOn(1_500_000_000_000L + year);
+        movie.setLastUpdatedOn(1_600_000_000_000L + year);
+        if (size == ItemSize.SMALL) {
+            movie.setInfo(Map.of());
+            movie.setPrimInfo(Map.of());
+            movie.setObjInfo(Map.of());
+            return movie;
+        }
+
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < size.reviews; i++) {
+            reviews.add(review(i));
+        }
+        movie.setReviews(reviews);
+
+        Map<String, Object> info = new HashMap<>();
+        info.put("director", "Some Director");
+        info.put("rank", 42);
+        info.put("rating", 7.5);
+        info.put("actors", List.of("Actor One", "Actor Two", "Actor Three"));
+        movie.setInfo(info);
+        movie.setPrimInfo(new HashMap<>(Map.of("language", "English", "country", "India")));
+
+        // grow the uncompressed info map till the target size, checked every few entries to keep it cheap
+        Map<String, Info> objInfo = new HashMap<>();
+        movie.setObjInfo(objInfo);
+        for (int i = 0; ItemSizes.of(MAPPER.movieToAttributes(movie)) < size.targetBytes; ) {
+            for (int j = 0; j < 10; j++, i++) {
+                objInfo.put("critic-" + i, info(i));
+            }
+        }
+        return movie;
+    }
+
+    private static Review review(int i) {
+        Review review = new Review();
+        review.setId("review-" + i);
+        review.setReviewer("Reviewer " + i);
+        review.setRating(i % 5 + 0.5f);
+        review.setComments("Review comment " + i + " describing the plot, the cast and the overall experience of the movie");
+        return review;
+    }
+
+    private static Info info(int i) {
+        Info info = new Info();
+        info.setReviewer("Critic " + i);
+        info.setComments("Critic comment " + i + " with a few more words to make it a realistic sentence");
+        return info;
+    }
+}
@@ -0,0 +1,44 @@
+package com.tteky.dynamodb.benchmarks;
+
+import com.tteky.dynamodb.benchmarks.MovieFixtures.ItemSize;
+import com.tteky.dynamodb.dao.MovieMapper;
+import com.tteky.dynamodb.domain.Movie;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the generated {@link MovieMapper} in both directions. Run with the gc profiler (configured in the build)
+ * to see the allocation rate per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class MovieMapperBenchmark {
+
+    @Param({"SMALL", "TYPICAL", "LARGE"})
+    private ItemSize itemSize;
+
+    private MovieMapper mapper;
+    private Movie movie;
+    private Map<String, AttributeValue> attributes;
+
+    @Setup
+    public void setup() {
+        mapper = new MovieMapper();
+        movie = MovieFixtures.movie(itemSize, 2019, "Benchmark Movie");
+        attributes = mapper.movieToAttributes(movie);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> toAttributes() {
+        return mapper.movieToAttributes(movie);
+    }
+
+    @Benchmark
+    public Movie fromAttributes() {
+        return mapper.movieFromAttributes(attributes);
+    }
+}
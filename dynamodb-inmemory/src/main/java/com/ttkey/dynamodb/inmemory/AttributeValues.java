@@ -0,0 +1,300 @@
+package com.ttkey.dynamodb.inmemory;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.util.SdkAutoConstructList;
+import software.amazon.awssdk.core.util.SdkAutoConstructMap;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Type, ordering and equality of attribute values following DynamoDB rules, ie., numbers are compared by value,
+ * strings and binaries by their bytes and sets regardless of the order of their elements.
+ */
+final class AttributeValues {
+
+    enum Type {
+        S, N, B, SS, NS, BS, M, L, BOOL, NULL
+    }
+
+    /**
+     * Order of key values of the same type
+     */
+    static final Comparator<AttributeValue> KEY_ORDER = AttributeValues::compare;
+
+    private AttributeValues() {
+    }
+
+    static Type typeOf(AttributeValue value) {
+        if (value.s() != null) {
+            return Type.S;
+        } else if (value.n() != null) {
+            return Type.N;
+        } else if (value.b() != null) {
+            return Type.B;
+        } else if (value.bool() != null) {
+            return Type.BOOL;
+        } else if (value.nul() != null) {
+            return Type.NULL;
+        } else if (isSet(value.ss())) {
+            return Type.SS;
+        } else if (isSet(value.ns())) {
+            return Type.NS;
+        } else if (isSet(value.bs())) {
+            return Type.BS;
+        } else if (value.m() != null && !(value.m() instanceof SdkAutoConstructMap)) {
+            return Type.M;
+        } else if (value.l() != null && !(value.l() instanceof SdkAutoConstructList)) {
+            return Type.L;
+        }
+        throw Errors.validation("Supplied AttributeValue is empty, must contain exactly one of the supported datatypes");
+    }
+
+    private static boolean isSet(List<?> values) {
+        return values != null && !(values instanceof SdkAutoConstructList);
+    }
+
+    /**
+     * @return true if both are strings, numbers or binaries, the only types which can be ordered
+     */
+    static boolean isOrdered(AttributeValue a, AttributeValue b) {
+        Type type = typeOf(a);
+        return (type == Type.S || type == Type.N || type == Type.B) && type == typeOf(b);
+    }
+
+    /**
+     * Compares two values of the same scalar type, see {@link #isOrdered(AttributeValue, AttributeValue)}
+     */
+    static int compare(AttributeValue a, AttributeValue b) {
+        switch (typeOf(a)) {
+            case S:
+                return compareCodePoints(a.s(), b.s());
+            case N:
+                return new BigDecimal(a.n()).compareTo(new BigDecimal(b.n()));
+            case B:
+                return Arrays.compareUnsigned(a.b().asByteArray(), b.b().asByteArray());
+            case NULL:
+                return 0;
+            default:
+                throw new IllegalArgumentException("Values of type " + typeOf(a) + " can't be ordered");
+        }
+    }
+
+    /**
+     * Same as comparing the UTF-8 bytes of the strings, which is how DynamoDB orders them
+     */
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    static boolean equal(AttributeValue a, AttributeValue b) {
+        Type type = typeOf(a);
+        if (type != typeOf(b)) {
+            return false;
+        }
+        switch (type) {
+            case S:
+            case N:
+            case B:
+                return compare(a, b) == 0;
+            case SS:
+                return new HashSet<>(a.ss()).equals(new HashSet<>(b.ss()));
+            case NS:
+                return numbers(a.ns()).equals(numbers(b.ns()));
+            case BS:
+                return new HashSet<>(a.bs()).equals(new HashSet<>(b.bs()));
+            case M:
+                if (a.m().size() != b.m().size()) {
+                    return false;
+                }
+                for (Map.Entry<String, AttributeValue> entry : a.m().entrySet()) {
+                    AttributeValue other = b.m().get(entry.getKey());
+                    if (other == null || !equal(entry.getValue(), other)) {
+                        return false;
+                    }
+                }
+                return true;
+            case L:
+                if (a.l().size() != b.l().size()) {
+                    return false;
+                }
+                for (int i = 0; i < a.l().size(); i++) {
+                    if (!equal(a.l().get(i), b.l().get(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            case BOOL:
+                return a.bool().equals(b.bool());
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Hash of a key value consistent with {@link #compare(AttributeValue, AttributeValue)}
+     */
+    static int hash(AttributeValue key) {
+        switch (typeOf(key)) {
+            case S:
+                return key.s().hashCode();
+            case N:
+                return normalize(new BigDecimal(key.n())).hashCode();
+            case B:
+                return Arrays.hashCode(key.b().asByteArray());
+            default:
+                return 0;
+        }
+    }
+
+    static boolean isSetType(Type type) {
+        return type == Type.SS || type == Type.NS || type == Type.BS;
+    }
+
+    static AttributeValue number(BigDecimal value) {
+        return AttributeValue.builder().n(normalize(value).toPlainString()).build();
+    }
+
+    static BigDecimal normalize(BigDecimal value) {
+        return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+    }
+
+    /**
+     * Union of two sets of the same type
+     */
+    static AttributeValue union(AttributeValue a, AttributeValue b) {
+        switch (typeOf(a)) {
+            case SS:
+                Set<String> strings = new LinkedHashSet<>(a.ss());
+                strings.addAll(b.ss());
+                return AttributeValue.builder().ss(strings).build();
+            case NS:
+                Map<BigDecimal, String> numbers = new LinkedHashMap<>();
+                a.ns().forEach(n -> numbers.putIfAbsent(normalize(new BigDecimal(n)), n));
+                b.ns().forEach(n -> numbers.putIfAbsent(normalize(new BigDecimal(n)), n));
+                return AttributeValue.builder().ns(numbers.values()).build();
+            default:
+                Set<SdkBytes> binaries = new LinkedHashSet<>(a.bs());
+                binaries.addAll(b.bs());
+                return AttributeValue.builder().bs(binaries).build();
+        }
+    }
+
+    /**
+     * Elements of the set a which are not in the set b, null if no element remains
+     */
+    static AttributeValue difference(AttributeValue a, AttributeValue b) {
+        switch (typeOf(a)) {
+            case SS:
+                List<String> strings = new ArrayList<>(a.ss());
+                strings.removeAll(b.ss());
+                return strings.isEmpty() ? null : AttributeValue.builder().ss(strings).build();
+            case NS:
+                Set<BigDecimal> removed = numbers(b.ns());
+                List<String> numbers = new ArrayList<>();
+                for (String n : a.ns()) {
+                    if (!removed.contains(normalize(new BigDecimal(n)))) {
+                        numbers.add(n);
+                    }
+                }
+                return numbers.isEmpty() ? null : AttributeValue.builder().ns(numbers).build();
+            default:
+                List<SdkBytes> binaries = new ArrayList<>(a.bs());
+                binaries.removeAll(b.bs());
+                return binaries.isEmpty() ? null : AttributeValue.builder().bs(binaries).build();
+        }
+    }
+
+    /**
+     * @return true if the set or list contains the element, or the string contains the sub string
+     */
+    static boolean contains(AttributeValue container, AttributeValue element) {
+        switch (typeOf(container)) {
+            case S:
+                return typeOf(element) == Type.S && container.s().contains(element.s());
+            case SS:
+                return typeOf(element) == Type.S && container.ss().contains(element.s());
+            case NS:
+                return typeOf(element) == Type.N && numbers(container.ns()).contains(normalize(new BigDecimal(element.n())));
+            case BS:
+                return typeOf(element) == Type.B && container.bs().contains(element.b());
+            case L:
+                for (AttributeValue value : container.l()) {
+                    if (equal(value, element)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    static boolean beginsWith(AttributeValue value, AttributeValue prefix) {
+        Type type = typeOf(value);
+        if (type != typeOf(prefix)) {
+            return false;
+        }
+        if (type == Type.S) {
+            return value.s().startsWith(prefix.s());
+        } else if (type == Type.B) {
+            byte[] bytes = value.b().asByteArray();
+            byte[] start = prefix.b().asByteArray();
+            return bytes.length >= start.length && Arrays.equals(bytes, 0, start.length, start, 0, start.length);
+        }
+        return false;
+    }
+
+    /**
+     * @return number of characters, bytes or elements. Null for types without size.
+     */
+    static AttributeValue size(AttributeValue value) {
+        int size;
+        switch (typeOf(value)) {
+            case S:
+                size = value.s().length();
+                break;
+            case B:
+                size = value.b().asByteArray().length;
+                break;
+            case SS:
+                size = value.ss().size();
+                break;
+            case NS:
+                size = value.ns().size();
+                break;
+            case BS:
+                size = value.bs().size();
+                break;
+            case M:
+                size = value.m().size();
+                break;
+            case L:
+                size = value.l().size();
+                break;
+            default:
+                return null;
+        }
+        return AttributeValue.builder().n(Integer.toString(size)).build();
+    }
+
+    private static Set<BigDecimal> numbers(List<String> values) {
+        Set<BigDecimal> numbers = new HashSet<>();
+        for (String value : values) {
+            numbers.add(normalize(new BigDecimal(value)));
+        }
+        return numbers;
+    }
+}
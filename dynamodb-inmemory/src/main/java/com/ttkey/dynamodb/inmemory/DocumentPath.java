@@ -0,0 +1,170 @@
+package com.ttkey.dynamodb.inmemory;
+
+import com.ttkey.dynamodb.inmemory.AttributeValues.Type;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.ttkey.dynamodb.inmemory.AttributeValues.typeOf;
+
+/**
+ * Path to an attribute, possibly nested in maps and lists, ie., <code>info.actors[0]</code>. Elements are either
+ * attribute names (String) or list indexes (Integer), the first element is always a name.
+ */
+final class DocumentPath {
+
+    private final List<Object> elements;
+
+    DocumentPath(List<Object> elements) {
+        this.elements = List.copyOf(elements);
+    }
+
+    List<Object> elements() {
+        return elements;
+    }
+
+    String topLevelName() {
+        return (String) elements.get(0);
+    }
+
+    boolean isTopLevel() {
+        return elements.size() == 1;
+    }
+
+    /**
+     * @return true if either path is a prefix of the other one
+     */
+    boolean overlaps(DocumentPath other) {
+        int common = Math.min(elements.size(), other.elements.size());
+        return elements.subList(0, common).equals(other.elements.subList(0, common));
+    }
+
+    /**
+     * @return value at this path, null if any element of the path is missing
+     */
+    AttributeValue get(Map<String, AttributeValue> item) {
+        AttributeValue value = item.get(topLevelName());
+        for (int i = 1; i < elements.size() && value != null; i++) {
+            Object element = elements.get(i);
+            if (element instanceof String) {
+                value = typeOf(value) == Type.M ? value.m().get(element) : null;
+            } else {
+                int index = (Integer) element;
+                value = typeOf(value) == Type.L && index < value.l().size() ? value.l().get(index) : null;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Sets the value, all the elements but the last one should exist. Setting an index past the end of a list
+     * appends the value.
+     *
+     * @param item mutable top level attributes
+     */
+    void set(Map<String, AttributeValue> item, AttributeValue value) {
+        if (isTopLevel()) {
+            item.put(topLevelName(), value);
+            return;
+        }
+        AttributeValue container = item.get(topLevelName());
+        if (container == null) {
+            throw invalidPath();
+        }
+        item.put(topLevelName(), update(container, 1, value));
+    }
+
+    /**
+     * Removes the value if present, elements following a removed list element are shifted
+     *
+     * @param item mutable top level attributes
+     */
+    void remove(Map<String, AttributeValue> item) {
+        if (isTopLevel()) {
+            item.remove(topLevelName());
+            return;
+        }
+        AttributeValue container = item.get(topLevelName());
+        if (container != null) {
+            item.put(topLevelName(), update(container, 1, null));
+        }
+    }
+
+    /**
+     * Copy of the container with the value set, or removed if the value is null
+     */
+    private AttributeValue update(AttributeValue container, int position, AttributeValue value) {
+        Object element = elements.get(position);
+        boolean last = position == elements.size() - 1;
+        if (element instanceof String) {
+            if (typeOf(container) != Type.M) {
+                throw invalidPath();
+            }
+            Map<String, AttributeValue> map = new LinkedHashMap<>(container.m());
+            if (last) {
+                if (value == null) {
+                    map.remove(element);
+                } else {
+                    map.put((String) element, value);
+                }
+            } else {
+                AttributeValue child = map.get(element);
+                if (child == null) {
+                    if (value == null) {
+                        return container;
+                    }
+                    throw invalidPath();
+                }
+                map.put((String) element, update(child, position + 1, value));
+            }
+            return AttributeValue.builder().m(map).build();
+        }
+
+        if (typeOf(container) != Type.L) {
+            throw invalidPath();
+        }
+        List<AttributeValue> list = new ArrayList<>(container.l());
+        int index = (Integer) element;
+        if (last) {
+            if (value == null) {
+                if (index < list.size()) {
+                    list.remove(index);
+                }
+            } else if (index < list.size()) {
+                list.set(index, value);
+            } else {
+                list.add(value);
+            }
+        } else {
+            if (index >= list.size()) {
+                if (value == null) {
+                    return container;
+                }
+                throw invalidPath();
+            }
+            list.set(index, update(list.get(index), position + 1, value));
+        }
+        return AttributeValue.builder().l(list).build();
+    }
+
+    private RuntimeException invalidPath() {
+        return Errors.validation("The document path provided in the update expression is invalid for update: %s", this);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(topLevelName());
+        for (int i = 1; i < elements.size(); i++) {
+            Object element = elements.get(i);
+            if (element instanceof String) {
+                text.append('.').append(element);
+            } else {
+                text.append('[').append(element).append(']');
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.ttkey.dynamodb.inmemory;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Exceptions raised by the in-memory client, same types and error codes as the ones raised by DynamoDB.
+ */
+final class Errors {
+
+    private static final String SERVICE_NAME = "DynamoDb";
+
+    private Errors() {
+    }
+
+    static DynamoDbException validation(String message, Object... args) {
+        var text = args.length == 0 ? message : format(message, args);
+        return DynamoDbException.builder()
+                .message(text)
+                .statusCode(400)
+                .awsErrorDetails(details("ValidationException", text))
+                .build();
+    }
+
+    static ResourceNotFoundException tableNotFound(String tableName) {
+        var text = format("Cannot do operations on a non-existent table: %s", tableName);
+        return ResourceNotFoundException.builder()
+                .message(text)
+                .statusCode(400)
+                .awsErrorDetails(details("ResourceNotFoundException", text))
+                .build();
+    }
+
+    static ResourceInUseException tableExists(String tableName) {
+        var text = format("Table already exists: %s", tableName);
+        return ResourceInUseException.builder()
+                .message(text)
+                .statusCode(400)
+                .awsErrorDetails(details("ResourceInUseException", text))
+                .build();
+    }
+
+    static ConditionalCheckFailedException conditionFailed() {
+        var text = "The conditional request failed";
+        return ConditionalCheckFailedException.builder()
+                .message(text)
+                .statusCode(400)
+                .awsErrorDetails(details("ConditionalCheckFailedException", text))
+                .build();
+    }
+
+    /**
+     * @param reasons one per transaction item, ie., None or ConditionalCheckFailed
+     */
+    static TransactionCanceledException transactionCanceled(List<String> reasons) {
+        var text = format("Transaction cancelled, please refer cancellation reasons for specific reasons %s", reasons);
+        return TransactionCanceledException.builder()
+                .message(text)
+                .statusCode(400)
+                .awsErrorDetails(details("TransactionCanceledException", text))
+                .build();
+    }
+
+    private static AwsErrorDetails details(String errorCode, String message) {
+        return AwsErrorDetails.builder()
+                .errorCode(errorCode)
+                .errorMessage(message)
+                .serviceName(SERVICE_NAME)
+                .build();
+    }
+}
@@ -0,0 +1,645 @@
+package com.ttkey.dynamodb.inmemory;
+
+import com.ttkey.dynamodb.inmemory.AttributeValues.Type;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static com.ttkey.dynamodb.inmemory.AttributeValues.typeOf;
+
+/**
+ * Parses condition, filter, key condition, projection and update expressions of a single request. Placeholders are
+ * resolved from the expression attribute names and values of the request, both of which should be fully used by the
+ * expressions, see {@link #verifyAllUsed()}.
+ */
+final class ExpressionParser {
+
+    /**
+     * Condition evaluated against the attributes of an item, empty attributes if the item doesn't exist
+     */
+    interface Condition {
+        boolean test(Map<String, AttributeValue> item);
+    }
+
+    /**
+     * Value of an operand for an item, null if it refers a missing attribute
+     */
+    interface Operand {
+        AttributeValue evaluate(Map<String, AttributeValue> item);
+    }
+
+    private static final Set<String> CONDITION_FUNCTIONS = Set.of(
+            "attribute_exists", "attribute_not_exists", "attribute_type", "begins_with", "contains");
+    private static final Set<String> COMPARATORS = Set.of("=", "<>", "<", "<=", ">", ">=");
+
+    private final Map<String, String> names;
+    private final Map<String, AttributeValue> values;
+    private final Set<String> usedNames = new HashSet<>();
+    private final Set<String> usedValues = new HashSet<>();
+
+    private String expression;
+    private List<Token> tokens;
+    private int position;
+
+    ExpressionParser(Map<String, String> names, Map<String, AttributeValue> values) {
+        this.names = names == null ? Map.of() : names;
+        this.values = values == null ? Map.of() : values;
+    }
+
+    /**
+     * @return null if there is no expression
+     */
+    Condition parseCondition(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        start(expression);
+        Condition condition = or();
+        expectEnd();
+        return condition;
+    }
+
+    /**
+     * @return null if there is no expression
+     */
+    Projection parseProjection(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        start(expression);
+        List<DocumentPath> paths = new ArrayList<>();
+        do {
+            paths.add(path());
+        } while (accept(","));
+        expectEnd();
+        return new Projection(paths);
+    }
+
+    /**
+     * @return null if there is no expression
+     */
+    UpdateExpression parseUpdate(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        start(expression);
+        UpdateExpression update = new UpdateExpression();
+        Set<String> clauses = new HashSet<>();
+        do {
+            Token clause = next();
+            String keyword = clause.text.toUpperCase(Locale.ROOT);
+            if (clause.kind != Kind.NAME || !Set.of("SET", "REMOVE", "ADD", "DELETE").contains(keyword)) {
+                throw syntaxError(clause);
+            }
+            if (!clauses.add(keyword)) {
+                throw Errors.validation("Invalid UpdateExpression: The \"%s\" section can only be used once in an update expression", keyword);
+            }
+            do {
+                DocumentPath path = path();
+                switch (keyword) {
+                    case "SET":
+                        expect("=");
+                        update.set(path, setValue());
+                        break;
+                    case "REMOVE":
+                        update.remove(path);
+                        break;
+                    case "ADD":
+                        update.add(path, valueOperand());
+                        break;
+                    default:
+                        update.delete(path, valueOperand());
+                        break;
+                }
+            } while (accept(","));
+        } while (peek().kind != Kind.END);
+        return update;
+    }
+
+    /**
+     * Parses conditions of the form <code>hash = :v [AND range op :v | range BETWEEN :a AND :b | begins_with(range, :v)]</code>
+     */
+    KeyCondition parseKeyCondition(String expression, String hashKeyName, String rangeKeyName) {
+        start(expression);
+        AttributeValue hashValue = null;
+        Predicate<AttributeValue> rangeCondition = null;
+        do {
+            int parentheses = 0;
+            while (accept("(")) {
+                parentheses++;
+            }
+            String name;
+            String operator;
+            AttributeValue value;
+            AttributeValue upperValue = null;
+            if (peek().is("begins_with") && peekAt(1).is("(")) {
+                next();
+                next();
+                name = keyName();
+                expect(",");
+                value = valueOperand().evaluate(Map.of());
+                expect(")");
+                operator = "begins_with";
+            } else {
+                name = keyName();
+                if (acceptKeyword("BETWEEN")) {
+                    value = valueOperand().evaluate(Map.of());
+                    expectKeyword("AND");
+                    upperValue = valueOperand().evaluate(Map.of());
+                    operator = "BETWEEN";
+                } else {
+                    operator = comparator();
+                    value = valueOperand().evaluate(Map.of());
+                }
+            }
+            for (; parentheses > 0; parentheses--) {
+                expect(")");
+            }
+
+            if (name.equals(hashKeyName) && hashValue == null && operator.equals("=")) {
+                hashValue = value;
+            } else if (name.equals(rangeKeyName) && rangeCondition == null && !operator.equals("<>")) {
+                rangeCondition = rangeCondition(operator, value, upperValue);
+            } else {
+                throw Errors.validation("Query key condition not supported");
+            }
+        } while (acceptKeyword("AND"));
+        expectEnd();
+        if (hashValue == null) {
+            throw Errors.validation("Query condition missed key schema element: %s", hashKeyName);
+        }
+        return new KeyCondition(hashValue, rangeCondition);
+    }
+
+    private static Predicate<AttributeValue> rangeCondition(String operator, AttributeValue value, AttributeValue upperValue) {
+        switch (operator) {
+            case "begins_with":
+                return range -> AttributeValues.beginsWith(range, value);
+            case "BETWEEN":
+                return range -> between(range, value, upperValue);
+            default:
+                return range -> compare(operator, range, value);
+        }
+    }
+
+    /**
+     * Fails if any of the expression attribute names or values was not referred by the parsed expressions
+     */
+    void verifyAllUsed() {
+        if (!usedNames.containsAll(names.keySet())) {
+            Set<String> unused = new TreeSet<>(names.keySet());
+            unused.removeAll(usedNames);
+            throw Errors.validation("Value provided in ExpressionAttributeNames unused in expressions: keys: {%s}", String.join(", ", unused));
+        }
+        if (!usedValues.containsAll(values.keySet())) {
+            Set<String> unused = new TreeSet<>(values.keySet());
+            unused.removeAll(usedValues);
+            throw Errors.validation("Value provided in ExpressionAttributeValues unused in expressions: keys: {%s}", String.join(", ", unused));
+        }
+    }
+
+    // conditions
+
+    private Condition or() {
+        Condition condition = and();
+        while (acceptKeyword("OR")) {
+            Condition left = condition;
+            Condition right = and();
+            condition = item -> left.test(item) || right.test(item);
+        }
+        return condition;
+    }
+
+    private Condition and() {
+        Condition condition = not();
+        while (acceptKeyword("AND")) {
+            Condition left = condition;
+            Condition right = not();
+            condition = item -> left.test(item) && right.test(item);
+        }
+        return condition;
+    }
+
+    private Condition not() {
+        if (acceptKeyword("NOT")) {
+            Condition condition = not();
+            return item -> !condition.test(item);
+        }
+        return primary();
+    }
+
+    private Condition primary() {
+        if (accept("(")) {
+            Condition condition = or();
+            expect(")");
+            return condition;
+        }
+        Token token = peek();
+        if (token.kind == Kind.NAME && CONDITION_FUNCTIONS.contains(token.text) && peekAt(1).is("(")) {
+            return function();
+        }
+
+        Operand left = operand();
+        if (acceptKeyword("BETWEEN")) {
+            Operand lower = operand();
+            expectKeyword("AND");
+            Operand upper = operand();
+            return item -> between(left.evaluate(item), lower.evaluate(item), upper.evaluate(item));
+        }
+        if (acceptKeyword("IN")) {
+            expect("(");
+            List<Operand> candidates = new ArrayList<>();
+            do {
+                candidates.add(operand());
+            } while (accept(","));
+            expect(")");
+            return item -> {
+                AttributeValue value = left.evaluate(item);
+                for (Operand candidate : candidates) {
+                    if (compare("=", value, candidate.evaluate(item))) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+        String operator = comparator();
+        Operand right = operand();
+        return item -> compare(operator, left.evaluate(item), right.evaluate(item));
+    }
+
+    private Condition function() {
+        String function = next().text;
+        expect("(");
+        Condition condition;
+        switch (function) {
+            case "attribute_exists": {
+                DocumentPath path = path();
+                condition = item -> path.get(item) != null;
+                break;
+            }
+            case "attribute_not_exists": {
+                DocumentPath path = path();
+                condition = item -> path.get(item) == null;
+                break;
+            }
+            case "attribute_type": {
+                DocumentPath path = path();
+                expect(",");
+                AttributeValue type = valueOperand().evaluate(Map.of());
+                if (typeOf(type) != Type.S) {
+                    throw Errors.validation("Invalid ConditionExpression: Incorrect operand type for operator or function; operator or function: attribute_type");
+                }
+                condition = item -> {
+                    AttributeValue value = path.get(item);
+                    return value != null && typeOf(value).name().equals(type.s());
+                };
+                break;
+            }
+            case "begins_with": {
+                Operand value = operand();
+                expect(",");
+                Operand prefix = operand();
+                condition = item -> {
+                    AttributeValue a = value.evaluate(item);
+                    AttributeValue b = prefix.evaluate(item);
+                    return a != null && b != null && AttributeValues.beginsWith(a, b);
+                };
+                break;
+            }
+            default: {
+                Operand container = operand();
+                expect(",");
+                Operand element = operand();
+                condition = item -> {
+                    AttributeValue a = container.evaluate(item);
+                    AttributeValue b = element.evaluate(item);
+                    return a != null && b != null && AttributeValues.contains(a, b);
+                };
+                break;
+            }
+        }
+        expect(")");
+        return condition;
+    }
+
+    private String comparator() {
+        Token token = next();
+        if (token.kind != Kind.SYMBOL || !COMPARATORS.contains(token.text)) {
+            throw syntaxError(token);
+        }
+        return token.text;
+    }
+
+    /**
+     * Comparisons involving a missing attribute are false, so are ordering comparisons of values of different types
+     */
+    private static boolean compare(String operator, AttributeValue a, AttributeValue b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        switch (operator) {
+            case "=":
+                return AttributeValues.equal(a, b);
+            case "<>":
+                return !AttributeValues.equal(a, b);
+            default:
+                if (!AttributeValues.isOrdered(a, b)) {
+                    return false;
+                }
+                int result = AttributeValues.compare(a, b);
+                switch (operator) {
+                    case "<":
+                        return result < 0;
+                    case "<=":
+                        return result <= 0;
+                    case ">":
+                        return result > 0;
+                    default:
+                        return result >= 0;
+                }
+        }
+    }
+
+    private static boolean between(AttributeValue value, AttributeValue lower, AttributeValue upper) {
+        return compare(">=", value, lower) && compare("<=", value, upper);
+    }
+
+    // operands
+
+    private Operand operand() {
+        Token token = peek();
+        if (token.kind == Kind.VALUE) {
+            return valueOperand();
+        }
+        if (token.is("size") && peekAt(1).is("(")) {
+            next();
+            next();
+            DocumentPath path = path();
+            expect(")");
+            return item -> {
+                AttributeValue value = path.get(item);
+                return value == null ? null : AttributeValues.size(value);
+            };
+        }
+        DocumentPath path = path();
+        return path::get;
+    }
+
+    private Operand valueOperand() {
+        Token token = next();
+        if (token.kind != Kind.VALUE) {
+            throw syntaxError(token);
+        }
+        AttributeValue value = values.get(token.text);
+        if (value == null) {
+            throw Errors.validation("An expression attribute value used in expression is not defined; attribute value: %s", token.text);
+        }
+        // fails for values without any type
+        typeOf(value);
+        usedValues.add(token.text);
+        return item -> value;
+    }
+
+    /**
+     * Value of a SET action, ie., <code>:v</code>, <code>path + :v</code>, <code>if_not_exists(path, :v)</code>
+     * or <code>list_append(path, :v)</code>
+     */
+    private Operand setValue() {
+        Operand left = setOperand();
+        if (peek().is("+") || peek().is("-")) {
+            boolean add = next().text.equals("+");
+            Operand right = setOperand();
+            return item -> arithmetic(add, left.evaluate(item), right.evaluate(item));
+        }
+        return left;
+    }
+
+    private Operand setOperand() {
+        Token token = peek();
+        if (token.kind == Kind.VALUE) {
+            return valueOperand();
+        }
+        if (token.is("if_not_exists") && peekAt(1).is("(")) {
+            next();
+            next();
+            DocumentPath path = path();
+            expect(",");
+            Operand fallback = setValue();
+            expect(")");
+            return item -> {
+                AttributeValue value = path.get(item);
+                return value != null ? value : fallback.evaluate(item);
+            };
+        }
+        if (token.is("list_append") && peekAt(1).is("(")) {
+            next();
+            next();
+            Operand first = setValue();
+            expect(",");
+            Operand second = setValue();
+            expect(")");
+            return item -> listAppend(first.evaluate(item), second.evaluate(item));
+        }
+        DocumentPath path = path();
+        return path::get;
+    }
+
+    private static AttributeValue arithmetic(boolean add, AttributeValue a, AttributeValue b) {
+        if (a == null || b == null) {
+            throw Errors.validation("The provided expression refers to an attribute that does not exist in the item");
+        }
+        if (typeOf(a) != Type.N || typeOf(b) != Type.N) {
+            throw Errors.validation("An operand in the update expression has an incorrect data type");
+        }
+        BigDecimal left = new BigDecimal(a.n());
+        BigDecimal right = new BigDecimal(b.n());
+        return AttributeValues.number(add ? left.add(right) : left.subtract(right));
+    }
+
+    private static AttributeValue listAppend(AttributeValue a, AttributeValue b) {
+        if (a == null || b == null) {
+            throw Errors.validation("The provided expression refers to an attribute that does not exist in the item");
+        }
+        if (typeOf(a) != Type.L || typeOf(b) != Type.L) {
+            throw Errors.validation("An operand in the update expression has an incorrect data type");
+        }
+        List<AttributeValue> list = new ArrayList<>(a.l());
+        list.addAll(b.l());
+        return AttributeValue.builder().l(list).build();
+    }
+
+    // paths
+
+    private DocumentPath path() {
+        List<Object> elements = new ArrayList<>();
+        elements.add(attributeName());
+        while (true) {
+            if (accept(".")) {
+                elements.add(attributeName());
+            } else if (accept("[")) {
+                Token index = next();
+                if (index.kind != Kind.NUMBER) {
+                    throw syntaxError(index);
+                }
+                elements.add(Integer.parseInt(index.text));
+                expect("]");
+            } else {
+                return new DocumentPath(elements);
+            }
+        }
+    }
+
+    private String attributeName() {
+        Token token = next();
+        if (token.kind == Kind.NAME) {
+            return token.text;
+        }
+        if (token.kind != Kind.NAME_REF) {
+            throw syntaxError(token);
+        }
+        String name = names.get(token.text);
+        if (name == null) {
+            throw Errors.validation("An expression attribute name used in the document path is not defined; attribute name: %s", token.text);
+        }
+        usedNames.add(token.text);
+        return name;
+    }
+
+    private String keyName() {
+        DocumentPath path = path();
+        if (!path.isTopLevel()) {
+            throw Errors.validation("Key condition can't refer nested attribute %s", path);
+        }
+        return path.topLevelName();
+    }
+
+    // tokens
+
+    private enum Kind {
+        NAME, NAME_REF, VALUE, NUMBER, SYMBOL, END
+    }
+
+    private static final class Token {
+        private final Kind kind;
+        private final String text;
+        private final int offset;
+
+        private Token(Kind kind, String text, int offset) {
+            this.kind = kind;
+            this.text = text;
+            this.offset = offset;
+        }
+
+        private boolean is(String text) {
+            return (kind == Kind.SYMBOL || kind == Kind.NAME) && this.text.equals(text);
+        }
+    }
+
+    private void start(String expression) {
+        if (expression.isBlank()) {
+            throw Errors.validation("Invalid expression: The expression can not be empty");
+        }
+        this.expression = expression;
+        this.tokens = tokenize(expression);
+        this.position = 0;
+    }
+
+    private static List<Token> tokenize(String expression) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '#' || c == ':' || Character.isLetter(c) || c == '_') {
+                int end = i + 1;
+                while (end < expression.length() && (Character.isLetterOrDigit(expression.charAt(end)) || expression.charAt(end) == '_')) {
+                    end++;
+                }
+                Kind kind = c == '#' ? Kind.NAME_REF : c == ':' ? Kind.VALUE : Kind.NAME;
+                tokens.add(new Token(kind, expression.substring(i, end), i));
+                i = end;
+            } else if (Character.isDigit(c)) {
+                int end = i + 1;
+                while (end < expression.length() && Character.isDigit(expression.charAt(end))) {
+                    end++;
+                }
+                tokens.add(new Token(Kind.NUMBER, expression.substring(i, end), i));
+                i = end;
+            } else if ((c == '<' || c == '>') && i + 1 < expression.length() && expression.charAt(i + 1) == '=') {
+                tokens.add(new Token(Kind.SYMBOL, expression.substring(i, i + 2), i));
+                i += 2;
+            } else if (c == '<' && i + 1 < expression.length() && expression.charAt(i + 1) == '>') {
+                tokens.add(new Token(Kind.SYMBOL, "<>", i));
+                i += 2;
+            } else if ("=<>()[],.+-".indexOf(c) >= 0) {
+                tokens.add(new Token(Kind.SYMBOL, String.valueOf(c), i));
+                i++;
+            } else {
+                throw Errors.validation("Invalid expression: Syntax error; token: \"%s\", near: \"%s\"", c, expression);
+            }
+        }
+        tokens.add(new Token(Kind.END, "", expression.length()));
+        return tokens;
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private Token peekAt(int ahead) {
+        return tokens.get(Math.min(position + ahead, tokens.size() - 1));
+    }
+
+    private Token next() {
+        Token token = tokens.get(position);
+        if (token.kind != Kind.END) {
+            position++;
+        }
+        return token;
+    }
+
+    private boolean accept(String symbol) {
+        if (peek().kind == Kind.SYMBOL && peek().text.equals(symbol)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (peek().kind == Kind.NAME && peek().text.equalsIgnoreCase(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String symbol) {
+        if (!accept(symbol)) {
+            throw syntaxError(peek());
+        }
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw syntaxError(peek());
+        }
+    }
+
+    private void expectEnd() {
+        if (peek().kind != Kind.END) {
+            throw syntaxError(peek());
+        }
+    }
+
+    private RuntimeException syntaxError(Token token) {
+        return token.kind == Kind.END
+                ? Errors.validation("Invalid expression: Syntax error; token: <EOF>, near: \"%s\"", expression)
+                : Errors.validation("Invalid expression: Syntax error; token: \"%s\", near: \"%s\"",
+                token.text, expression.substring(Math.max(0, token.offset - 10), Math.min(expression.length(), token.offset + 10)));
+    }
+}
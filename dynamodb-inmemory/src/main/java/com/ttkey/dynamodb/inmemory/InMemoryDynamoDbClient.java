@@ -0,0 +1,812 @@
+package com.ttkey.dynamodb.inmemory;
+
+import com.ttkey.dynamodb.inmemory.ExpressionParser.Condition;
+import com.ttkey.dynamodb.utils.ItemSizes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.ttkey.dynamodb.utils.Conditionals.isNullOrEmpty;
+
+/**
+ * {@link DynamoDbClient} keeping the tables in memory, meant as a fast and deterministic replacement of DynamoDB in
+ * tests and load tests. Supports
+ * <ul>
+ * <li>create, describe, list and delete of tables with hash and optional range key</li>
+ * <li>get, put, update and delete of items with condition, projection and update expressions</li>
+ * <li>query and scan, including parallel scan, with filter expressions and pagination</li>
+ * <li>batch get/write and transactional get/write</li>
+ * </ul>
+ * Requests are validated like DynamoDB does, ie., the key should match the schema, all the expression attribute names
+ * and values should be used, batches can't have duplicate keys and items can't exceed 400 KB. Consumed capacity is
+ * computed from the item sizes when requested. Secondary indexes and the legacy non-expression parameters are not
+ * supported and fail the request.
+ * <p>
+ * Items are returned sorted by hash key and then by range key, so scans are repeatable. Unlike DynamoDB, unprocessed
+ * items of batches are never returned and requests are never throttled.
+ */
+public class InMemoryDynamoDbClient implements DynamoDbClient {
+
+    private static final int MAX_BATCH_GET_KEYS = 100;
+    private static final int MAX_BATCH_WRITES = 25;
+    private static final int MAX_TRANSACTION_ITEMS = 100;
+    private static final int MAX_LIST_TABLES = 100;
+    private static final long MAX_PAGE_BYTES = 1024 * 1024;
+
+    private final ConcurrentMap<String, Table> tables = new ConcurrentHashMap<>();
+
+    // tables
+
+    @Override
+    public CreateTableResponse createTable(CreateTableRequest request) {
+        if (!request.globalSecondaryIndexes().isEmpty() || !request.localSecondaryIndexes().isEmpty()) {
+            throw Errors.validation("Secondary indexes are not supported by the in-memory client");
+        }
+        Table table = Table.create(request);
+        if (tables.putIfAbsent(table.name(), table) != null) {
+            throw Errors.tableExists(table.name());
+        }
+        return CreateTableResponse.builder()
+                .tableDescription(table.describe())
+                .build();
+    }
+
+    @Override
+    public DescribeTableResponse describeTable(DescribeTableRequest request) {
+        return DescribeTableResponse.builder()
+                .table(table(request.tableName()).describe())
+                .build();
+    }
+
+    @Override
+    public DeleteTableResponse deleteTable(DeleteTableRequest request) {
+        Table table = tables.remove(request.tableName());
+        if (table == null) {
+            throw Errors.tableNotFound(request.tableName());
+        }
+        return DeleteTableResponse.builder()
+                .tableDescription(table.describe())
+                .build();
+    }
+
+    @Override
+    public ListTablesResponse listTables(ListTablesRequest request) {
+        int limit = request.limit() == null ? MAX_LIST_TABLES : request.limit();
+        if (limit < 1 || limit > MAX_LIST_TABLES) {
+            throw Errors.validation("Limit should be between 1 and %d", MAX_LIST_TABLES);
+        }
+        var names = new TreeSet<>(tables.keySet());
+        var remaining = request.exclusiveStartTableName() == null ? names : names.tailSet(request.exclusiveStartTableName(), false);
+        List<String> page = new ArrayList<>();
+        for (String name : remaining) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(name);
+        }
+        var response = ListTablesResponse.builder().tableNames(page);
+        if (page.size() < remaining.size()) {
+            response.lastEvaluatedTableName(page.get(page.size() - 1));
+        }
+        return response.build();
+    }
+
+    // items
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        Table table = table(request.tableName());
+        var expressions = new ExpressionParser(request.expressionAttributeNames(), Map.of());
+        var projection = projection(expressions, request.projectionExpression(), request.attributesToGet());
+        expressions.verifyAllUsed();
+
+        var item = table.get(table.key(request.key()));
+        var response = GetItemResponse.builder();
+        if (item != null) {
+            response.item(projection == null ? item : projection.apply(item));
+        }
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacity(table, readUnits(ItemSizes.of(item), request.consistentRead())));
+        }
+        return response.build();
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        rejectLegacy(request.expected(), "Expected");
+        Table table = table(request.tableName());
+        var expressions = new ExpressionParser(request.expressionAttributeNames(), request.expressionAttributeValues());
+        var condition = expressions.parseCondition(request.conditionExpression());
+        expressions.verifyAllUsed();
+        var returnValues = returnValues(request.returnValues(), ReturnValue.NONE, ReturnValue.ALL_OLD);
+
+        var item = table.validateItem(request.item());
+        var key = table.keyOf(item);
+        Map<String, AttributeValue> old;
+        table.lock();
+        try {
+            old = table.get(key);
+            check(condition, old);
+            table.put(key, item);
+        } finally {
+            table.unlock();
+        }
+
+        var response = PutItemResponse.builder();
+        if (returnValues == ReturnValue.ALL_OLD && old != null) {
+            response.attributes(old);
+        }
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacity(table, writeUnits(old, item)));
+        }
+        return response.build();
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        rejectLegacy(request.attributeUpdates(), "AttributeUpdates");
+        rejectLegacy(request.expected(), "Expected");
+        Table table = table(request.tableName());
+        var expressions = new ExpressionParser(request.expressionAttributeNames(), request.expressionAttributeValues());
+        var update = expressions.parseUpdate(request.updateExpression());
+        var condition = expressions.parseCondition(request.conditionExpression());
+        expressions.verifyAllUsed();
+        var returnValues = returnValues(request.returnValues(), ReturnValue.values());
+
+        var key = table.key(request.key());
+        var updatedAttributes = update == null ? Set.<String>of() : update.updatedAttributes();
+        checkKeyNotUpdated(table, updatedAttributes);
+        Map<String, AttributeValue> old;
+        Map<String, AttributeValue> updated;
+        table.lock();
+        try {
+            old = table.get(key);
+            check(condition, old);
+            var current = old == null ? key : old;
+            updated = table.validateItem(update == null ? current : update.apply(current));
+            table.put(key, updated);
+        } finally {
+            table.unlock();
+        }
+
+        var response = UpdateItemResponse.builder();
+        switch (returnValues) {
+            case ALL_OLD:
+                if (old != null) {
+                    response.attributes(old);
+                }
+                break;
+            case ALL_NEW:
+                response.attributes(updated);
+                break;
+            case UPDATED_OLD:
+                if (old != null) {
+                    response.attributes(select(old, updatedAttributes));
+                }
+                break;
+            case UPDATED_NEW:
+                response.attributes(select(updated, updatedAttributes));
+                break;
+            default:
+                break;
+        }
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacity(table, writeUnits(old, updated)));
+        }
+        return response.build();
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        rejectLegacy(request.expected(), "Expected");
+        Table table = table(request.tableName());
+        var expressions = new ExpressionParser(request.expressionAttributeNames(), request.expressionAttributeValues());
+        var condition = expressions.parseCondition(request.conditionExpression());
+        expressions.verifyAllUsed();
+        var returnValues = returnValues(request.returnValues(), ReturnValue.NONE, ReturnValue.ALL_OLD);
+
+        var key = table.key(request.key());
+        Map<String, AttributeValue> old;
+        table.lock();
+        try {
+            old = table.get(key);
+            check(condition, old);
+            table.remove(key);
+        } finally {
+            table.unlock();
+        }
+
+        var response = DeleteItemResponse.builder();
+        if (returnValues == ReturnValue.ALL_OLD && old != null) {
+            response.attributes(old);
+        }
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacity(table, writeUnits(old, null)));
+        }
+        return response.build();
+    }
+
+    // query and scan
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        rejectIndex(request.indexName());
+        rejectLegacy(request.keyConditions(), "KeyConditions");
+        rejectLegacy(request.queryFilter(), "QueryFilter");
+        Table table = table(request.tableName());
+        if (request.keyConditionExpression() == null) {
+            throw Errors.validation("Either the KeyConditions or KeyConditionExpression parameter must be specified in the request.");
+        }
+        var expressions = new ExpressionParser(request.expressionAttributeNames(), request.expressionAttributeValues());
+        var keyCondition = expressions.parseKeyCondition(request.keyConditionExpression(), table.hashKeyName(), table.rangeKeyName());
+        var filter = expressions.parseCondition(request.filterExpression());
+        var projection = projection(expressions, request.projectionExpression(), request.attributesToGet());
+        expressions.verifyAllUsed();
+
+        var startKey = startKey(table, request.exclusiveStartKey());
+        var items = table.query(table.hashKey(keyCondition.hashValue()), startKey, !Boolean.FALSE.equals(request.scanIndexForward()));
+        var page = new Page(table, filter, projection, countOnly(request.select(), projection), request.limit());
+        page.read(items, item -> keyCondition.matchesRange(table.rangeOf(item)));
+
+        var response = QueryResponse.builder()
+                .count(page.count)
+                .scannedCount(page.scannedCount);
+        if (!page.countOnly) {
+            response.items(page.items);
+        }
+        if (page.lastEvaluatedKey != null) {
+            response.lastEvaluatedKey(page.lastEvaluatedKey);
+        }
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacity(table, readUnits(page.scannedBytes, request.consistentRead())));
+        }
+        return response.build();
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        rejectIndex(request.indexName());
+        rejectLegacy(request.scanFilter(), "ScanFilter");
+        Table table = table(request.tableName());
+        var expressions = new ExpressionParser(request.expressionAttributeNames(), request.expressionAttributeValues());
+        var filter = expressions.parseCondition(request.filterExpression());
+        var projection = projection(expressions, request.projectionExpression(), request.attributesToGet());
+        expressions.verifyAllUsed();
+
+        var startKey = startKey(table, request.exclusiveStartKey());
+        var items = table.scan(startKey, segmentFilter(request.segment(), request.totalSegments()));
+        var page = new Page(table, filter, projection, countOnly(request.select(), projection), request.limit());
+        page.read(items, item -> true);
+
+        var response = ScanResponse.builder()
+                .count(page.count)
+                .scannedCount(page.scannedCount);
+        if (!page.countOnly) {
+            response.items(page.items);
+        }
+        if (page.lastEvaluatedKey != null) {
+            response.lastEvaluatedKey(page.lastEvaluatedKey);
+        }
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacity(table, readUnits(page.scannedBytes, request.consistentRead())));
+        }
+        return response.build();
+    }
+
+    /**
+     * Partitions of a segment of a parallel scan, all the partitions if the scan isn't segmented
+     */
+    private static Predicate<AttributeValue> segmentFilter(Integer segment, Integer totalSegments) {
+        if (segment == null && totalSegments == null) {
+            return hashKey -> true;
+        }
+        if (segment == null || totalSegments == null || totalSegments < 1 || segment < 0 || segment >= totalSegments) {
+            throw Errors.validation("Segment and TotalSegments should be provided together and Segment should be less than TotalSegments");
+        }
+        return hashKey -> Math.floorMod(AttributeValues.hash(hashKey), totalSegments) == segment;
+    }
+
+    private static Map<String, AttributeValue> startKey(Table table, Map<String, AttributeValue> exclusiveStartKey) {
+        return isNullOrEmpty(exclusiveStartKey) ? null : table.key(exclusiveStartKey);
+    }
+
+    private static boolean countOnly(Select select, Projection projection) {
+        if (select == Select.ALL_PROJECTED_ATTRIBUTES) {
+            throw Errors.validation("ALL_PROJECTED_ATTRIBUTES can be used only when querying an index");
+        }
+        if (select == Select.ALL_ATTRIBUTES && projection != null) {
+            throw Errors.validation("Cannot specify the ProjectionExpression when choosing to get ALL_ATTRIBUTES");
+        }
+        return select == Select.COUNT;
+    }
+
+    /**
+     * One page of query or scan results. A page ends when the limit or 1 MB of evaluated items is reached.
+     */
+    private static final class Page {
+        private final Table table;
+        private final Condition filter;
+        private final Projection projection;
+        private final boolean countOnly;
+        private final Integer limit;
+
+        private final List<Map<String, AttributeValue>> items = new ArrayList<>();
+        private int count;
+        private int scannedCount;
+        private long scannedBytes;
+        private Map<String, AttributeValue> lastEvaluatedKey;
+
+        private Page(Table table, Condition filter, Projection projection, boolean countOnly, Integer limit) {
+            if (limit != null && limit < 1) {
+                throw Errors.validation("Limit must be greater than or equal to 1");
+            }
+            this.table = table;
+            this.filter = filter;
+            this.projection = projection;
+            this.countOnly = countOnly;
+            this.limit = limit;
+        }
+
+        /**
+         * @param keyCondition items which are not evaluated at all, ie., not matching the range key condition
+         */
+        private void read(Iterator<Map<String, AttributeValue>> candidates, Predicate<Map<String, AttributeValue>> keyCondition) {
+            Map<String, AttributeValue> last = null;
+            while (candidates.hasNext()) {
+                if ((limit != null && scannedCount >= limit) || scannedBytes >= MAX_PAGE_BYTES) {
+                    lastEvaluatedKey = table.keyOf(last);
+                    return;
+                }
+                var item = candidates.next();
+                if (!keyCondition.test(item)) {
+                    continue;
+                }
+                last = item;
+                scannedCount++;
+                scannedBytes += ItemSizes.of(item);
+                if (filter == null || filter.test(item)) {
+                    count++;
+                    if (!countOnly) {
+                        items.add(projection == null ? item : projection.apply(item));
+                    }
+                }
+            }
+        }
+    }
+
+    // batches
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        var requestItems = request.requestItems();
+        int keyCount = requestItems.values().stream().mapToInt(keys -> keys.keys().size()).sum();
+        if (keyCount == 0 || keyCount > MAX_BATCH_GET_KEYS) {
+            throw Errors.validation("Too many items requested for the BatchGetItem call, should be between 1 and %d", MAX_BATCH_GET_KEYS);
+        }
+
+        Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+        List<ConsumedCapacity> capacities = new ArrayList<>();
+        for (Map.Entry<String, KeysAndAttributes> entry : requestItems.entrySet()) {
+            Table table = table(entry.getKey());
+            var keysAndAttributes = entry.getValue();
+            var expressions = new ExpressionParser(keysAndAttributes.expressionAttributeNames(), Map.of());
+            var projection = projection(expressions, keysAndAttributes.projectionExpression(), keysAndAttributes.attributesToGet());
+            expressions.verifyAllUsed();
+
+            var keys = uniqueKeys(table, keysAndAttributes.keys(), Function.identity());
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            double units = 0;
+            for (Map<String, AttributeValue> key : keys) {
+                var item = table.get(key);
+                if (item != null) {
+                    items.add(projection == null ? item : projection.apply(item));
+                }
+                units += readUnits(ItemSizes.of(item), keysAndAttributes.consistentRead());
+            }
+            responses.put(table.name(), items);
+            capacities.add(capacity(table, units));
+        }
+
+        var response = BatchGetItemResponse.builder().responses(responses);
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacities);
+        }
+        return response.build();
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        var requestItems = request.requestItems();
+        int writeCount = requestItems.values().stream().mapToInt(List::size).sum();
+        if (writeCount == 0 || writeCount > MAX_BATCH_WRITES) {
+            throw Errors.validation("Too many items requested for the BatchWriteItem call, should be between 1 and %d", MAX_BATCH_WRITES);
+        }
+
+        // validate all the requests before writing any
+        Map<Table, List<WriteRequest>> writes = new LinkedHashMap<>();
+        for (Map.Entry<String, List<WriteRequest>> entry : requestItems.entrySet()) {
+            Table table = table(entry.getKey());
+            uniqueKeys(table, entry.getValue(), write -> {
+                if ((write.putRequest() == null) == (write.deleteRequest() == null)) {
+                    throw Errors.validation("Supplied WriteRequest should have exactly one of PutRequest or DeleteRequest");
+                }
+                return write.putRequest() != null
+                        ? table.keyOf(table.validateItem(write.putRequest().item()))
+                        : table.key(write.deleteRequest().key());
+            });
+            writes.put(table, entry.getValue());
+        }
+
+        List<ConsumedCapacity> capacities = new ArrayList<>();
+        writes.forEach((table, requests) -> {
+            double units = 0;
+            table.lock();
+            try {
+                for (WriteRequest write : requests) {
+                    if (write.putRequest() != null) {
+                        var item = table.validateItem(write.putRequest().item());
+                        var key = table.keyOf(item);
+                        units += writeUnits(table.get(key), item);
+                        table.put(key, item);
+                    } else {
+                        var key = table.key(write.deleteRequest().key());
+                        units += writeUnits(table.get(key), null);
+                        table.remove(key);
+                    }
+                }
+            } finally {
+                table.unlock();
+            }
+            capacities.add(capacity(table, units));
+        });
+
+        var response = BatchWriteItemResponse.builder();
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacities);
+        }
+        return response.build();
+    }
+
+    /**
+     * Validates the keys of the requests and fails if any key is repeated
+     */
+    private static <R> List<Map<String, AttributeValue>> uniqueKeys(Table table, List<R> requests, Function<R, Map<String, AttributeValue>> keyOf) {
+        Set<Map<String, AttributeValue>> keys = new TreeSet<>(table::compareKeys);
+        List<Map<String, AttributeValue>> uniqueKeys = new ArrayList<>(requests.size());
+        for (R request : requests) {
+            var key = table.key(keyOf.apply(request));
+            if (!keys.add(key)) {
+                throw Errors.validation("Provided list of item keys contains duplicates");
+            }
+            uniqueKeys.add(key);
+        }
+        return uniqueKeys;
+    }
+
+    // transactions
+
+    @Override
+    public TransactGetItemsResponse transactGetItems(TransactGetItemsRequest request) {
+        var gets = request.transactItems();
+        if (gets.isEmpty() || gets.size() > MAX_TRANSACTION_ITEMS) {
+            throw Errors.validation("Transaction should have between 1 and %d items", MAX_TRANSACTION_ITEMS);
+        }
+        List<Table> tablesOfGets = new ArrayList<>(gets.size());
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(gets.size());
+        List<Projection> projections = new ArrayList<>(gets.size());
+        for (TransactGetItem transactItem : gets) {
+            var get = transactItem.get();
+            Table table = table(get.tableName());
+            var expressions = new ExpressionParser(get.expressionAttributeNames(), Map.of());
+            projections.add(expressions.parseProjection(get.projectionExpression()));
+            expressions.verifyAllUsed();
+            tablesOfGets.add(table);
+            keys.add(table.key(get.key()));
+        }
+
+        List<ItemResponse> responses = new ArrayList<>(gets.size());
+        Map<String, Double> units = new TreeMap<>();
+        lockAll(tablesOfGets);
+        try {
+            for (int i = 0; i < gets.size(); i++) {
+                Table table = tablesOfGets.get(i);
+                var item = table.get(keys.get(i));
+                var response = ItemResponse.builder();
+                if (item != null) {
+                    response.item(projections.get(i) == null ? item : projections.get(i).apply(item));
+                }
+                responses.add(response.build());
+                units.merge(table.name(), 2 * readUnits(ItemSizes.of(item), true), Double::sum);
+            }
+        } finally {
+            unlockAll(tablesOfGets);
+        }
+
+        var response = TransactGetItemsResponse.builder().responses(responses);
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacities(units));
+        }
+        return response.build();
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        var transactItems = request.transactItems();
+        if (transactItems.isEmpty() || transactItems.size() > MAX_TRANSACTION_ITEMS) {
+            throw Errors.validation("Transaction should have between 1 and %d items", MAX_TRANSACTION_ITEMS);
+        }
+        List<TransactionWrite> writes = new ArrayList<>(transactItems.size());
+        for (TransactWriteItem transactItem : transactItems) {
+            var write = TransactionWrite.of(transactItem, this::table);
+            for (TransactionWrite other : writes) {
+                if (other.table == write.table && write.table.compareKeys(other.key, write.key) == 0) {
+                    throw Errors.validation("Transaction request cannot include multiple operations on one item");
+                }
+            }
+            writes.add(write);
+        }
+
+        List<Table> tablesOfWrites = new ArrayList<>(writes.size());
+        writes.forEach(write -> tablesOfWrites.add(write.table));
+        Map<String, Double> units = new TreeMap<>();
+        lockAll(tablesOfWrites);
+        try {
+            List<String> reasons = new ArrayList<>(writes.size());
+            boolean failed = false;
+            for (TransactionWrite write : writes) {
+                write.old = write.table.get(write.key);
+                boolean passed = write.condition == null || write.condition.test(write.old == null ? Map.of() : write.old);
+                reasons.add(passed ? "None" : "ConditionalCheckFailed");
+                failed |= !passed;
+            }
+            if (failed) {
+                throw Errors.transactionCanceled(reasons);
+            }
+            // compute all the new items first, an invalid update should not leave the transaction half written
+            List<Map<String, AttributeValue>> newItems = new ArrayList<>(writes.size());
+            for (TransactionWrite write : writes) {
+                newItems.add(write.newItem());
+            }
+            for (int i = 0; i < writes.size(); i++) {
+                var write = writes.get(i);
+                var item = newItems.get(i);
+                if (write.kind == TransactionWrite.Kind.DELETE) {
+                    write.table.remove(write.key);
+                } else if (write.kind != TransactionWrite.Kind.CONDITION_CHECK) {
+                    write.table.put(write.key, item);
+                }
+                units.merge(write.table.name(), 2 * writeUnits(write.old, item), Double::sum);
+            }
+        } finally {
+            unlockAll(tablesOfWrites);
+        }
+
+        var response = TransactWriteItemsResponse.builder();
+        if (wantsCapacity(request.returnConsumedCapacity())) {
+            response.consumedCapacity(capacities(units));
+        }
+        return response.build();
+    }
+
+    /**
+     * A put, update, delete or condition check of a transaction
+     */
+    private static final class TransactionWrite {
+        private enum Kind {
+            PUT, UPDATE, DELETE, CONDITION_CHECK
+        }
+
+        private final Kind kind;
+        private final Table table;
+        private final Map<String, AttributeValue> key;
+        private final Condition condition;
+        private final Map<String, AttributeValue> item;
+        private final UpdateExpression update;
+        private Map<String, AttributeValue> old;
+
+        private TransactionWrite(Kind kind, Table table, Map<String, AttributeValue> key, Condition condition,
+                                 Map<String, AttributeValue> item, UpdateExpression update) {
+            this.kind = kind;
+            this.table = table;
+            this.key = key;
+            this.condition = condition;
+            this.item = item;
+            this.update = update;
+        }
+
+        private static TransactionWrite of(TransactWriteItem transactItem, Function<String, Table> tables) {
+            if (transactItem.put() != null) {
+                var put = transactItem.put();
+                Table table = tables.apply(put.tableName());
+                var expressions = new ExpressionParser(put.expressionAttributeNames(), put.expressionAttributeValues());
+                var condition = expressions.parseCondition(put.conditionExpression());
+                expressions.verifyAllUsed();
+                var item = table.validateItem(put.item());
+                return new TransactionWrite(Kind.PUT, table, table.keyOf(item), condition, item, null);
+            } else if (transactItem.update() != null) {
+                var update = transactItem.update();
+                Table table = tables.apply(update.tableName());
+                var expressions = new ExpressionParser(update.expressionAttributeNames(), update.expressionAttributeValues());
+                var updateExpression = expressions.parseUpdate(update.updateExpression());
+                var condition = expressions.parseCondition(update.conditionExpression());
+                expressions.verifyAllUsed();
+                if (updateExpression == null) {
+                    throw Errors.validation("UpdateExpression is required in a transaction update");
+                }
+                checkKeyNotUpdated(table, updateExpression.updatedAttributes());
+                return new TransactionWrite(Kind.UPDATE, table, table.key(update.key()), condition, null, updateExpression);
+            } else if (transactItem.delete() != null) {
+                var delete = transactItem.delete();
+                Table table = tables.apply(delete.tableName());
+                var expressions = new ExpressionParser(delete.expressionAttributeNames(), delete.expressionAttributeValues());
+                var condition = expressions.parseCondition(delete.conditionExpression());
+                expressions.verifyAllUsed();
+                return new TransactionWrite(Kind.DELETE, table, table.key(delete.key()), condition, null, null);
+            } else if (transactItem.conditionCheck() != null) {
+                var check = transactItem.conditionCheck();
+                Table table = tables.apply(check.tableName());
+                var expressions = new ExpressionParser(check.expressionAttributeNames(), check.expressionAttributeValues());
+                var condition = expressions.parseCondition(check.conditionExpression());
+                expressions.verifyAllUsed();
+                if (condition == null) {
+                    throw Errors.validation("ConditionExpression is required in a transaction condition check");
+                }
+                return new TransactionWrite(Kind.CONDITION_CHECK, table, table.key(check.key()), condition, null, null);
+            }
+            throw Errors.validation("TransactItems can only contain one of Check, Put, Update or Delete");
+        }
+
+        /**
+         * @return item after this write, null if deleted or not modified
+         */
+        private Map<String, AttributeValue> newItem() {
+            switch (kind) {
+                case PUT:
+                    return item;
+                case UPDATE:
+                    return table.validateItem(update.apply(old == null ? key : old));
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Locks the tables in the order of their names so that concurrent transactions can't deadlock
+     */
+    private static void lockAll(Collection<Table> tables) {
+        tablesInLockOrder(tables).forEach(Table::lock);
+    }
+
+    private static void unlockAll(Collection<Table> tables) {
+        tablesInLockOrder(tables).forEach(Table::unlock);
+    }
+
+    private static Collection<Table> tablesInLockOrder(Collection<Table> tables) {
+        Map<String, Table> byName = new TreeMap<>();
+        tables.forEach(table -> byName.put(table.name(), table));
+        return byName.values();
+    }
+
+    // helpers
+
+    private Table table(String tableName) {
+        Table table = tableName == null ? null : tables.get(tableName);
+        if (table == null) {
+            throw Errors.tableNotFound(tableName);
+        }
+        return table;
+    }
+
+    private static Projection projection(ExpressionParser expressions, String projectionExpression, List<String> attributesToGet) {
+        boolean legacy = attributesToGet != null && !attributesToGet.isEmpty();
+        if (projectionExpression != null && legacy) {
+            throw Errors.validation("Can not use both expression and non-expression parameters in the same request: Non-expression parameters: {AttributesToGet} Expression parameters: {ProjectionExpression}");
+        }
+        return legacy ? Projection.ofNames(attributesToGet) : expressions.parseProjection(projectionExpression);
+    }
+
+    private static void check(Condition condition, Map<String, AttributeValue> item) {
+        if (condition != null && !condition.test(item == null ? Map.of() : item)) {
+            throw Errors.conditionFailed();
+        }
+    }
+
+    private static void checkKeyNotUpdated(Table table, Set<String> updatedAttributes) {
+        for (String name : updatedAttributes) {
+            if (name.equals(table.hashKeyName()) || name.equals(table.rangeKeyName())) {
+                throw Errors.validation("One or more parameter values were invalid: Cannot update attribute %s. This attribute is part of the key", name);
+            }
+        }
+    }
+
+    private static ReturnValue returnValues(ReturnValue requested, ReturnValue... supported) {
+        if (requested == null) {
+            return ReturnValue.NONE;
+        }
+        for (ReturnValue value : supported) {
+            if (value == requested && value != ReturnValue.UNKNOWN_TO_SDK_VERSION) {
+                return value;
+            }
+        }
+        throw Errors.validation("Return values set to invalid value: %s", requested);
+    }
+
+    private static Map<String, AttributeValue> select(Map<String, AttributeValue> item, Set<String> names) {
+        Map<String, AttributeValue> selected = new HashMap<>();
+        for (String name : names) {
+            var value = item.get(name);
+            if (value != null) {
+                selected.put(name, value);
+            }
+        }
+        return selected;
+    }
+
+    private static void rejectLegacy(Map<?, ?> parameter, String name) {
+        if (!isNullOrEmpty(parameter)) {
+            throw Errors.validation("Legacy parameter %s is not supported by the in-memory client, use expressions", name);
+        }
+    }
+
+    private static void rejectIndex(String indexName) {
+        if (indexName != null) {
+            throw Errors.validation("Secondary indexes are not supported by the in-memory client: %s", indexName);
+        }
+    }
+
+    // capacity
+
+    private static boolean wantsCapacity(ReturnConsumedCapacity returnConsumedCapacity) {
+        return returnConsumedCapacity == ReturnConsumedCapacity.TOTAL || returnConsumedCapacity == ReturnConsumedCapacity.INDEXES;
+    }
+
+    /**
+     * One unit per 4 KB read, half of it for eventually consistent reads
+     */
+    private static double readUnits(long bytes, Boolean consistentRead) {
+        double units = Math.max(1, Math.ceil(bytes / 4096.0));
+        return Boolean.TRUE.equals(consistentRead) ? units : units / 2;
+    }
+
+    /**
+     * One unit per 1 KB of the larger of the old and the new item
+     */
+    private static double writeUnits(Map<String, AttributeValue> old, Map<String, AttributeValue> item) {
+        long bytes = Math.max(ItemSizes.of(old), ItemSizes.of(item));
+        return Math.max(1, Math.ceil(bytes / 1024.0));
+    }
+
+    private static ConsumedCapacity capacity(Table table, double units) {
+        return ConsumedCapacity.builder()
+                .tableName(table.name())
+                .capacityUnits(units)
+                .build();
+    }
+
+    private static List<ConsumedCapacity> capacities(Map<String, Double> unitsByTable) {
+        List<ConsumedCapacity> capacities = new ArrayList<>(unitsByTable.size());
+        unitsByTable.forEach((tableName, units) -> capacities.add(ConsumedCapacity.builder()
+                .tableName(tableName)
+                .capacityUnits(units)
+                .build()));
+        return capacities;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Nothing to release, tables are kept till the client is garbage collected
+     */
+    @Override
+    public void close() {
+    }
+}
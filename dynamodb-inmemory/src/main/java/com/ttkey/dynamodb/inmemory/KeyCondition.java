@@ -0,0 +1,27 @@
+package com.ttkey.dynamodb.inmemory;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.function.Predicate;
+
+/**
+ * Parsed key condition expression of a query, ie., equality on the hash key and an optional condition on the range key.
+ */
+final class KeyCondition {
+
+    private final AttributeValue hashValue;
+    private final Predicate<AttributeValue> rangeCondition;
+
+    KeyCondition(AttributeValue hashValue, Predicate<AttributeValue> rangeCondition) {
+        this.hashValue = hashValue;
+        this.rangeCondition = rangeCondition;
+    }
+
+    AttributeValue hashValue() {
+        return hashValue;
+    }
+
+    boolean matchesRange(AttributeValue rangeValue) {
+        return rangeCondition == null || rangeCondition.test(rangeValue);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ttkey.dynamodb.inmemory;
+
+import com.ttkey.dynamodb.inmemory.AttributeValues.Type;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.*;
+
+import static com.ttkey.dynamodb.inmemory.AttributeValues.typeOf;
+
+/**
+ * Attributes selected by a projection expression. Nested paths keep the enclosing documents, ie., projecting
+ * <code>info.rating, tags[1]</code> returns <code>{info: {rating}, tags: [second tag]}</code>.
+ */
+final class Projection {
+
+    private final Node root = new Node();
+
+    Projection(List<DocumentPath> paths) {
+        for (DocumentPath path : paths) {
+            Node node = root;
+            for (Object element : path.elements()) {
+                node = element instanceof String
+                        ? node.fields.computeIfAbsent((String) element, name -> new Node())
+                        : node.indexes.computeIfAbsent((Integer) element, index -> new Node());
+            }
+            node.whole = true;
+        }
+    }
+
+    static Projection ofNames(Collection<String> attributeNames) {
+        List<DocumentPath> paths = new ArrayList<>(attributeNames.size());
+        for (String name : attributeNames) {
+            paths.add(new DocumentPath(List.of(name)));
+        }
+        return new Projection(paths);
+    }
+
+    Map<String, AttributeValue> apply(Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> projected = new HashMap<>();
+        root.fields.forEach((name, node) -> {
+            AttributeValue value = item.get(name);
+            if (value != null && (value = node.select(value)) != null) {
+                projected.put(name, value);
+            }
+        });
+        return projected;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> fields = new LinkedHashMap<>();
+        private final SortedMap<Integer, Node> indexes = new TreeMap<>();
+        private boolean whole;
+
+        private AttributeValue select(AttributeValue value) {
+            if (whole) {
+                return value;
+            }
+            if (!fields.isEmpty() && typeOf(value) == Type.M) {
+                Map<String, AttributeValue> selected = new LinkedHashMap<>();
+                fields.forEach((name, node) -> {
+                    AttributeValue child = value.m().get(name);
+                    if (child != null && (child = node.select(child)) != null) {
+                        selected.put(name, child);
+                    }
+                });
+                return selected.isEmpty() ? null : AttributeValue.builder().m(selected).build();
+            }
+            if (!indexes.isEmpty() && typeOf(value) == Type.L) {
+                List<AttributeValue> selected = new ArrayList<>();
+                indexes.forEach((index, node) -> {
+                    AttributeValue child = index < value.l().size() ? value.l().get(index) : null;
+                    if (child != null && (child = node.select(child)) != null) {
+                        selected.add(child);
+                    }
+                });
+                return selected.isEmpty() ? null : AttributeValue.builder().l(selected).build();
+            }
+            return null;
+        }
+    }
+}
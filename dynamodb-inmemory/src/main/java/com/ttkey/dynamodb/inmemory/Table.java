@@ -0,0 +1,309 @@
+package com.ttkey.dynamodb.inmemory;
+
+import com.ttkey.dynamodb.inmemory.AttributeValues.Type;
+import com.ttkey.dynamodb.utils.ItemSizes;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import static com.ttkey.dynamodb.inmemory.AttributeValues.KEY_ORDER;
+import static com.ttkey.dynamodb.inmemory.AttributeValues.typeOf;
+
+/**
+ * Items of a table, grouped in partitions by hash key and sorted by range key within a partition. Partitions are
+ * ordered by their hash key too, so that scans are deterministic.
+ * <p>
+ * Stored items are immutable, reads don't take any lock. Writes take the table lock so that the condition check and
+ * the write are atomic.
+ */
+final class Table {
+
+    static final long MAX_ITEM_BYTES = 400 * 1024;
+
+    /**
+     * Range key of the only item in partitions of tables without range key
+     */
+    private static final AttributeValue NO_RANGE = AttributeValue.builder().nul(true).build();
+
+    private final String name;
+    private final String hashKeyName;
+    private final Type hashKeyType;
+    private final String rangeKeyName;
+    private final Type rangeKeyType;
+    private final CreateTableRequest definition;
+    private final Instant createdOn = Instant.now();
+
+    private final ConcurrentSkipListMap<AttributeValue, ConcurrentSkipListMap<AttributeValue, Map<String, AttributeValue>>> partitions =
+            new ConcurrentSkipListMap<>(KEY_ORDER);
+    private final AtomicLong itemCount = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Table(CreateTableRequest definition, String hashKeyName, Type hashKeyType, String rangeKeyName, Type rangeKeyType) {
+        this.name = definition.tableName();
+        this.definition = definition;
+        this.hashKeyName = hashKeyName;
+        this.hashKeyType = hashKeyType;
+        this.rangeKeyName = rangeKeyName;
+        this.rangeKeyType = rangeKeyType;
+    }
+
+    static Table create(CreateTableRequest request) {
+        if (request.tableName() == null || request.tableName().isEmpty()) {
+            throw Errors.validation("Table name is required");
+        }
+        Map<String, Type> types = new HashMap<>();
+        for (AttributeDefinition attribute : request.attributeDefinitions()) {
+            String type = attribute.attributeTypeAsString();
+            if (!Set.of("S", "N", "B").contains(type)) {
+                throw Errors.validation("Member must satisfy enum value set: [B, N, S]; attribute type: %s", type);
+            }
+            types.put(attribute.attributeName(), Type.valueOf(type));
+        }
+        String hashKeyName = null;
+        String rangeKeyName = null;
+        for (KeySchemaElement element : request.keySchema()) {
+            if (element.keyType() == KeyType.HASH && hashKeyName == null) {
+                hashKeyName = element.attributeName();
+            } else if (element.keyType() == KeyType.RANGE && rangeKeyName == null) {
+                rangeKeyName = element.attributeName();
+            } else {
+                throw Errors.validation("Invalid KeySchema: Some index key schema element is not valid");
+            }
+        }
+        if (hashKeyName == null) {
+            throw Errors.validation("Invalid KeySchema: The first KeySchemaElement is not a HASH key type");
+        }
+        if (!types.containsKey(hashKeyName) || (rangeKeyName != null && !types.containsKey(rangeKeyName))) {
+            throw Errors.validation("One or more parameter values were invalid: Some index key attributes are not defined in AttributeDefinitions");
+        }
+        return new Table(request, hashKeyName, types.get(hashKeyName), rangeKeyName, rangeKeyName == null ? null : types.get(rangeKeyName));
+    }
+
+    String name() {
+        return name;
+    }
+
+    String hashKeyName() {
+        return hashKeyName;
+    }
+
+    /**
+     * @return null if the table has only hash key
+     */
+    String rangeKeyName() {
+        return rangeKeyName;
+    }
+
+    TableDescription describe() {
+        var description = TableDescription.builder()
+                .tableName(name)
+                .keySchema(definition.keySchema())
+                .attributeDefinitions(definition.attributeDefinitions())
+                .tableStatus(TableStatus.ACTIVE)
+                .creationDateTime(createdOn)
+                .itemCount(itemCount.get());
+        var throughput = definition.provisionedThroughput();
+        if (throughput != null) {
+            description.provisionedThroughput(ProvisionedThroughputDescription.builder()
+                    .readCapacityUnits(throughput.readCapacityUnits())
+                    .writeCapacityUnits(throughput.writeCapacityUnits())
+                    .build());
+        }
+        return description.build();
+    }
+
+    // keys
+
+    /**
+     * Validates that the attributes are exactly the key attributes of this table
+     */
+    Map<String, AttributeValue> key(Map<String, AttributeValue> key) {
+        if (key == null || key.size() != (rangeKeyName == null ? 1 : 2)) {
+            throw Errors.validation("The provided key element does not match the schema");
+        }
+        return keyOf(key);
+    }
+
+    /**
+     * @return key attributes of the item
+     */
+    Map<String, AttributeValue> keyOf(Map<String, AttributeValue> item) {
+        AttributeValue hash = keyValue(item, hashKeyName, hashKeyType);
+        if (rangeKeyName == null) {
+            return Map.of(hashKeyName, hash);
+        }
+        return Map.of(hashKeyName, hash, rangeKeyName, keyValue(item, rangeKeyName, rangeKeyType));
+    }
+
+    private static AttributeValue keyValue(Map<String, AttributeValue> item, String name, Type type) {
+        AttributeValue value = item.get(name);
+        if (value == null || typeOf(value) != type) {
+            throw Errors.validation("One or more parameter values were invalid: Missing the key %s in the item or its type doesn't match the schema", name);
+        }
+        if ((type == Type.S && value.s().isEmpty()) || (type == Type.B && value.b().asByteArray().length == 0)) {
+            throw Errors.validation("One or more parameter values are not valid. The AttributeValue for a key attribute cannot contain an empty value. Key: %s", name);
+        }
+        if (type == Type.N) {
+            number(value.n());
+        }
+        return value;
+    }
+
+    /**
+     * Validates the hash key value of a query
+     */
+    AttributeValue hashKey(AttributeValue value) {
+        return keyValue(Map.of(hashKeyName, value), hashKeyName, hashKeyType);
+    }
+
+    AttributeValue rangeOf(Map<String, AttributeValue> key) {
+        return rangeKeyName == null ? NO_RANGE : key.get(rangeKeyName);
+    }
+
+    /**
+     * Order of keys of this table, hash key first and then range key
+     */
+    int compareKeys(Map<String, AttributeValue> a, Map<String, AttributeValue> b) {
+        int result = KEY_ORDER.compare(a.get(hashKeyName), b.get(hashKeyName));
+        return result != 0 || rangeKeyName == null ? result : KEY_ORDER.compare(a.get(rangeKeyName), b.get(rangeKeyName));
+    }
+
+    /**
+     * Validates the attribute values, item size and the key attributes
+     *
+     * @return immutable copy of the item
+     */
+    Map<String, AttributeValue> validateItem(Map<String, AttributeValue> item) {
+        if (item == null || item.isEmpty()) {
+            throw Errors.validation("One or more parameter values were invalid: Item is required");
+        }
+        keyOf(item);
+        item.values().forEach(Table::validateValue);
+        if (ItemSizes.of(item) > MAX_ITEM_BYTES) {
+            throw Errors.validation("Item size has exceeded the maximum allowed size");
+        }
+        return Collections.unmodifiableMap(new HashMap<>(item));
+    }
+
+    private static void validateValue(AttributeValue value) {
+        switch (typeOf(value)) {
+            case N:
+                number(value.n());
+                break;
+            case SS:
+            case BS:
+                if (value.ss().isEmpty() && value.bs().isEmpty()) {
+                    throw Errors.validation("One or more parameter values were invalid: An string or binary set may not be empty");
+                }
+                break;
+            case NS:
+                if (value.ns().isEmpty()) {
+                    throw Errors.validation("One or more parameter values were invalid: An number set may not be empty");
+                }
+                value.ns().forEach(Table::number);
+                break;
+            case M:
+                value.m().values().forEach(Table::validateValue);
+                break;
+            case L:
+                value.l().forEach(Table::validateValue);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void number(String value) {
+        try {
+            new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw Errors.validation("A value provided cannot be converted into a number");
+        }
+    }
+
+    // items
+
+    Map<String, AttributeValue> get(Map<String, AttributeValue> key) {
+        var partition = partitions.get(key.get(hashKeyName));
+        return partition == null ? null : partition.get(rangeOf(key));
+    }
+
+    void lock() {
+        lock.lock();
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Should be called holding the lock
+     *
+     * @param item validated item, see {@link #validateItem(Map)}
+     */
+    void put(Map<String, AttributeValue> key, Map<String, AttributeValue> item) {
+        var partition = partitions.computeIfAbsent(key.get(hashKeyName), hash -> new ConcurrentSkipListMap<>(KEY_ORDER));
+        if (partition.put(rangeOf(key), item) == null) {
+            itemCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Should be called holding the lock
+     */
+    void remove(Map<String, AttributeValue> key) {
+        var partition = partitions.get(key.get(hashKeyName));
+        if (partition != null && partition.remove(rangeOf(key)) != null) {
+            itemCount.decrementAndGet();
+            if (partition.isEmpty()) {
+                partitions.remove(key.get(hashKeyName));
+            }
+        }
+    }
+
+    /**
+     * @param exclusiveStartKey key of the last item of the previous page, null for the first page
+     * @param partitionFilter   hash keys of the partitions to be scanned
+     * @return items following the start key in key order
+     */
+    Iterator<Map<String, AttributeValue>> scan(Map<String, AttributeValue> exclusiveStartKey, Predicate<AttributeValue> partitionFilter) {
+        NavigableMap<AttributeValue, ConcurrentSkipListMap<AttributeValue, Map<String, AttributeValue>>> remaining = exclusiveStartKey == null
+                ? partitions
+                : partitions.tailMap(exclusiveStartKey.get(hashKeyName), true);
+        return remaining.entrySet().stream()
+                .filter(partition -> partitionFilter.test(partition.getKey()))
+                .flatMap(partition -> {
+                    NavigableMap<AttributeValue, Map<String, AttributeValue>> items = partition.getValue();
+                    if (exclusiveStartKey != null && KEY_ORDER.compare(partition.getKey(), exclusiveStartKey.get(hashKeyName)) == 0) {
+                        items = items.tailMap(rangeOf(exclusiveStartKey), false);
+                    }
+                    return items.values().stream();
+                })
+                .iterator();
+    }
+
+    /**
+     * @param forward true for ascending order of range keys
+     * @return items of the partition following the start key
+     */
+    Iterator<Map<String, AttributeValue>> query(AttributeValue hashKey, Map<String, AttributeValue> exclusiveStartKey, boolean forward) {
+        var partition = partitions.get(hashKey);
+        if (partition == null) {
+            return Collections.emptyIterator();
+        }
+        NavigableMap<AttributeValue, Map<String, AttributeValue>> items = forward ? partition : partition.descendingMap();
+        if (exclusiveStartKey != null) {
+            if (KEY_ORDER.compare(hashKey, exclusiveStartKey.get(hashKeyName)) != 0) {
+                throw Errors.validation("The provided starting key is invalid: The provided key element does not match the schema");
+            }
+            items = items.tailMap(rangeOf(exclusiveStartKey), false);
+        }
+        return items.values().iterator();
+    }
+}
@@ -0,0 +1,147 @@
+package com.ttkey.dynamodb.inmemory;
+
+import com.ttkey.dynamodb.inmemory.AttributeValues.Type;
+import com.ttkey.dynamodb.inmemory.ExpressionParser.Operand;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static com.ttkey.dynamodb.inmemory.AttributeValues.isSetType;
+import static com.ttkey.dynamodb.inmemory.AttributeValues.typeOf;
+
+/**
+ * Parsed update expression. All the operands are evaluated against the item as it was before the update, then the
+ * actions are applied in the order of SET, REMOVE, ADD and DELETE clauses.
+ */
+final class UpdateExpression {
+
+    private enum Kind {
+        SET, REMOVE, ADD, DELETE
+    }
+
+    private static final class Action {
+        private final Kind kind;
+        private final DocumentPath path;
+        private final Operand operand;
+
+        private Action(Kind kind, DocumentPath path, Operand operand) {
+            this.kind = kind;
+            this.path = path;
+            this.operand = operand;
+        }
+    }
+
+    private final List<Action> actions = new ArrayList<>();
+
+    void set(DocumentPath path, Operand operand) {
+        add(new Action(Kind.SET, path, operand));
+    }
+
+    void remove(DocumentPath path) {
+        add(new Action(Kind.REMOVE, path, null));
+    }
+
+    void add(DocumentPath path, Operand operand) {
+        add(new Action(Kind.ADD, path, operand));
+    }
+
+    void delete(DocumentPath path, Operand operand) {
+        add(new Action(Kind.DELETE, path, operand));
+    }
+
+    private void add(Action action) {
+        for (Action other : actions) {
+            if (other.path.overlaps(action.path)) {
+                throw Errors.validation("Invalid UpdateExpression: Two document paths overlap with each other; must remove or rewrite one of these paths; path one: [%s], path two: [%s]",
+                        other.path, action.path);
+            }
+        }
+        actions.add(action);
+    }
+
+    /**
+     * @return names of the top level attributes modified by this expression
+     */
+    Set<String> updatedAttributes() {
+        Set<String> names = new LinkedHashSet<>();
+        for (Action action : actions) {
+            names.add(action.path.topLevelName());
+        }
+        return names;
+    }
+
+    /**
+     * @param item current attributes of the item, only the key attributes if the item doesn't exist
+     * @return new attributes of the item
+     */
+    Map<String, AttributeValue> apply(Map<String, AttributeValue> item) {
+        List<AttributeValue> operands = new ArrayList<>(actions.size());
+        for (Action action : actions) {
+            operands.add(action.operand == null ? null : action.operand.evaluate(item));
+        }
+
+        Map<String, AttributeValue> updated = new HashMap<>(item);
+        for (Kind kind : Kind.values()) {
+            for (int i = 0; i < actions.size(); i++) {
+                Action action = actions.get(i);
+                if (action.kind == kind) {
+                    apply(action, operands.get(i), item, updated);
+                }
+            }
+        }
+        return updated;
+    }
+
+    private void apply(Action action, AttributeValue operand, Map<String, AttributeValue> item, Map<String, AttributeValue> updated) {
+        switch (action.kind) {
+            case SET:
+                if (operand == null) {
+                    throw Errors.validation("The provided expression refers to an attribute that does not exist in the item");
+                }
+                action.path.set(updated, operand);
+                break;
+            case REMOVE:
+                action.path.remove(updated);
+                break;
+            case ADD:
+                AttributeValue current = action.path.get(item);
+                Type type = typeOf(operand);
+                if (type != Type.N && !isSetType(type)) {
+                    throw incorrectType("ADD", action.path);
+                }
+                if (current == null) {
+                    action.path.set(updated, operand);
+                } else if (typeOf(current) != type) {
+                    throw incorrectType("ADD", action.path);
+                } else if (type == Type.N) {
+                    action.path.set(updated, AttributeValues.number(new BigDecimal(current.n()).add(new BigDecimal(operand.n()))));
+                } else {
+                    action.path.set(updated, AttributeValues.union(current, operand));
+                }
+                break;
+            case DELETE:
+                AttributeValue existing = action.path.get(item);
+                if (!isSetType(typeOf(operand))) {
+                    throw incorrectType("DELETE", action.path);
+                }
+                if (existing == null) {
+                    break;
+                }
+                if (typeOf(existing) != typeOf(operand)) {
+                    throw incorrectType("DELETE", action.path);
+                }
+                AttributeValue remaining = AttributeValues.difference(existing, operand);
+                if (remaining == null) {
+                    action.path.remove(updated);
+                } else {
+                    action.path.set(updated, remaining);
+                }
+                break;
+        }
+    }
+
+    private static RuntimeException incorrectType(String action, DocumentPath path) {
+        return Errors.validation("Invalid UpdateExpression: Incorrect operand type for operator or function; operator: %s, path: %s", action, path);
+    }
+}
@@ -0,0 +1,200 @@
+package com.ttkey.dynamodb.inmemory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDynamoDbClientTest {
+
+    private static final String TABLE = "Movie";
+
+    private InMemoryDynamoDbClient client;
+
+    @BeforeEach
+    void createTable() {
+        client = new InMemoryDynamoDbClient();
+        client.createTable(CreateTableRequest.builder()
+                .tableName(TABLE)
+                .keySchema(KeySchemaElement.builder().keyType(KeyType.HASH).attributeName("yr").build(),
+                        KeySchemaElement.builder().keyType(KeyType.RANGE).attributeName("title").build())
+                .attributeDefinitions(AttributeDefinition.builder().attributeType("N").attributeName("yr").build(),
+                        AttributeDefinition.builder().attributeType("S").attributeName("title").build())
+                .build());
+        for (int i = 0; i < 30; i++) {
+            client.putItem(PutItemRequest.builder().tableName(TABLE).item(item(2000 + i % 3, "Movie " + i, i % 5)).build());
+        }
+    }
+
+    @Test
+    void conditionalWrites() {
+        var duplicate = PutItemRequest.builder()
+                .tableName(TABLE)
+                .item(item(2000, "Movie 0"))
+                .conditionExpression("attribute_not_exists(yr)")
+                .build();
+        assertThrows(ConditionalCheckFailedException.class, () -> client.putItem(duplicate));
+
+        var unusedValue = DeleteItemRequest.builder()
+                .tableName(TABLE)
+                .key(key(2000, "Movie 0"))
+                .conditionExpression("attribute_exists(yr)")
+                .expressionAttributeValues(Map.of(":unused", n(1)))
+                .build();
+        assertThrows(DynamoDbException.class, () -> client.deleteItem(unusedValue));
+
+        var extraKeyAttribute = new HashMap<>(key(2000, "Movie 0"));
+        extraKeyAttribute.put("genre", s("DRAMA"));
+        assertThrows(DynamoDbException.class, () -> client.getItem(GetItemRequest.builder().tableName(TABLE).key(extraKeyAttribute).build()));
+        assertThrows(ResourceNotFoundException.class, () -> client.getItem(GetItemRequest.builder().tableName("Missing").key(key(2000, "Movie 0")).build()));
+    }
+
+    @Test
+    void updateExpressions() {
+        var response = client.updateItem(UpdateItemRequest.builder()
+                .tableName(TABLE)
+                .key(key(2000, "Movie 3"))
+                .updateExpression("SET #views = if_not_exists(#views, :zero) + :one, cast = list_append(cast, :cast) REMOVE rating ADD tags :tags")
+                .conditionExpression("attribute_exists(yr) AND rating > :zero")
+                .expressionAttributeNames(Map.of("#views", "views"))
+                .expressionAttributeValues(Map.of(":zero", n(0), ":one", n(1),
+                        ":cast", AttributeValue.builder().l(s("Actor 3")).build(),
+                        ":tags", AttributeValue.builder().ss("drama").build()))
+                .returnValues(ReturnValue.UPDATED_NEW)
+                .build());
+
+        var updated = response.attributes();
+        assertEquals(Set.of("views", "cast", "tags"), updated.keySet());
+        assertEquals("1", updated.get("views").n());
+        assertEquals(List.of("Actor 1", "Actor 2", "Actor 3"), updated.get("cast").l().stream().map(AttributeValue::s).collect(Collectors.toList()));
+        assertEquals(Set.of("classic", "drama"), new HashSet<>(updated.get("tags").ss()));
+
+        var keyUpdate = UpdateItemRequest.builder()
+                .tableName(TABLE)
+                .key(key(2000, "Movie 0"))
+                .updateExpression("SET title = :title")
+                .expressionAttributeValues(Map.of(":title", s("Renamed")))
+                .build();
+        assertThrows(DynamoDbException.class, () -> client.updateItem(keyUpdate));
+    }
+
+    @Test
+    void queryPages() {
+        var request = QueryRequest.builder()
+                .tableName(TABLE)
+                .keyConditionExpression("yr = :yr AND begins_with(title, :prefix)")
+                .filterExpression("rating >= :rating")
+                .projectionExpression("title, cast[0]")
+                .expressionAttributeValues(Map.of(":yr", n(2000), ":prefix", s("Movie 2"), ":rating", n(2)))
+                .scanIndexForward(false)
+                .limit(2);
+
+        List<String> titles = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            var page = client.query(request.exclusiveStartKey(startKey).build());
+            assertTrue(page.scannedCount() <= 2);
+            page.items().forEach(item -> {
+                assertEquals(Set.of("title", "cast"), item.keySet());
+                titles.add(item.get("title").s());
+            });
+            startKey = page.lastEvaluatedKey().isEmpty() ? null : page.lastEvaluatedKey();
+        } while (startKey != null);
+
+        // Movie 21, 24 and 27 belong to 2000, rating of Movie 21 fails the filter
+        assertEquals(List.of("Movie 27", "Movie 24"), titles);
+    }
+
+    @Test
+    void parallelScan() {
+        Set<String> titles = new HashSet<>();
+        int total = 0;
+        for (int segment = 0; segment < 4; segment++) {
+            var page = client.scan(ScanRequest.builder().tableName(TABLE).segment(segment).totalSegments(4).build());
+            page.items().forEach(item -> titles.add(item.get("title").s()));
+            total += page.count();
+        }
+        assertEquals(30, total);
+        assertEquals(30, titles.size());
+
+        var count = client.scan(ScanRequest.builder().tableName(TABLE).select(Select.COUNT).filterExpression("yr = :yr")
+                .expressionAttributeValues(Map.of(":yr", n(2001))).build());
+        assertEquals(10, count.count());
+        assertTrue(count.items().isEmpty());
+    }
+
+    @Test
+    void batches() {
+        var duplicateKeys = BatchGetItemRequest.builder()
+                .requestItems(Map.of(TABLE, KeysAndAttributes.builder().keys(key(2000, "Movie 0"), key(2000, "Movie 0")).build()))
+                .build();
+        assertThrows(DynamoDbException.class, () -> client.batchGetItem(duplicateKeys));
+
+        client.batchWriteItem(BatchWriteItemRequest.builder()
+                .requestItems(Map.of(TABLE, List.of(
+                        WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(key(2000, "Movie 0")).build()).build(),
+                        WriteRequest.builder().putRequest(PutRequest.builder().item(item(2100, "New Movie")).build()).build())))
+                .build());
+
+        var response = client.batchGetItem(BatchGetItemRequest.builder()
+                .requestItems(Map.of(TABLE, KeysAndAttributes.builder().keys(key(2000, "Movie 0"), key(2100, "New Movie")).build()))
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .build());
+        assertEquals(1, response.responses().get(TABLE).size());
+        assertEquals(1.0, response.consumedCapacity().get(0).capacityUnits().doubleValue());
+    }
+
+    @Test
+    void transactions() {
+        var failing = TransactWriteItemsRequest.builder()
+                .transactItems(
+                        TransactWriteItem.builder().put(Put.builder().tableName(TABLE).item(item(2200, "Transacted Movie")).build()).build(),
+                        TransactWriteItem.builder().conditionCheck(ConditionCheck.builder().tableName(TABLE).key(key(2000, "Movie 0"))
+                                .conditionExpression("attribute_not_exists(yr)").build()).build())
+                .build();
+        assertThrows(TransactionCanceledException.class, () -> client.transactWriteItems(failing));
+        assertTrue(client.getItem(GetItemRequest.builder().tableName(TABLE).key(key(2200, "Transacted Movie")).build()).item().isEmpty());
+
+        client.transactWriteItems(TransactWriteItemsRequest.builder()
+                .transactItems(
+                        TransactWriteItem.builder().put(Put.builder().tableName(TABLE).item(item(2200, "Transacted Movie")).build()).build(),
+                        TransactWriteItem.builder().delete(Delete.builder().tableName(TABLE).key(key(2000, "Movie 0")).build()).build())
+                .build());
+
+        var reads = client.transactGetItems(TransactGetItemsRequest.builder()
+                .transactItems(
+                        TransactGetItem.builder().get(Get.builder().tableName(TABLE).key(key(2200, "Transacted Movie")).build()).build(),
+                        TransactGetItem.builder().get(Get.builder().tableName(TABLE).key(key(2000, "Movie 0")).build()).build())
+                .build());
+        assertFalse(reads.responses().get(0).item().isEmpty());
+        assertTrue(reads.responses().get(1).item().isEmpty());
+    }
+
+    private static Map<String, AttributeValue> item(int year, String title) {
+        return item(year, title, 3);
+    }
+
+    private static Map<String, AttributeValue> item(int year, String title, int rating) {
+        Map<String, AttributeValue> item = new HashMap<>(key(year, title));
+        item.put("rating", n(rating));
+        item.put("cast", AttributeValue.builder().l(s("Actor 1"), s("Actor 2")).build());
+        item.put("tags", AttributeValue.builder().ss("classic").build());
+        return item;
+    }
+
+    private static Map<String, AttributeValue> key(int year, String title) {
+        return Map.of("yr", n(year), "title", s(title));
+    }
+
+    private static AttributeValue n(int value) {
+        return AttributeValue.builder().n(Integer.toString(value)).build();
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+}
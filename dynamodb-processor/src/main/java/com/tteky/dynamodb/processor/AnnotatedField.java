@@ -5,13 +5,17 @@ import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.tteky.dynamodb.DynamoField;
+import com.tteky.dynamodb.ObjectEncoding;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import java.util.List;
 
@@ -60,6 +64,37 @@ public class AnnotatedField {
         return typeName.toString();
     }
 
+    public ObjectEncoding getObjectEncoding() {
+        DynamoField annotation = element.getAnnotation(DynamoField.class);
+        return annotation == null ? ObjectEncoding.JSON : annotation.objectEncoding();
+    }
+
+    /**
+     * @return name of the compression codec, empty if the field is stored uncompressed
+     */
+    public String getCompression() {
+        DynamoField annotation = element.getAnnotation(DynamoField.class);
+        return annotation == null ? "" : annotation.compress();
+    }
+
+    public int getCompressThreshold() {
+        DynamoField annotation = element.getAnnotation(DynamoField.class);
+        return annotation == null ? 0 : annotation.compressThreshold();
+    }
+
+    /**
+     * @return true if the set field is stored as native string or number set
+     */
+    public boolean isNativeSet() {
+        DynamoField annotation = element.getAnnotation(DynamoField.class);
+        return annotation != null && annotation.nativeSet();
+    }
+
+    public boolean isEnum() {
+        return elementType.getKind() == TypeKind.DECLARED
+                && ((DeclaredType) elementType).asElement().getKind() == ElementKind.ENUM;
+    }
+
     public boolean isFieldParameterized() {
         return ClassName.get(elementType) instanceof ParameterizedTypeName;
     }
@@ -26,6 +26,8 @@ public class CodeGenerationContext {
 
     private TypeElement entity;
 
+    private boolean keyOnlyEncoding;
+
     public Map<ClassName, List<AnnotatedField>> getDynamoFields() {
         return dynamoFields;
     }
@@ -98,4 +100,15 @@ public class CodeGenerationContext {
     public void setEntity(TypeElement entity) {
         this.entity = entity;
     }
+
+    /**
+     * @return true if the mapper encodes the key fields alone, ie., movieKeyAttributes(Movie). Set while generating the mapper.
+     */
+    public boolean hasKeyOnlyEncoding() {
+        return keyOnlyEncoding;
+    }
+
+    public void setKeyOnlyEncoding(boolean keyOnlyEncoding) {
+        this.keyOnlyEncoding = keyOnlyEncoding;
+    }
 }
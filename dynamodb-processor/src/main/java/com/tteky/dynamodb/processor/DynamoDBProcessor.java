@@ -3,9 +3,14 @@ package com.tteky.dynamodb.processor;
 import com.google.auto.service.AutoService;
 import com.squareup.javapoet.*;
 import com.tteky.dynamodb.*;
+import com.ttkey.dynamodb.dao.DynamoDBBaseAsyncDao;
 import com.ttkey.dynamodb.dao.DynamoDBBaseDao;
+import com.ttkey.dynamodb.dao.EntityField;
+import com.ttkey.dynamodb.dao.EntitySchema;
+import com.ttkey.dynamodb.dao.RangeCondition;
 import com.ttkey.dynamodb.mapper.DynamoDBBaseMapper;
 import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
@@ -16,9 +21,12 @@ import javax.tools.Diagnostic;
 import java.lang.annotation.Annotation;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.tteky.dynamodb.processor.MapperMethodGenerationTemplates.attrToEntityMethodName;
+import static com.tteky.dynamodb.processor.MapperMethodGenerationTemplates.changesMethodName;
 import static com.tteky.dynamodb.processor.MapperMethodGenerationTemplates.entityToAttrMethodName;
+import static com.tteky.dynamodb.processor.MapperMethodGenerationTemplates.keyAttributesMethodName;
 import static com.tteky.dynamodb.processor.Utils.attributeName;
 import static com.tteky.dynamodb.processor.Utils.daoPackageName;
 import static java.lang.String.format;
@@ -112,28 +120,171 @@ public class DynamoDBProcessor extends AbstractProcessor {
         String value = entityTypeElement.getAnnotation(DynamoDBEntity.class).value();
         String tableName = value.length() == 0 ? entityClassName.simpleName() : value;
 
-        MethodSpec constructor = MethodSpec.constructorBuilder()
-                .addModifiers(Modifier.PUBLIC)
-                .addParameter(DynamoDbClient.class, "dynamoDb")
-                .addStatement("super(dynamoDb,$S)", tableName)
-                .build();
-
         FieldSpec build = FieldSpec.builder(ClassName.get(packageName, mapperClassName(entityClassName)), "mapper", Modifier.PRIVATE)
                 .initializer("new $L()", mapperClassName(entityClassName))
                 .build();
-        TypeSpec daoClazz = TypeSpec.classBuilder(format("%sDao", entityClassName.simpleName()))
+        ClassName schemaClassName = ClassName.get(packageName, format("%sSchema", entityClassName.simpleName()));
+        MethodSpec schemaMethod = MethodSpec.methodBuilder("getSchema")
                 .addModifiers(Modifier.PUBLIC)
-                .superclass(ParameterizedTypeName.get(ClassName.get(DynamoDBBaseDao.class), entityClassName))
-                .addMethods(List.of(convertFromEntityMethod, convertToEntityMethod, keyFieldNamesMethod))
-                .addMethod(constructor)
-                .addField(build)
+                .addStatement("return $T.SCHEMA", schemaClassName)
+                .returns(EntitySchema.class)
+                .build();
+
+        // saveChanges diffs the entities field by field through the mapper
+        MethodSpec changedAttributesMethod = MethodSpec.methodBuilder("changedAttributes")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(entityClassName, "original")
+                .addParameter(entityClassName, "modified")
+                .addStatement("return mapper.$L(original, modified)", changesMethodName(entityClassName))
+                .returns(mapOfStringVsAttr)
                 .build();
 
+        List<MethodSpec> daoMethods = new ArrayList<>(List.of(convertFromEntityMethod, convertToEntityMethod, keyFieldNamesMethod, schemaMethod, changedAttributesMethod));
+        if (context.hasKeyOnlyEncoding()) {
+            // key based operations use the key only encoding of the mapper
+            daoMethods.add(MethodSpec.methodBuilder("entityToKeyAttributes")
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(entityClassName, "entity")
+                    .addStatement("return mapper.$L(entity)", keyAttributesMethodName(entityClassName))
+                    .returns(mapOfStringVsAttr)
+                    .build());
+        }
+
+        TypeSpec daoClazz = daoClass(format("%sDao", entityClassName.simpleName()), DynamoDBBaseDao.class, DynamoDbClient.class, tableName, entityClassName)
+                .addMethods(daoMethods)
+                .addMethods(queryMethods(context, entityClassName))
+                .addField(build)
+                .build();
         generateSrcCode(entityTypeElement, entityClassName, daoClazz);
 
+        generateSrcCode(entityTypeElement, entityClassName, fieldsClass(context, entityClassName));
+
+        generateSrcCode(entityTypeElement, entityClassName, schemaClass(context, schemaClassName, entityClassName, tableName));
+
+        // async sibling sharing the same mapper, ie., MovieAsyncDao
+        TypeSpec asyncDaoClazz = daoClass(format("%sAsyncDao", entityClassName.simpleName()), DynamoDBBaseAsyncDao.class, DynamoDbAsyncClient.class, tableName, entityClassName)
+                .addMethods(daoMethods)
+                .addField(build)
+                .build();
+        generateSrcCode(entityTypeElement, entityClassName, asyncDaoClazz);
+
         return true;
     }
 
+    // constants referring the fields of the entity, ie., MovieFields.TITLE
+    private TypeSpec fieldsClass(CodeGenerationContext ctxt, ClassName entityClassName) {
+        TypeSpec.Builder fieldsClazz = TypeSpec.classBuilder(format("%sFields", entityClassName.simpleName()))
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+        ctxt.getDynamoFields().getOrDefault(entityClassName, List.of()).stream()
+                .sorted(Comparator.comparing(field -> field.getElement().getSimpleName().toString()))
+                .forEach(field -> {
+                    TypeName fieldType = ParameterizedTypeName.get(ClassName.get(EntityField.class), TypeName.get(field.getElementType()).box());
+                    String constantName = Utils.constantName(field.getElement().getSimpleName().toString());
+                    fieldsClazz.addField(FieldSpec.builder(fieldType, constantName, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                            .initializer("new $T<>($S)", EntityField.class, field.getElementName())
+                            .build());
+                });
+        return fieldsClazz.build();
+    }
+
+    // table and attribute names along with the key conditions, ie., MovieSchema.SCHEMA
+    private TypeSpec schemaClass(CodeGenerationContext ctxt, ClassName schemaClassName, ClassName entityClassName, String tableName) {
+        List<String> attributeNames = ctxt.getDynamoFields().getOrDefault(entityClassName, List.of()).stream()
+                .map(AnnotatedField::getElementName)
+                .sorted()
+                .collect(Collectors.toList());
+        AnnotatedField rangeField = ctxt.getRangeField();
+        TypeSpec.Builder schemaClazz = TypeSpec.classBuilder(schemaClassName)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+                .addField(FieldSpec.builder(String.class, "TABLE_NAME", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$S", tableName)
+                        .build())
+                .addField(FieldSpec.builder(String.class, "HASH_KEY", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$S", attributeName(ctxt.getHashField()))
+                        .build());
+        if (rangeField != null) {
+            schemaClazz.addField(FieldSpec.builder(String.class, "RANGE_KEY", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("$S", attributeName(rangeField))
+                    .build());
+        }
+        String names = attributeNames.stream().map(name -> CodeBlock.of("$S", name).toString()).collect(Collectors.joining(", "));
+        return schemaClazz
+                .addField(FieldSpec.builder(ParameterizedTypeName.get(List.class, String.class), "ATTRIBUTE_NAMES", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$T.of($L)", List.class, names)
+                        .build())
+                .addField(FieldSpec.builder(EntitySchema.class, "SCHEMA", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("new $T(TABLE_NAME, HASH_KEY, $L, ATTRIBUTE_NAMES)", EntitySchema.class, rangeField == null ? "null" : "RANGE_KEY")
+                        .build())
+                .build();
+    }
+
+    // typed queries on the partition key, ie., queryByYear(Integer year, RangeCondition<String> title)
+    private List<MethodSpec> queryMethods(CodeGenerationContext ctxt, ClassName entityClassName) {
+        MapperMethodGenerationTemplates templates = new MapperMethodGenerationTemplates();
+        AnnotatedField hashField = ctxt.getHashField();
+        String methodSuffix = hashField.getCasedFieldName();
+        String hashParam = hashField.getElement().getSimpleName().toString();
+        // enums are encoded by name, like generateKeyAttributesMethod does
+        String hashEncoder = hashField.isEnum() ? "enumToAttr" : templates.mapperMethodFor(TypeName.get(hashField.getElementType())).getKey();
+        TypeName listOfEntities = ParameterizedTypeName.get(ClassName.get(List.class), entityClassName);
+
+        List<MethodSpec> methods = new ArrayList<>();
+        methods.add(MethodSpec.methodBuilder("queryBy" + methodSuffix)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.get(hashField.getElementType()), hashParam)
+                .addStatement("return queryAllItems(keyQuery($S, mapper.$L($L)))", attributeName(hashField), hashEncoder, hashParam)
+                .returns(listOfEntities)
+                .build());
+
+        AnnotatedField rangeField = ctxt.getRangeField();
+        if (rangeField != null) {
+            String rangeParam = rangeField.getElement().getSimpleName().toString();
+            TypeName rangeType = TypeName.get(rangeField.getElementType()).box();
+            String rangeEncoder = rangeField.isEnum() ? "enumToAttr" : templates.mapperMethodFor(rangeType).getKey();
+            TypeName rangeConditionType = ParameterizedTypeName.get(ClassName.get(RangeCondition.class), rangeType);
+            String keyQuery = format("keyQuery($S, mapper.%s(%s), $S, %s, mapper::%s)", hashEncoder, hashParam, rangeParam, rangeEncoder);
+
+            methods.add(MethodSpec.methodBuilder("queryBy" + methodSuffix)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(TypeName.get(hashField.getElementType()), hashParam)
+                    .addParameter(rangeConditionType, rangeParam)
+                    .addStatement("return queryAllItems(" + keyQuery + ")", attributeName(hashField), attributeName(rangeField))
+                    .returns(listOfEntities)
+                    .build());
+            methods.add(MethodSpec.methodBuilder("queryBy" + methodSuffix)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(TypeName.get(hashField.getElementType()), hashParam)
+                    .addParameter(rangeConditionType, rangeParam)
+                    .addParameter(TypeName.BOOLEAN, "ascending")
+                    .addParameter(TypeName.INT, "limit")
+                    .addStatement("return queryItems(" + keyQuery + ", ascending, limit)", attributeName(hashField), attributeName(rangeField))
+                    .returns(listOfEntities)
+                    .build());
+            methods.add(MethodSpec.methodBuilder("streamBy" + methodSuffix)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(TypeName.get(hashField.getElementType()), hashParam)
+                    .addParameter(rangeConditionType, rangeParam)
+                    .addStatement("return streamQueryItems(" + keyQuery + ")", attributeName(hashField), attributeName(rangeField))
+                    .returns(ParameterizedTypeName.get(ClassName.get(Stream.class), entityClassName))
+                    .build());
+        }
+        return methods;
+    }
+
+    private TypeSpec.Builder daoClass(String daoClassName, Class<?> baseDaoClass, Class<?> clientClass, String tableName, ClassName entityClassName) {
+        MethodSpec constructor = MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(clientClass, "dynamoDb")
+                .addStatement("super(dynamoDb,$S)", tableName)
+                .build();
+        return TypeSpec.classBuilder(daoClassName)
+                .addModifiers(Modifier.PUBLIC)
+                .superclass(ParameterizedTypeName.get(ClassName.get(baseDaoClass), entityClassName))
+                .addMethod(constructor);
+    }
+
     // implements return statement for //        protected abstract String[] getKeyFieldNames();
     private String keyFieldNamesReturnStmt(CodeGenerationContext ctxt) {
         StringBuilder returnValues = new StringBuilder("return new String[]{");
@@ -214,7 +365,14 @@ public class DynamoDBProcessor extends AbstractProcessor {
         }
 
 
-        Collection<MethodSpec> methodSpecs = new MapperMethodGenerationTemplates().generateTypeConversionMethods(context);
+        MapperMethodGenerationTemplates templates = new MapperMethodGenerationTemplates();
+        Collection<MethodSpec> methodSpecs = new ArrayList<>(templates.generateTypeConversionMethods(context));
+        methodSpecs.add(templates.generateChangesMethod(context, entityClassName));
+        MethodSpec keyAttributesMethod = templates.generateKeyAttributesMethod(context, entityClassName);
+        if (keyAttributesMethod != null) {
+            methodSpecs.add(keyAttributesMethod);
+        }
+        context.setKeyOnlyEncoding(keyAttributesMethod != null);
 
         TypeSpec mapperClazz = TypeSpec.classBuilder(mapperClassName(entityClassName))
                 .addModifiers(Modifier.PUBLIC)
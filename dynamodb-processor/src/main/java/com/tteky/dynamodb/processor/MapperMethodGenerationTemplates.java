@@ -4,6 +4,7 @@ import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
+import com.tteky.dynamodb.ObjectEncoding;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
@@ -40,32 +41,38 @@ public class MapperMethodGenerationTemplates {
 //        templates.put(Character.class.getCanonicalName(), typeToScalar(TypeName.CHAR.box()));
 //        templates.put(Byte.class.getCanonicalName(), typeToScalar(TypeName.BYTE));
 //        templates.put(Short.class.getCanonicalName(), typeToScalar(TypeName.SHORT));
-        supportedScalars.put("byte", Map.entry("byteToAttr", "toByte"));
+        // primitives are decoded with the xxxValue variants and encoded with the primitive overloads of xxxToAttr, avoiding boxing
+        supportedScalars.put("byte", Map.entry("byteToAttr", "toByteValue"));
         supportedScalars.put("Byte", Map.entry("byteToAttr", "toByte"));
-        supportedScalars.put("short", Map.entry("shortToAttr", "toShort"));
+        supportedScalars.put("short", Map.entry("shortToAttr", "toShortValue"));
         supportedScalars.put("Short", Map.entry("shortToAttr", "toShort"));
-        supportedScalars.put("int", Map.entry("intToAttr", "toInt"));
+        supportedScalars.put("int", Map.entry("intToAttr", "toIntValue"));
         supportedScalars.put("Integer", Map.entry("intToAttr", "toInt"));
-        supportedScalars.put("long", Map.entry("longToAttr", "toLong"));
+        supportedScalars.put("long", Map.entry("longToAttr", "toLongValue"));
         supportedScalars.put("Long", Map.entry("longToAttr", "toLong"));
-        supportedScalars.put("double", Map.entry("doubleToAttr", "toDouble"));
+        supportedScalars.put("double", Map.entry("doubleToAttr", "toDoubleValue"));
         supportedScalars.put("Double", Map.entry("doubleToAttr", "toDouble"));
-        supportedScalars.put("float", Map.entry("floatToAttr", "toFloat"));
+        supportedScalars.put("float", Map.entry("floatToAttr", "toFloatValue"));
         supportedScalars.put("Float", Map.entry("floatToAttr", "toFloat"));
-        supportedScalars.put("char", Map.entry("charToAttr", "toChar"));
+        supportedScalars.put("char", Map.entry("charToAttr", "toCharValue"));
         supportedScalars.put("Character", Map.entry("charToAttr", "toChar"));
         supportedScalars.put("String", Map.entry("stringToAttr", "toString"));
         supportedScalars.put("Object", Map.entry("objectToAttr", "toObject"));
         supportedScalars.put("Enum", Map.entry("enumToAttr", "toEnum"));
         supportedScalars.put("Boolean", Map.entry("booleanToAttr", "toBoolean"));
-        supportedScalars.put("boolean", Map.entry("booleanToAttr", "toBoolean"));
+        supportedScalars.put("boolean", Map.entry("booleanToAttr", "toBooleanValue"));
         supportedScalars.put("BigDecimal", Map.entry("bigDecimalToAttr", "toBigDecimal"));
         supportedScalars.put("BigInteger", Map.entry("bigIntegerToAttr", "toBigInteger"));
         supportedScalars.put("Date", Map.entry("dateToAttr", "toDate"));
-        supportedScalars.put("Instance", Map.entry("instantToAttr", "toInstant"));
+        supportedScalars.put("Instant", Map.entry("instantToAttr", "toInstant"));
         supportedScalars.put("Calendar", Map.entry("calendarToAttr", "toCalendar"));
     }
 
+    // parsers of the number set items, referred as Type::parser
+    private static final Map<String, String> numberSetParsers = Map.of(
+            "Integer", "valueOf", "Long", "valueOf", "Short", "valueOf", "Byte", "valueOf",
+            "Double", "valueOf", "Float", "valueOf", "BigDecimal", "new", "BigInteger", "new");
+
     Collection<MethodSpec> generateTypeConversionMethods(CodeGenerationContext context) {
         Set<MethodSpec> specs = new HashSet<>();
         context.getDynamoFields().forEach((className, annotatedFields) -> {
@@ -80,10 +87,27 @@ public class MapperMethodGenerationTemplates {
                     .addStatement("$T<String, $T> fields = new $T<>()", Map.class, AttributeValue.class, HashMap.class) // create new attributes values map
                     .returns(ParameterizedTypeName.get(Map.class, String.class, AttributeValue.class));
 
+            List<AnnotatedField> compressedFields = annotatedFields.stream()
+                    .filter(field -> !field.getCompression().isEmpty())
+                    .collect(Collectors.toList());
+            if (!compressedFields.isEmpty()) {
+                String names = compressedFields.stream()
+                        .map(field -> "\"" + field.getElementName() + "\"")
+                        .collect(Collectors.joining(", "));
+                fromAttributes.addStatement("attributes = super.decompressAttributes(attributes, $L)", names);
+            }
+
             annotatedFields.forEach(annotatedField -> {
                 log.info(" Processing Field Name: {}; Simple Field Type: {} ; AnnotatedFieldInfo: {}", annotatedField.getCasedFieldName(), annotatedField.getSimpleFieldType(), annotatedField);
-                if (isScalar(annotatedField.getSimpleFieldType())) {
-                    var entry = supportedScalars.get(annotatedField.getSimpleFieldType());
+                // decode only attributes which are present, so projected reads skip the rest and leave them unset
+                fromAttributes.beginControlFlow("if (attributes.containsKey($S))", annotatedField.getElementName());
+                if (annotatedField.isEnum()) {
+                    fromAttributes.addStatement("entity.set$L(super.toEnum(attributes,$S,$T.class))", annotatedField.getCasedFieldName(), annotatedField.getElementName(), TypeName.get(annotatedField.getElementType()));
+                    toAttributes.addStatement("fields.put($S,super.enumToAttr(entity.get$L()))", annotatedField.getElementName(), annotatedField.getCasedFieldName());
+                } else if (isScalar(annotatedField.getSimpleFieldType())) {
+                    var entry = "Object".equals(annotatedField.getSimpleFieldType())
+                            ? objectMapperMethods(annotatedField)
+                            : supportedScalars.get(annotatedField.getSimpleFieldType());
                     fromAttributes.addStatement("entity.set$L(super.$L(attributes,$S))", annotatedField.getCasedFieldName(), entry.getValue(), annotatedField.getElementName());
                     toAttributes.addStatement("fields.put($S,$L)", annotatedField.getElementName(), String.format("super.%s(entity.get%s())", entry.getKey(), annotatedField.getCasedFieldName()));
                 } else {
@@ -94,20 +118,40 @@ public class MapperMethodGenerationTemplates {
                     }
                     try {
                         Class<?> type = Class.forName(name);
-                        if (Collection.class.isAssignableFrom(type)) {
+                        String setItemType = annotatedField.isNativeSet() && Set.class.equals(type) && annotatedField.isFieldParameterized()
+                                ? AnnotatedField.simpleTypeOf(annotatedField.fieldParameterInfo().get(0)) : null;
+                        boolean supportedSet = "String".equals(setItemType) || (setItemType != null && numberSetParsers.containsKey(setItemType));
+                        if (annotatedField.isNativeSet() && !supportedSet) {
+                            context.addWarning(format("Ignoring nativeSet of field `%s` in class `%s`, only Set of strings or numbers can be stored as native set.", annotatedField.getElementName(), className));
+                            setItemType = null;
+                        }
+                        if ("String".equals(setItemType)) {
+                            toAttributes.addStatement("fields.put($S,super.stringSetToAttr(entity.get$L()))", annotatedField.getElementName(), annotatedField.getCasedFieldName());
+                            fromAttributes.addStatement("entity.set$L(super.toStringSet(attributes,$S))", annotatedField.getCasedFieldName(), annotatedField.getElementName());
+                        } else if (setItemType != null) {
+                            toAttributes.addStatement("fields.put($S,super.numberSetToAttr(entity.get$L()))", annotatedField.getElementName(), annotatedField.getCasedFieldName());
+                            fromAttributes.addStatement("entity.set$L(super.toNumberSet(attributes,$S,$T::$L))", annotatedField.getCasedFieldName(), annotatedField.getElementName(),
+                                    annotatedField.fieldParameterInfo().get(0), numberSetParsers.get(setItemType));
+                        } else if (Collection.class.isAssignableFrom(type)) {
                             // handle collection
-                            Map.Entry<String,String>  itemMapperMethodName = supportedScalars.get("Object") ;
+                            Map.Entry<String,String>  itemMapperMethodName = objectMapperMethods(annotatedField);
+                            boolean scalarItems = true;
                             if(annotatedField.isFieldParameterized() ) {
                                 TypeName itemParameterType = annotatedField.fieldParameterInfo().get(0);
-                                itemMapperMethodName =  mapperMethodFor(itemParameterType);
+                                itemMapperMethodName =  mapperMethodFor(itemParameterType, annotatedField);
+                                scalarItems = isScalar(AnnotatedField.simpleTypeOf(itemParameterType));
                             }
+                            // scalar items are stored as is, pojo items as maps
+                            String toItems = scalarItems ? ".map(this::%s)" : ".map(this::%s).map(this::mapAttrToAttr)";
+                            String fromItems = scalarItems ? ".map(this::%s)" : ".map(this::attrToMapAttr).map(this::%s)";
+                            String collector = Set.class.isAssignableFrom(type) ? "toSet" : "toList";
                             // handle toAttributes part
                             String conditionStmt = String.format("if(entity.get%s() != null) \n \t",annotatedField.getCasedFieldName());
-                            String collectionTemplate = "super.listAttrToAttr(entity.get%s().stream().map(this::%s).map(this::mapAttrToAttr).collect($T.toList()))";
+                            String collectionTemplate = "super.listAttrToAttr(entity.get%s().stream()" + toItems + ".collect($T.toList()))";
                             String stmt =  String.format(collectionTemplate,annotatedField.getCasedFieldName(),itemMapperMethodName.getKey());
                             toAttributes.addStatement(conditionStmt +"fields.put($S,"+stmt + ")", annotatedField.getElementName(),Collectors.class);
                             // handle fromAttributes part
-                            collectionTemplate = "super.toListAttr(attributes,$S).stream().map(this::attrToMapAttr).map(this::%s).collect($T.toList())";
+                            collectionTemplate = "super.toListAttr(attributes,$S).stream()" + fromItems + ".collect($T." + collector + "())";
                             stmt = String.format(collectionTemplate,itemMapperMethodName.getValue());
                             fromAttributes.addStatement("entity.set$L("+stmt+")", annotatedField.getCasedFieldName(), annotatedField.getElementName(),Collectors.class);
                         } else if (Map.class.isAssignableFrom(type)) {
@@ -116,7 +160,7 @@ public class MapperMethodGenerationTemplates {
                                 TypeName entryKeyParameterType = annotatedField.fieldParameterInfo().get(0);
                                 TypeName entryValueParameterType =  annotatedField.fieldParameterInfo().get(1) ;
                                 String entryKeyType = AnnotatedField.simpleTypeOf(entryKeyParameterType);
-                                var entry = mapperMethodFor(entryValueParameterType);
+                                var entry = mapperMethodFor(entryValueParameterType, annotatedField);
                                 if(String.class.getSimpleName().equals(entryKeyType)) {
                                     // handle toAttributes part
                                     String stmt;
@@ -149,7 +193,10 @@ public class MapperMethodGenerationTemplates {
                         throw new RuntimeException("unable to process field " + annotatedField);
                     }
                 }
+                fromAttributes.endControlFlow();
             });
+            compressedFields.forEach(field -> toAttributes.addStatement("super.compressAttribute(fields, $S, $S, $L)",
+                    field.getElementName(), field.getCompression(), field.getCompressThreshold()));
             fromAttributes.addStatement("return entity");
             toAttributes.addStatement("return fields");
             specs.add(fromAttributes.build());
@@ -160,6 +207,87 @@ public class MapperMethodGenerationTemplates {
 
     }
 
+    /**
+     * Encodes only the hash and range key fields of the entity, ie., movieKeyAttributes(Movie), so that key based
+     * operations don't encode the whole entity.
+     *
+     * @return null if a key field is neither a scalar nor an enum, the dao then picks the keys from the whole entity
+     */
+    MethodSpec generateKeyAttributesMethod(CodeGenerationContext context, ClassName entityClassName) {
+        MethodSpec.Builder keyAttributes = MethodSpec.methodBuilder(keyAttributesMethodName(entityClassName))
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(entityClassName, "entity")
+                .addStatement("$T<String, $T> keys = new $T<>(4)", Map.class, AttributeValue.class, HashMap.class)
+                .returns(ParameterizedTypeName.get(Map.class, String.class, AttributeValue.class));
+        for (AnnotatedField keyField : Arrays.asList(context.getHashField(), context.getRangeField())) {
+            if (keyField == null) {
+                continue;
+            }
+            String encoder;
+            if (keyField.isEnum()) {
+                encoder = "enumToAttr";
+            } else if (isScalar(keyField.getSimpleFieldType()) && !"Object".equals(keyField.getSimpleFieldType())) {
+                encoder = supportedScalars.get(keyField.getSimpleFieldType()).getKey();
+            } else {
+                return null;
+            }
+            keyAttributes.addStatement("keys.put($S,super.$L(entity.get$L()))", keyField.getElementName(), encoder, keyField.getCasedFieldName());
+        }
+        return keyAttributes.addStatement("return keys").build();
+    }
+
+    /**
+     * Field by field diff of two instances of the entity, ie., movieChanges(Movie original, Movie modified), returning
+     * the changed attributes with their new values and the removed ones with null value. Key fields are skipped.
+     * Scalars and enums are compared by value, other fields, and compressed ones, are compared on their encoded values
+     * unless both the instances refer the same value.
+     */
+    MethodSpec generateChangesMethod(CodeGenerationContext context, ClassName entityClassName) {
+        MethodSpec.Builder changes = MethodSpec.methodBuilder(changesMethodName(entityClassName))
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(entityClassName, "original")
+                .addParameter(entityClassName, "modified")
+                .addStatement("$T<String, $T> changes = new $T<>()", Map.class, AttributeValue.class, HashMap.class)
+                .addStatement("$T<String> encodedComparisons = new $T<>()", List.class, ArrayList.class)
+                .returns(ParameterizedTypeName.get(Map.class, String.class, AttributeValue.class));
+        List<AnnotatedField> fields = context.getDynamoFields().getOrDefault(entityClassName, List.of()).stream()
+                .filter(field -> !isKey(context, field))
+                .sorted(Comparator.comparing(AnnotatedField::getElementName))
+                .collect(Collectors.toList());
+        for (AnnotatedField field : fields) {
+            String getter = "get" + field.getCasedFieldName() + "()";
+            String simpleType = field.getSimpleFieldType();
+            String encoder = field.isEnum() ? "enumToAttr"
+                    : isScalar(simpleType) && !"Object".equals(simpleType) ? supportedScalars.get(simpleType).getKey() : null;
+            if (encoder == null || !field.getCompression().isEmpty()) {
+                changes.beginControlFlow("if (original.$L != modified.$L)", getter, getter)
+                        .addStatement("encodedComparisons.add($S)", field.getElementName())
+                        .endControlFlow();
+                continue;
+            }
+            if ("float".equals(simpleType) || "double".equals(simpleType)) {
+                changes.beginControlFlow("if ($T.compare(original.$L, modified.$L) != 0)", "float".equals(simpleType) ? Float.class : Double.class, getter, getter);
+            } else if (field.getElementType().getKind().isPrimitive()) {
+                changes.beginControlFlow("if (original.$L != modified.$L)", getter, getter);
+            } else {
+                changes.beginControlFlow("if (!$T.equals(original.$L, modified.$L))", Objects.class, getter, getter);
+            }
+            changes.addStatement("changes.put($S,super.$L(modified.$L))", field.getElementName(), encoder, getter)
+                    .endControlFlow();
+        }
+        return changes.beginControlFlow("if (!encodedComparisons.isEmpty())")
+                .addStatement("super.putChangedAttributes(changes, encodedComparisons, $L(original), $L(modified))",
+                        entityToAttrMethodName(entityClassName), entityToAttrMethodName(entityClassName))
+                .endControlFlow()
+                .addStatement("return changes")
+                .build();
+    }
+
+    private static boolean isKey(CodeGenerationContext context, AnnotatedField field) {
+        return field.getElement().equals(context.getHashField().getElement())
+                || (context.getRangeField() != null && field.getElement().equals(context.getRangeField().getElement()));
+    }
+
     private boolean isScalar(String simpleFieldType) {
         return supportedScalars.containsKey(simpleFieldType);
     }
@@ -176,6 +304,18 @@ public class MapperMethodGenerationTemplates {
         return entry;
     }
 
+    /**
+     * Same as {@link #mapperMethodFor(TypeName)} but honours the object encoding of the field for values of type Object
+     */
+    Map.Entry<String,String> mapperMethodFor(TypeName type, AnnotatedField field) {
+        Map.Entry<String, String> entry = mapperMethodFor(type);
+        return entry.equals(supportedScalars.get("Object")) ? objectMapperMethods(field) : entry;
+    }
+
+    private Map.Entry<String,String> objectMapperMethods(AnnotatedField field) {
+        return field.getObjectEncoding() == ObjectEncoding.NATIVE ? Map.entry("nativeToAttr", "toNative") : supportedScalars.get("Object");
+    }
+
     static String attrToEntityMethodName(ClassName className) {
         return format("%sFromAttributes", Utils.firstAsSmall(className.simpleName()));
     }
@@ -184,6 +324,14 @@ public class MapperMethodGenerationTemplates {
         return format("%sToAttributes", Utils.firstAsSmall(className.simpleName()));
     }
 
+    static String changesMethodName(ClassName className) {
+        return format("%sChanges", Utils.firstAsSmall(className.simpleName()));
+    }
+
+    static String keyAttributesMethodName(ClassName className) {
+        return format("%sKeyAttributes", Utils.firstAsSmall(className.simpleName()));
+    }
+
 //    private MethodSpec typeToScalar(TypeName typeName) {
 //        String methodName = format("%sToScalarValue", typeName.toString());
 //        return MethodSpec.methodBuilder(methodName)
@@ -21,6 +21,21 @@ public class Utils {
         return name.substring(0, 1).toUpperCase() + name.substring(1);
     }
 
+    /**
+     * Converts camel cased field name to constant name, ie., lastUpdatedOn to LAST_UPDATED_ON
+     */
+    public static String constantName(String name) {
+        StringBuilder constant = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && !Character.isUpperCase(name.charAt(i - 1))) {
+                constant.append('_');
+            }
+            constant.append(Character.toUpperCase(c));
+        }
+        return constant.toString();
+    }
+
     static String daoPackageName(TypeElement entityTypeElement, ClassName entityClassName) {
         String preferred = entityTypeElement.getAnnotation(DynamoDBEntity.class).packageName();
         String fallback = entityClassName.packageName();
@@ -12,13 +12,24 @@ class DynamoDBProcessorTest {
         assertThat(
                 JavaFileObjects.forResource("test/Movie.java"),
                 JavaFileObjects.forResource("test/Review.java"),
-                JavaFileObjects.forResource("test/Info.java"))
+                JavaFileObjects.forResource("test/Info.java"),
+                JavaFileObjects.forResource("test/Genre.java"))
                 .processedWith(new DynamoDBProcessor())
                 .compilesWithoutError()
         ;
 
     }
 
+    @Test
+    public void enumKeys() {
+        assertThat(
+                JavaFileObjects.forResource("test/Chart.java"),
+                JavaFileObjects.forResource("test/Genre.java"),
+                JavaFileObjects.forResource("test/Period.java"))
+                .processedWith(new DynamoDBProcessor())
+                .compilesWithoutError();
+    }
+
 
 
 }
\ No newline at end of file
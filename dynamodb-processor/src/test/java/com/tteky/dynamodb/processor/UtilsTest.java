@@ -29,6 +29,16 @@ class UtilsTest {
         assertThat(Utils.firstAsCaps(fieldName), is(equalTo(camelcaseSuffix)));
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            "title, TITLE",
+            "lastUpdatedOn, LAST_UPDATED_ON",
+            "objInfo, OBJ_INFO",
+    })
+    void constantName(String fieldName, String expected) {
+        assertThat(Utils.constantName(fieldName), is(equalTo(expected)));
+    }
+
     @ParameterizedTest
     @CsvSource({
             "com.tteky.dynamodb.processor,'' , com.tteky.dynamodb.dao",
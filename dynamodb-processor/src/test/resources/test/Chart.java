@@ -0,0 +1,50 @@
+package com.tteky.dynamodb.domain;
+
+import com.tteky.dynamodb.DynamoDBEntity;
+import com.tteky.dynamodb.DynamoField;
+import com.tteky.dynamodb.DynamoHashKey;
+import com.tteky.dynamodb.DynamoRangeKey;
+
+import java.util.List;
+
+/**
+ * Entity keyed by enums, covers the generated key queries of enum keys
+ */
+@DynamoDBEntity
+public class Chart {
+
+    @DynamoField
+    @DynamoHashKey
+    private Genre genre;
+
+    @DynamoField
+    @DynamoRangeKey
+    private Period period;
+
+    @DynamoField
+    private List<String> titles;
+
+    public Genre getGenre() {
+        return genre;
+    }
+
+    public void setGenre(Genre genre) {
+        this.genre = genre;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(Period period) {
+        this.period = period;
+    }
+
+    public List<String> getTitles() {
+        return titles;
+    }
+
+    public void setTitles(List<String> titles) {
+        this.titles = titles;
+    }
+}
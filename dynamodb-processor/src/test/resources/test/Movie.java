@@ -5,6 +5,7 @@ import com.tteky.dynamodb.DynamoDBEntity;
 import com.tteky.dynamodb.DynamoField;
 import com.tteky.dynamodb.DynamoHashKey;
 import com.tteky.dynamodb.DynamoRangeKey;
+import com.tteky.dynamodb.ObjectEncoding;
 
 import java.util.List;
 import java.util.Map;
@@ -25,9 +26,12 @@ public class Movie {
     private String title;
 
     @DynamoField
+    private Genre genre;
+
+    @DynamoField(compress = "deflate", compressThreshold = 2048)
     private List<Review> reviews;
 
-    @DynamoField
+    @DynamoField(objectEncoding = ObjectEncoding.NATIVE)
     private Map<String,Object> info;
 
     @DynamoField
@@ -68,6 +72,14 @@ public class Movie {
         this.title = title;
     }
 
+    public Genre getGenre() {
+        return genre;
+    }
+
+    public void setGenre(Genre genre) {
+        this.genre = genre;
+    }
+
     public List<Review> getReviews() {
         return reviews;
     }
@@ -0,0 +1,8 @@
+package com.tteky.dynamodb.domain;
+
+/**
+ * Enum range key of Chart
+ */
+public enum Period {
+    DAILY, WEEKLY, MONTHLY
+}
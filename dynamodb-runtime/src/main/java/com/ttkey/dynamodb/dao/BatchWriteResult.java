@@ -0,0 +1,54 @@
+package com.ttkey.dynamodb.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outcome of a batch write. Holds the entities which couldn't be written either because they remained unprocessed
+ * after all the retries or because the chunk carrying them failed, along with the failures.
+ */
+public class BatchWriteResult<T> {
+
+    private final List<T> failedEntities = new ArrayList<>();
+
+    private final List<RuntimeException> errors = new ArrayList<>();
+
+    private int writtenCount;
+
+    public synchronized boolean isSuccessful() {
+        return failedEntities.isEmpty();
+    }
+
+    /**
+     * @return entities which are not written
+     */
+    public synchronized List<T> getFailedEntities() {
+        return new ArrayList<>(failedEntities);
+    }
+
+    /**
+     * @return failures of the chunks, empty if entities failed only due to retries exhaustion
+     */
+    public synchronized List<RuntimeException> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    /**
+     * @return number of entities written successfully
+     */
+    public synchronized int getWrittenCount() {
+        return writtenCount;
+    }
+
+    synchronized void written(int count) {
+        writtenCount += count;
+    }
+
+    synchronized void failed(Collection<T> entities, RuntimeException error) {
+        failedEntities.addAll(entities);
+        if (error != null) {
+            errors.add(error);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ttkey.dynamodb.dao;
+
+/**
+ * Outcome of a conditional write made through the try variants of the dao, ie., {@link DynamoDBBaseDao#tryInsert(Object)}.
+ * Failed conditional checks are reported through this result instead of an exception, other failures are still thrown.
+ */
+public final class ConditionalWriteResult<T> {
+
+    private static final ConditionalWriteResult<?> CONDITION_FAILED = new ConditionalWriteResult<>(false, null);
+
+    private final boolean written;
+
+    private final T entity;
+
+    private ConditionalWriteResult(boolean written, T entity) {
+        this.written = written;
+        this.entity = entity;
+    }
+
+    static <T> ConditionalWriteResult<T> written(T entity) {
+        return new ConditionalWriteResult<>(true, entity);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ConditionalWriteResult<T> conditionFailed() {
+        return (ConditionalWriteResult<T>) CONDITION_FAILED;
+    }
+
+    /**
+     * @return true if the conditional checks passed and the item is written
+     */
+    public boolean isWritten() {
+        return written;
+    }
+
+    public boolean isConditionFailed() {
+        return !written;
+    }
+
+    /**
+     * @return written entity, or the deleted entity in case of deletes. null if the conditional checks failed
+     */
+    public T getEntity() {
+        return entity;
+    }
+}
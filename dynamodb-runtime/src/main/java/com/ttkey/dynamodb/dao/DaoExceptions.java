@@ -0,0 +1,56 @@
+package com.ttkey.dynamodb.dao;
+
+import com.ttkey.dynamodb.exception.DataAccessException;
+import com.ttkey.dynamodb.exception.TableDoesNotExistException;
+import com.ttkey.dynamodb.exception.TableExistsException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * Translation of SDK exceptions to {@link DataAccessException} shared by the blocking and the async dao.
+ */
+final class DaoExceptions {
+
+    private DaoExceptions() {
+    }
+
+    /**
+     * Exceptions already translated, ie., raised while waiting for capacity or backing off, are returned unchanged
+     */
+    static Function<RuntimeException, ? extends DataAccessException> exceptionMapper(String operation, String tableName) {
+        return e -> {
+            if (e instanceof DataAccessException) {
+                return (DataAccessException) e;
+            } else if (e instanceof ResourceNotFoundException || e instanceof TableNotFoundException) {
+                return new TableDoesNotExistException(format(" `%s` table does not exist. '%s'", tableName, e.getMessage()));
+            } else if (e instanceof ResourceInUseException || e instanceof TableAlreadyExistsException) {
+                return new TableExistsException(format(" `%s` table already exist. '%s'", tableName, e.getMessage()));
+            } else if (e instanceof DynamoDbException) {
+                var format = format("'%s' failed in '%s' table due to %s", operation, tableName, e.getMessage());
+                return new DataAccessException(format, e);
+            } else if (e instanceof SdkException) {
+                var format = format("'%s' failed in '%s' table due to infrastructure issue %s", operation, tableName, e.getMessage());
+                return new DataAccessException(format, e);
+            } else {
+                var format = format("'%s' failed in '%s' table due to unexpected exception. Error Message is: %s", operation, tableName, e.getMessage());
+                return new DataAccessException(format, e);
+            }
+        };
+    }
+
+    /**
+     * Strips the {@link CompletionException}/{@link ExecutionException} wrappers added by {@link java.util.concurrent.CompletableFuture}
+     */
+    static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+}
@@ -0,0 +1,524 @@
+package com.ttkey.dynamodb.dao;
+
+import com.ttkey.dynamodb.exception.*;
+import com.ttkey.dynamodb.metrics.MetricsListener;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.ttkey.dynamodb.utils.Conditionals.isNullOrEmpty;
+import static java.lang.String.format;
+
+/**
+ * Non blocking counterpart of {@link DynamoDBBaseDao}. Every operation is fired through {@link DynamoDbAsyncClient}
+ * and returns a {@link CompletableFuture} which is completed with the converted entity, or exceptionally with the
+ * same {@link DataAccessException} hierarchy thrown by the blocking dao.
+ */
+public abstract class DynamoDBBaseAsyncDao<T> {
+    private DynamoDbAsyncClient dynamoDb;
+    private String tableName;
+    private final String missingItemMessage;
+    private volatile EntitySchema schema;
+    private volatile MetricsListener metricsListener = MetricsListener.NONE;
+
+    public DynamoDBBaseAsyncDao(DynamoDbAsyncClient dynamoDb, String tableName) {
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+        this.missingItemMessage = format("Item does not exist in '%s' table", tableName);
+    }
+
+    /**
+     * Reports the metrics of every call made to the table, see {@link DynamoDBBaseDao#setMetricsListener(MetricsListener)}.
+     * The listener is invoked on the thread completing the call, before the returned future completes.
+     *
+     * @param metricsListener listener, null to disable metrics
+     */
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener == null ? MetricsListener.NONE : metricsListener;
+    }
+
+    /**
+     * Creates a new table
+     *
+     * @param request
+     * @return future of creation response, completes with {@link TableExistsException} if the table exists already
+     */
+    public CompletableFuture<CreateTableResponse> createTable(CreateTableRequest.Builder request) {
+        return call(() -> dynamoDb.createTable(request.tableName(tableName).build()), exceptionMapper("Create Table"));
+    }
+
+    /**
+     * Get entity using its key
+     *
+     * @param entityWithKeyFieldsPopulated
+     * @return
+     */
+    public CompletableFuture<T> getEntity(T entityWithKeyFieldsPopulated) {
+        Map<String, AttributeValue> keys = entityToKeyAttributes(entityWithKeyFieldsPopulated);
+        return getItem(GetItemRequest.builder()
+                .key(keys));
+    }
+
+    /**
+     * Same as {@link #getEntity(Object)}, but a missing item completes the future with empty instead of {@link ItemDoesNotExistException}
+     *
+     * @param entityWithKeyFieldsPopulated
+     * @return future of entity or empty if the key has no item
+     */
+    public CompletableFuture<Optional<T>> findEntity(T entityWithKeyFieldsPopulated) {
+        Map<String, AttributeValue> keys = entityToKeyAttributes(entityWithKeyFieldsPopulated);
+        return findItem(GetItemRequest.builder()
+                .key(keys));
+    }
+
+    /**
+     * Key attributes of the entity, see {@link DynamoDBBaseDao#entityToKeyAttributes(Object)}
+     */
+    protected Map<String, AttributeValue> entityToKeyAttributes(T entityWithKeyFieldsPopulated) {
+        var allFields = this.convert(entityWithKeyFieldsPopulated);
+        String[] keyFieldNames = getSchema().keyNameArray();
+        Map<String, AttributeValue> key = new HashMap<>(keyFieldNames.length * 2);
+        for (String keyFieldName : keyFieldNames) {
+            key.put(keyFieldName, allFields.get(keyFieldName));
+        }
+        return key;
+    }
+
+    /**
+     * Get item using partition key and sort key. Sort key can be null if the table has no sort key.
+     *
+     * @return future completing with the entity or with {@link ItemDoesNotExistException} if there is no such item
+     */
+    public CompletableFuture<T> getItem(GetItemRequest.Builder builder) {
+        return findItem(builder)
+                .thenApply(entity -> entity.orElseThrow(() -> new ItemDoesNotExistException(missingItemMessage)));
+    }
+
+    /**
+     * Same as {@link #getItem(GetItemRequest.Builder)}, but a missing item completes the future with empty
+     *
+     * @return future of entity or empty if the key has no item
+     */
+    public CompletableFuture<Optional<T>> findItem(GetItemRequest.Builder builder) {
+        if (returnsConsumedCapacity()) {
+            builder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        var req = builder.tableName(tableName).build();
+        var sample = sample("Get Item");
+        return emitOnCompletion(sample, call(() -> sample.networkAsync(() -> dynamoDb.getItem(req), GetItemResponse::consumedCapacity),
+                exceptionMapper("Get Item"))
+                .thenApply(response -> {
+                    if (response == null || isNullOrEmpty(response.item())) {
+                        sample.notFound();
+                        return Optional.empty();
+                    }
+                    return Optional.of(sample.map(response.item(), this::convert));
+                }));
+    }
+
+    /**
+     * @param scanBuilder  containing required filter expression and its values.
+     * @param pageSize     page size.
+     * @param previousPage if not null, uses to fetch next page of data.
+     * @return
+     */
+    public CompletableFuture<PagedQueryResults<T>> scanItemsByPage(ScanRequest.Builder scanBuilder, int pageSize, PagedQueryResults<T> previousPage) {
+        scanBuilder.tableName(tableName)
+                .limit(pageSize);
+        if (returnsConsumedCapacity()) {
+            scanBuilder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        if (previousPage != null) {
+            scanBuilder.exclusiveStartKey(previousPage.getLastEvaluatedKey());
+        }
+        var req = scanBuilder.build();
+        var sample = sample("Scan Item");
+        return emitOnCompletion(sample, call(() -> sample.networkAsync(() -> dynamoDb.scan(req), ScanResponse::consumedCapacity), exceptionMapper("Scan Item"))
+                .thenApply(result -> new PagedQueryResults<>(result.items().stream()
+                        .map(item -> sample.map(item, this::convert))
+                        .collect(Collectors.toList()), result.lastEvaluatedKey())));
+    }
+
+    /**
+     * Returns all the matching results in a single shot. Pages are fetched one after the other, each one is
+     * requested only when the previous page has arrived.
+     *
+     * @param scanBuilder scan request with all where clauses
+     * @return future of list of all entities matching the criteria
+     */
+    public CompletableFuture<List<T>> scanAllItems(ScanRequest.Builder scanBuilder) {
+        scanBuilder.tableName(tableName);
+        if (returnsConsumedCapacity()) {
+            scanBuilder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        return scanRemainingPages(scanBuilder, null, new ArrayList<>());
+    }
+
+    private CompletableFuture<List<T>> scanRemainingPages(ScanRequest.Builder scanBuilder, Map<String, AttributeValue> startKey, List<T> collected) {
+        if (startKey != null) {
+            scanBuilder.exclusiveStartKey(startKey);
+        }
+        var req = scanBuilder.build();
+        // one sample per page, like the blocking dao
+        var sample = sample("Scan Item");
+        return emitOnCompletion(sample, call(() -> sample.networkAsync(() -> dynamoDb.scan(req), ScanResponse::consumedCapacity), exceptionMapper("Scan Item"))
+                .thenApply(result -> {
+                    result.items().forEach(item -> collected.add(sample.map(item, this::convert)));
+                    return result;
+                }))
+                .thenCompose(result -> {
+                    if (isNullOrEmpty(result.lastEvaluatedKey())) {
+                        return CompletableFuture.completedFuture(collected);
+                    }
+                    return scanRemainingPages(scanBuilder, result.lastEvaluatedKey(), collected);
+                });
+    }
+
+    /**
+     * Inserts new entity
+     *
+     * @param entity
+     */
+    public CompletableFuture<Void> insertEntity(T entity) {
+        var builder = PutItemRequest.builder()
+                .item(convert(entity));
+        return this.insertItem(getSchema().applyKeyNotExists(builder))
+                .thenApply(response -> null);
+    }
+
+    /**
+     * Inserts new entity unless an item with the same key exists, see {@link DynamoDBBaseDao#tryInsert(Object)}
+     *
+     * @param entity
+     * @return future of written result holding the entity, or condition failed if the key exists already
+     */
+    public CompletableFuture<ConditionalWriteResult<T>> tryInsert(T entity) {
+        var req = getSchema().applyKeyNotExists(PutItemRequest.builder()
+                .item(convert(entity)))
+                .tableName(tableName)
+                .returnConsumedCapacity(returnsConsumedCapacity() ? ReturnConsumedCapacity.TOTAL : ReturnConsumedCapacity.NONE)
+                .build();
+        return tryWrite(sample("Create Item"), () -> dynamoDb.putItem(req), PutItemResponse::consumedCapacity, response -> entity);
+    }
+
+    /**
+     * Creates new Item.
+     *
+     * @param putItemBuilder Builder containing the details of the item that needs to be created.
+     * @param keyFieldNames  if present, will be considered as keys and attribute_not_exists check will be added. This can be null if and only if additional checks are already constructed in builder
+     * @return future completing with {@link CouldNotInsertException} if item creation failed due to conditional checks like attribute_not_exists
+     */
+    public CompletableFuture<PutItemResponse> insertItem(final PutItemRequest.Builder putItemBuilder, String... keyFieldNames) {
+        Objects.requireNonNull(putItemBuilder);
+        if (!isNullOrEmpty(keyFieldNames)) {
+            putItemBuilder.conditionExpression(attributeNotExists(keyFieldNames));
+        }
+        return putItem(putItemBuilder);
+    }
+
+    private CompletableFuture<PutItemResponse> putItem(PutItemRequest.Builder putItemBuilder) {
+        if (returnsConsumedCapacity()) {
+            putItemBuilder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        var putItemRequest = putItemBuilder.tableName(tableName).build();
+        var sample = sample("Create Item");
+        return emitOnCompletion(sample, call(() -> sample.networkAsync(() -> dynamoDb.putItem(putItemRequest), PutItemResponse::consumedCapacity), e -> {
+            if (e instanceof ConditionalCheckFailedException) {
+                return new CouldNotInsertException(format(" Create Item failed in '%s' table due to conditional checks '%s'", tableName, e.getMessage()));
+            }
+            return exceptionMapper("Create Item").apply(e);
+        }));
+    }
+
+    /**
+     * Replace the current entity with newer values
+     *
+     * @param newerValue
+     * @return
+     */
+    public CompletableFuture<T> replaceEntity(T newerValue) {
+        return this.replaceItem(getSchema().applyKeyExists(PutItemRequest.builder()
+                .item(convert(newerValue))))
+                .thenApply(response -> convert(response.attributes()));
+    }
+
+    /**
+     * Replaces an existing entity, see {@link DynamoDBBaseDao#tryReplace(Object)}
+     *
+     * @param newerValue
+     * @return future of written result holding the newer value, or condition failed if there is no item with the same key
+     */
+    public CompletableFuture<ConditionalWriteResult<T>> tryReplace(T newerValue) {
+        var req = getSchema().applyKeyExists(PutItemRequest.builder()
+                .item(convert(newerValue)))
+                .tableName(tableName)
+                .returnConsumedCapacity(returnsConsumedCapacity() ? ReturnConsumedCapacity.TOTAL : ReturnConsumedCapacity.NONE)
+                .build();
+        return tryWrite(sample("Create Item"), () -> dynamoDb.putItem(req), PutItemResponse::consumedCapacity, response -> newerValue);
+    }
+
+    /**
+     * Replaces an existing item using put item command.
+     *
+     * @param putItemBuilder Request containing items with new values.
+     * @param keyFieldNames  if present, adds attribute exists exception. Should be null if you want to use legacy `attribute_update_values`.
+     * @return future completing with {@link CouldNotInsertException} if new row can't be inserted/replaced
+     */
+    public CompletableFuture<PutItemResponse> replaceItem(final PutItemRequest.Builder putItemBuilder, String... keyFieldNames) {
+        Objects.requireNonNull(putItemBuilder);
+        if (!isNullOrEmpty(keyFieldNames)) {
+            putItemBuilder.conditionExpression(attributeExists(keyFieldNames));
+        }
+        return putItem(putItemBuilder);
+    }
+
+    /**
+     * @param builder       containing necessary values that needs to be updated.
+     * @param keyFieldNames should be null if builder has attributeValues populated (deprecated). If used with, expression attributes, validates for presence of keys
+     * @return future of entity with updated values, completes with {@link CouldNotUpdateException} if item update fails due to conditional checks
+     */
+    public CompletableFuture<T> updateItem(UpdateItemRequest.Builder builder, String... keyFieldNames) {
+        builder.returnValues(ReturnValue.ALL_NEW);
+        builder.tableName(tableName);
+        if (!isNullOrEmpty(keyFieldNames)) {
+            builder.conditionExpression(attributeExists(keyFieldNames));
+        }
+        if (returnsConsumedCapacity()) {
+            builder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        var req = builder.build();
+        var sample = sample("Update Item");
+        return emitOnCompletion(sample, call(() -> sample.networkAsync(() -> dynamoDb.updateItem(req), UpdateItemResponse::consumedCapacity), e -> {
+            if (e instanceof ConditionalCheckFailedException) {
+                return new CouldNotUpdateException(format(" Update Item failed in '%s' table due to conditional checks '%s'", tableName, e.getMessage()));
+            }
+            return exceptionMapper("Update Item").apply(e);
+        }).thenApply(response -> sample.map(response.attributes(), this::convert)));
+    }
+
+    /**
+     * Saves only the attributes which differ between the original and the modified entity, see {@link DynamoDBBaseDao#saveChanges(Object, Object)}
+     *
+     * @param original snapshot of the stored entity, see {@link #snapshot(Object)}
+     * @param modified entity holding newer values, with the same key as the original
+     * @return future of entity with updated values, completes with {@link CouldNotUpdateException} if the item doesn't exist
+     */
+    public CompletableFuture<T> saveChanges(T original, T modified) {
+        Map<String, AttributeValue> key = entityToKeyAttributes(modified);
+        if (!key.equals(entityToKeyAttributes(original))) {
+            throw new IllegalArgumentException("Original and modified entities should have the same key");
+        }
+        var changes = changedAttributes(original, modified);
+        if (changes.isEmpty()) {
+            return CompletableFuture.completedFuture(modified);
+        }
+        return updateItem(ItemChanges.toUpdate(key, changes, getSchema()));
+    }
+
+    /**
+     * Deep copy of the entity made through the mapper, to be kept as the original of {@link #saveChanges(Object, Object)}
+     */
+    public T snapshot(T entity) {
+        return convert(convert(entity));
+    }
+
+    /**
+     * Adds the delta to a numeric field without reading the item, see {@link DynamoDBBaseDao#increment(Object, EntityField, Number)}
+     *
+     * @return future of entity with the values after the update, completes with {@link CouldNotUpdateException} if the item doesn't exist
+     */
+    public CompletableFuture<T> increment(T entityWithKeyFields, EntityField<? extends Number> field, Number delta) {
+        return updateItem(ItemChanges.toMutation("ADD", entityToKeyAttributes(entityWithKeyFields), field,
+                ItemChanges.numberOperand(delta), getSchema()));
+    }
+
+    /**
+     * Adds the values to a native set field without reading the item, see {@link DynamoDBBaseDao#addToSet(Object, EntityField, Collection)}
+     */
+    public <V> CompletableFuture<T> addToSet(T entityWithKeyFields, EntityField<? extends Set<V>> field, Collection<? extends V> values) {
+        return updateItem(ItemChanges.toMutation("ADD", entityToKeyAttributes(entityWithKeyFields), field,
+                ItemChanges.setOperand(values), getSchema()));
+    }
+
+    /**
+     * Removes the values from a native set field without reading the item, see {@link DynamoDBBaseDao#removeFromSet(Object, EntityField, Collection)}
+     */
+    public <V> CompletableFuture<T> removeFromSet(T entityWithKeyFields, EntityField<? extends Set<V>> field, Collection<? extends V> values) {
+        return updateItem(ItemChanges.toMutation("DELETE", entityToKeyAttributes(entityWithKeyFields), field,
+                ItemChanges.setOperand(values), getSchema()));
+    }
+
+    public CompletableFuture<T> deleteEntity(T entityWithKeyFields) {
+        Map<String, AttributeValue> convert = this.entityToKeyAttributes(entityWithKeyFields);
+        return this.deleteItem(getSchema().applyKeyExists(DeleteItemRequest.builder()
+                .key(convert)));
+    }
+
+    /**
+     * Deletes an existing entity, see {@link DynamoDBBaseDao#tryDelete(Object)}
+     *
+     * @param entityWithKeyFields
+     * @return future of written result holding the deleted entity, or condition failed if there is no item with the same key
+     */
+    public CompletableFuture<ConditionalWriteResult<T>> tryDelete(T entityWithKeyFields) {
+        var req = getSchema().applyKeyExists(DeleteItemRequest.builder()
+                .key(this.entityToKeyAttributes(entityWithKeyFields)))
+                .returnValues(ReturnValue.ALL_OLD)
+                .tableName(tableName)
+                .returnConsumedCapacity(returnsConsumedCapacity() ? ReturnConsumedCapacity.TOTAL : ReturnConsumedCapacity.NONE)
+                .build();
+        return tryWrite(sample("Delete Item"), () -> dynamoDb.deleteItem(req), DeleteItemResponse::consumedCapacity,
+                response -> convert(response.attributes()));
+    }
+
+    /**
+     * Deletes the entry using the builder provided.
+     *
+     * @param keyFieldNames If provided, constructs checks to ensure an item is deleted
+     * @param builder       delete request builder
+     * @return future of deleted entity, completes with {@link CouldNotDeleteException} if conditional checks fail
+     */
+    public CompletableFuture<T> deleteItem(DeleteItemRequest.Builder builder, String... keyFieldNames) {
+        builder.returnValues(ReturnValue.ALL_OLD).tableName(tableName);
+        if (!isNullOrEmpty(keyFieldNames)) {
+            builder.conditionExpression(attributeExists(keyFieldNames));
+        }
+        if (returnsConsumedCapacity()) {
+            builder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        var req = builder.build();
+        var sample = sample("Delete Item");
+        return emitOnCompletion(sample, call(() -> sample.networkAsync(() -> dynamoDb.deleteItem(req), DeleteItemResponse::consumedCapacity), e -> {
+            if (e instanceof ConditionalCheckFailedException) {
+                return new CouldNotDeleteException(format(" Delete Item failed in '%s' table due to conditional checks '%s'", tableName, e.getMessage()));
+            }
+            return exceptionMapper("Delete Item").apply(e);
+        }).thenApply(response -> sample.map(response.attributes(), this::convert)));
+    }
+
+    /**
+     * Fires a conditional write, completing with condition failed result instead of an exception when the conditional
+     * checks fail. Other failures are translated as usual.
+     *
+     * @param sample           sample of the operation, its name is used while translating failures
+     * @param consumedCapacity capacity reported by the response
+     * @param written          entity reported by the written result
+     */
+    private <R> CompletableFuture<ConditionalWriteResult<T>> tryWrite(OperationSample sample, Supplier<CompletableFuture<R>> request,
+                                                                      Function<R, ConsumedCapacity> consumedCapacity,
+                                                                      Function<R, T> written) {
+        CompletableFuture<R> response = call(() -> sample.networkAsync(request, consumedCapacity),
+                e -> e instanceof ConditionalCheckFailedException ? e : exceptionMapper(sample.getOperation()).apply(e));
+        return emitOnCompletion(sample, response.handle((value, error) -> {
+            if (error == null) {
+                return ConditionalWriteResult.written(written.apply(value));
+            }
+            Throwable cause = DaoExceptions.unwrap(error);
+            if (cause instanceof ConditionalCheckFailedException) {
+                return ConditionalWriteResult.conditionFailed();
+            }
+            throw new CompletionException(cause);
+        }));
+    }
+
+    /**
+     * Fires the request and translates any failure, whether thrown while building the call or signalled through
+     * the returned future, using the given mapper.
+     */
+    private <R> CompletableFuture<R> call(Supplier<CompletableFuture<R>> request, Function<RuntimeException, ? extends RuntimeException> errorMapper) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        CompletableFuture<R> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(errorMapper.apply(e));
+            return result;
+        }
+        response.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = DaoExceptions.unwrap(error);
+            result.completeExceptionally(cause instanceof RuntimeException ? errorMapper.apply((RuntimeException) cause) : cause);
+        });
+        return result;
+    }
+
+    /**
+     * Reports the sample once the operation completes, including the mapping of its response
+     */
+    private static <R> CompletableFuture<R> emitOnCompletion(OperationSample sample, CompletableFuture<R> operation) {
+        return operation.whenComplete((value, error) -> sample.emit());
+    }
+
+    /**
+     * Consumed capacity is requested only to be reported to the metrics listener
+     */
+    private boolean returnsConsumedCapacity() {
+        return metricsListener != MetricsListener.NONE;
+    }
+
+    private OperationSample sample(String operation) {
+        return new OperationSample(metricsListener, tableName, operation);
+    }
+
+    protected Function<RuntimeException, ? extends DataAccessException> exceptionMapper(String operation) {
+        return DaoExceptions.exceptionMapper(operation, tableName);
+    }
+
+    protected abstract T convert(Map<String, AttributeValue> item);
+
+    protected abstract Map<String, AttributeValue> convert(T entity);
+
+    protected abstract String[] getKeyFieldNames();
+
+    /**
+     * Attributes which differ between the entities, with null value for the removed ones. Key attributes are not compared.
+     * Compares the encoded entities, generated daos override it with the field by field comparison of their mapper,
+     * ie., MovieMapper#movieChanges.
+     */
+    protected Map<String, AttributeValue> changedAttributes(T original, T modified) {
+        return ItemChanges.diff(convert(original), convert(modified), getSchema());
+    }
+
+    /**
+     * Schema of the entity, generated daos return the generated one, ie., MovieSchema.SCHEMA. Otherwise it is derived
+     * from {@link #getKeyFieldNames()} on first use.
+     */
+    protected EntitySchema getSchema() {
+        var current = schema;
+        if (current == null) {
+            current = EntitySchema.of(tableName, getKeyFieldNames());
+            schema = current;
+        }
+        return current;
+    }
+
+    protected String attributeNotExists(String... fieldNames) {
+        var current = getSchema();
+        if (current.keyConditionNames().isEmpty() && current.isKeyNames(fieldNames)) {
+            return current.keyNotExistsCondition();
+        }
+        return Stream.of(fieldNames)
+                .map(name -> format("attribute_not_exists( %s)", name))
+                .collect(Collectors.joining(" AND "));
+    }
+
+    protected String attributeExists(String... fieldNames) {
+        var current = getSchema();
+        if (current.keyConditionNames().isEmpty() && current.isKeyNames(fieldNames)) {
+            return current.keyExistsCondition();
+        }
+        return Stream.of(fieldNames)
+                .map(name -> format("attribute_exists( %s)", name))
+                .collect(Collectors.joining(" AND "));
+    }
+}
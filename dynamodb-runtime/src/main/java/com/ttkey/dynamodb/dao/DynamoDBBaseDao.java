@@ -1,25 +1,144 @@
 package com.ttkey.dynamodb.dao;
 
 import com.ttkey.dynamodb.exception.*;
-import software.amazon.awssdk.core.exception.SdkException;
+import com.ttkey.dynamodb.metrics.MetricsListener;
+import com.ttkey.dynamodb.utils.AdaptiveRateLimiter;
+import com.ttkey.dynamodb.utils.Backoff;
+import com.ttkey.dynamodb.utils.ItemSizes;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.ttkey.dynamodb.utils.Conditionals.isNullOrEmpty;
 import static java.lang.String.format;
 
 public abstract class DynamoDBBaseDao<T> {
+    private static final int MAX_BATCH_GET_SIZE = 100;
+    private static final int MAX_BATCH_WRITE_SIZE = 25;
+    private static final long MAX_BATCH_WRITE_BYTES = 16L * 1024 * 1024;
+
     private DynamoDbClient dynamoDb;
     private String tableName;
+    private final String missingItemMessage;
+    private volatile EntitySchema schema;
+    private volatile Executor batchExecutor = ForkJoinPool.commonPool();
+    private Backoff batchBackoff = Backoff.defaultBackoff();
+    private volatile EntityCache entityCache;
+    private volatile boolean coalesceReads;
+    private volatile ReadBatcher<Map<String, AttributeValue>, T> readBatcher;
+    private volatile AdaptiveRateLimiter readRateLimiter;
+    private volatile AdaptiveRateLimiter writeRateLimiter;
+    private Backoff throttleBackoff = Backoff.defaultBackoff();
+    private volatile MetricsListener metricsListener = MetricsListener.NONE;
+    private final ConcurrentMap<Map<String, AttributeValue>, CompletableFuture<Map<String, AttributeValue>>> inFlightReads = new ConcurrentHashMap<>();
 
     public DynamoDBBaseDao(DynamoDbClient dynamoDb, String tableName) {
         this.dynamoDb = dynamoDb;
         this.tableName = tableName;
+        this.missingItemMessage = format("Item does not exist in '%s' table", tableName);
+    }
+
+    /**
+     * Executor used to submit the chunks of batch operations concurrently. Defaults to the common fork join pool,
+     * a dedicated pool is recommended as the chunks block on network calls.
+     */
+    public void setBatchExecutor(Executor batchExecutor) {
+        this.batchExecutor = Objects.requireNonNull(batchExecutor);
+    }
+
+    /**
+     * Backoff applied while re-driving unprocessed keys/items of batch operations.
+     */
+    public void setBatchBackoff(Backoff batchBackoff) {
+        this.batchBackoff = Objects.requireNonNull(batchBackoff);
+    }
+
+    /**
+     * Limits the read capacity consumed by get, batch get, query and scan calls. Once set, consumed capacity is requested
+     * on every read to adapt the limiter and throttled reads are retried using the throttle backoff.
+     *
+     * @param readRateLimiter limiter, null to send reads without limit
+     */
+    public void setReadRateLimiter(AdaptiveRateLimiter readRateLimiter) {
+        this.readRateLimiter = readRateLimiter;
+    }
+
+    /**
+     * Limits the write capacity consumed by put, update, delete and batch write calls, see {@link #setReadRateLimiter(AdaptiveRateLimiter)}
+     *
+     * @param writeRateLimiter limiter, null to send writes without limit
+     */
+    public void setWriteRateLimiter(AdaptiveRateLimiter writeRateLimiter) {
+        this.writeRateLimiter = writeRateLimiter;
+    }
+
+    /**
+     * Backoff applied while retrying calls throttled by the table, used only along with a rate limiter.
+     */
+    public void setThrottleBackoff(Backoff throttleBackoff) {
+        this.throttleBackoff = Objects.requireNonNull(throttleBackoff);
+    }
+
+    /**
+     * Reports the metrics of every call made to the table, ie., {@link com.ttkey.dynamodb.metrics.InMemoryMetrics}
+     *
+     * @param metricsListener listener, null to disable metrics
+     */
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener == null ? MetricsListener.NONE : metricsListener;
+    }
+
+    /**
+     * Enables read-through caching of {@link #getEntity(Object)}, {@link #getItem(GetItemRequest.Builder)} and batch gets.
+     * Writes made through this DAO invalidate the cached item. Projected reads are not cached and consistent reads
+     * bypass the cache but refresh it.
+     *
+     * @param entityCache cache, null to disable caching
+     */
+    public void setEntityCache(EntityCache entityCache) {
+        this.entityCache = entityCache;
+    }
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * When enabled, concurrent {@link #getEntity(Object)}/{@link #getItem(GetItemRequest.Builder)} calls for the same key
+     * share a single in-flight get item call and all of them receive its result or failure.
+     * Projected and consistent reads are never shared.
+     */
+    public void setCoalesceReads(boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+    }
+
+    /**
+     * Enables micro batching of {@link #getEntity(Object)}. Calls arriving within the window are merged into batch get
+     * item calls, fired as soon as the window elapses or the batch has as many keys, and every caller receives its entity.
+     * Batches are loaded on the batch executor, so it should be sized for the expected concurrency. A batch holds at
+     * most 100 keys, the limit of batch get item, so it is loaded by a single call on the executor thread and never
+     * waits for other tasks of the executor.
+     *
+     * @param window       time for which calls are collected, ie., 2 ms. null to disable batching
+     * @param maxBatchSize number of keys that triggers the batch before the window elapses, at most 100
+     */
+    public void setReadBatching(Duration window, int maxBatchSize) {
+        var previous = readBatcher;
+        readBatcher = window == null ? null : new ReadBatcher<>(window, Math.min(maxBatchSize, MAX_BATCH_GET_SIZE),
+                this::getItemsByKey, () -> batchExecutor);
+        if (previous != null) {
+            previous.close();
+        }
     }
 
     /**
@@ -44,35 +163,338 @@ public abstract class DynamoDBBaseDao<T> {
      * @return
      */
     public T getEntity(T entityWithKeyFieldsPopulated) {
+        T entity = loadEntity(entityToKeyAttributes(entityWithKeyFieldsPopulated));
+        if (entity == null) {
+            throw itemDoesNotExist();
+        }
+        return entity;
+    }
+
+    /**
+     * Same as {@link #getEntity(Object)}, but a missing item is returned as empty instead of throwing {@link ItemDoesNotExistException}
+     *
+     * @param entityWithKeyFieldsPopulated
+     * @return entity or empty if the key has no item
+     */
+    public Optional<T> findEntity(T entityWithKeyFieldsPopulated) {
+        return Optional.ofNullable(loadEntity(entityToKeyAttributes(entityWithKeyFieldsPopulated)));
+    }
+
+    /**
+     * Same as {@link #getEntity(Object, FieldProjection)}, but a missing item is returned as empty
+     *
+     * @param entityWithKeyFieldsPopulated
+     * @param projection                   projection, can be built once and reused
+     * @return entity with the projected fields or empty if the key has no item
+     */
+    public Optional<T> findEntity(T entityWithKeyFieldsPopulated, FieldProjection projection) {
         Map<String, AttributeValue> keys = entityToKeyAttributes(entityWithKeyFieldsPopulated);
-        return getItem(GetItemRequest.builder()
+        return Optional.ofNullable(readItem(projection.applyTo(GetItemRequest.builder()
+                .key(keys))));
+    }
+
+    /**
+     * @return entity or null if the key has no item
+     */
+    private T loadEntity(Map<String, AttributeValue> keys) {
+        var batcher = readBatcher;
+        if (batcher != null) {
+            return join(batcher.load(keys));
+        }
+        return readItem(GetItemRequest.builder()
                 .key(keys));
     }
 
-    private Map<String, AttributeValue> entityToKeyAttributes(T entityWithKeyFieldsPopulated) {
-        var allFields = this.convert(entityWithKeyFieldsPopulated);
-        Set<String> keyFieldNames = Set.of(getKeyFieldNames());
-        return allFields.entrySet().stream()
-                .filter(entry -> keyFieldNames.contains(entry.getKey()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    /**
+     * Get entity using its key, fetching and decoding only the given fields. Fields which are not projected remain unset.
+     *
+     * @param entityWithKeyFieldsPopulated
+     * @param fields                       fields to be fetched, ie., MovieFields.TITLE
+     * @return
+     */
+    public T getEntity(T entityWithKeyFieldsPopulated, EntityField<?>... fields) {
+        return getEntity(entityWithKeyFieldsPopulated, FieldProjection.of(fields));
+    }
+
+    /**
+     * Get entity using its key, fetching and decoding only the projected fields.
+     *
+     * @param entityWithKeyFieldsPopulated
+     * @param projection                   projection, can be built once and reused
+     * @return
+     */
+    public T getEntity(T entityWithKeyFieldsPopulated, FieldProjection projection) {
+        Map<String, AttributeValue> keys = entityToKeyAttributes(entityWithKeyFieldsPopulated);
+        return getItem(projection.applyTo(GetItemRequest.builder()
+                .key(keys)));
+    }
+
+    /**
+     * Key attributes of the entity, used by all the key based operations. Encodes the whole entity and picks the keys,
+     * generated daos override it with the key only encoding of their mapper, ie., MovieMapper#movieKeyAttributes.
+     */
+    protected Map<String, AttributeValue> entityToKeyAttributes(T entityWithKeyFieldsPopulated) {
+        return keyAttributesOf(this.convert(entityWithKeyFieldsPopulated));
     }
 
     /**
      * Get item using partition key and sort key. Sort key can be null if the table has no sort key.
      *
      * @return
+     * @throws ItemDoesNotExistException if the key has no item
      */
     public T getItem(GetItemRequest.Builder builder) {
-        return Optional.ofNullable(
-                dynamoDb.getItem(builder
-                        .tableName(tableName)
-                        .build()))
-                .map(GetItemResponse::item)
-                .map(this::convert)
-                .orElseThrow(() -> new
-                        ItemDoesNotExistException(format("Item does not exist in '%s' table", tableName)));
+        T entity = readItem(builder);
+        if (entity == null) {
+            throw itemDoesNotExist();
+        }
+        return entity;
+    }
+
+    /**
+     * Same as {@link #getItem(GetItemRequest.Builder)}, but a missing item is returned as empty
+     *
+     * @return entity or empty if the key has no item
+     */
+    public Optional<T> findItem(GetItemRequest.Builder builder) {
+        return Optional.ofNullable(readItem(builder));
+    }
+
+    /**
+     * @return entity or null if the key has no item
+     */
+    private T readItem(GetItemRequest.Builder builder) {
+        if (returnsConsumedCapacity(readRateLimiter)) {
+            builder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        var req = builder.tableName(tableName).build();
+        var cache = entityCache;
+        var sample = sample("Get Item");
+        try {
+            final Map<String, AttributeValue> item;
+            if (req.projectionExpression() != null || !req.attributesToGet().isEmpty()) {
+                item = fetchItem(req, sample);
+            } else if (cache != null) {
+                item = cachedGetItem(req, cache, sample);
+            } else {
+                item = fetchSharedItem(req, sample, fetched -> { });
+            }
+            if (isNullOrEmpty(item)) {
+                sample.notFound();
+                return null;
+            }
+            return sample.map(item, this::convert);
+        } finally {
+            sample.emit();
+        }
+    }
+
+    private ItemDoesNotExistException itemDoesNotExist() {
+        return new ItemDoesNotExistException(missingItemMessage);
+    }
+
+    private Map<String, AttributeValue> cachedGetItem(GetItemRequest req, EntityCache cache, OperationSample sample) {
+        if (!Boolean.TRUE.equals(req.consistentRead())) {
+            var entry = cache.get(req.key());
+            if (entry != null) {
+                return entry.isMissing() ? null : entry.getItem();
+            }
+        }
+        long stamp = cache.stamp();
+        return fetchSharedItem(req, sample, item -> cache.put(req.key(), isNullOrEmpty(item) ? null : item, stamp));
+    }
+
+    /**
+     * Fetches the item, joining the in-flight call of the same key if reads are coalesced.
+     *
+     * @param onFetched invoked only by the caller which actually fetched the item
+     */
+    private Map<String, AttributeValue> fetchSharedItem(GetItemRequest req, OperationSample sample,
+                                                        Consumer<Map<String, AttributeValue>> onFetched) {
+        if (!coalesceReads || Boolean.TRUE.equals(req.consistentRead())) {
+            var item = fetchItem(req, sample);
+            onFetched.accept(item);
+            return item;
+        }
+        var key = req.key();
+        var call = new CompletableFuture<Map<String, AttributeValue>>();
+        var inFlight = inFlightReads.putIfAbsent(key, call);
+        if (inFlight != null) {
+            return join(inFlight);
+        }
+        try {
+            var item = fetchItem(req, sample);
+            call.complete(item);
+            onFetched.accept(item);
+            return item;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightReads.remove(key, call);
+        }
+    }
+
+    /**
+     * @return item or empty map if the key has no item
+     */
+    private Map<String, AttributeValue> fetchItem(GetItemRequest req, OperationSample sample) {
+        try {
+            return send(sample, readRateLimiter, 1, () -> dynamoDb.getItem(req), response -> unitsOf(response.consumedCapacity()))
+                    .item();
+        } catch (RuntimeException e) {
+            throw exceptionMapper("Get Item").apply(e);
+        }
+    }
+
+
+    /**
+     * Get multiple entities using their keys. See {@link #getItems(Collection)}
+     *
+     * @param entitiesWithKeyFieldsPopulated
+     * @return found entities in the order of the given keys
+     */
+    public List<T> getEntities(Collection<T> entitiesWithKeyFieldsPopulated) throws TableDoesNotExistException {
+        return getItems(entitiesWithKeyFieldsPopulated.stream()
+                .map(this::entityToKeyAttributes)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Get multiple items using batch get item. Duplicate keys are fetched once, keys are split into chunks of 100
+     * which are fired concurrently using the batch executor and unprocessed keys are retried with jittered backoff.
+     *
+     * When caching is enabled, only the keys which are not cached are fetched.
+     *
+     * @param keys key attributes of the items to be fetched
+     * @return found entities in the order of the given keys, keys without items are skipped.
+     * @throws DataAccessException if some keys remain unprocessed after all the retries
+     */
+    public List<T> getItems(Collection<Map<String, AttributeValue>> keys) throws TableDoesNotExistException {
+        Objects.requireNonNull(keys);
+        var uniqueKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        if (uniqueKeys.isEmpty()) {
+            return List.of();
+        }
+        var itemsByKey = getItemsByKey(uniqueKeys);
+        return uniqueKeys.stream()
+                .map(itemsByKey::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param uniqueKeys distinct keys
+     * @return found entities by their key attributes
+     */
+    private Map<Map<String, AttributeValue>, T> getItemsByKey(List<Map<String, AttributeValue>> uniqueKeys) {
+        Map<Map<String, AttributeValue>, T> itemsByKey = new ConcurrentHashMap<>();
+        var cache = entityCache;
+        List<Map<String, AttributeValue>> keysToFetch = uniqueKeys;
+        if (cache != null) {
+            keysToFetch = new ArrayList<>();
+            for (Map<String, AttributeValue> key : uniqueKeys) {
+                var entry = cache.get(key);
+                if (entry == null) {
+                    keysToFetch.add(key);
+                } else if (!entry.isMissing()) {
+                    itemsByKey.put(key, convert(entry.getItem()));
+                }
+            }
+        }
+        if (!keysToFetch.isEmpty()) {
+            long stamp = cache != null ? cache.stamp() : 0;
+            forEachChunk(partition(keysToFetch, MAX_BATCH_GET_SIZE), chunk -> batchGetChunk(chunk, itemsByKey, cache, stamp));
+            if (cache != null) {
+                keysToFetch.stream()
+                        .filter(key -> !itemsByKey.containsKey(key))
+                        .forEach(key -> cache.put(key, null, stamp));
+            }
+        }
+        return itemsByKey;
+    }
+
+    private void batchGetChunk(List<Map<String, AttributeValue>> chunk, Map<Map<String, AttributeValue>, T> itemsByKey,
+                               EntityCache cache, long stamp) {
+        Map<String, KeysAndAttributes> pending = Map.of(tableName, KeysAndAttributes.builder().keys(chunk).build());
+        var limiter = readRateLimiter;
+        for (int attempt = 0; ; attempt++) {
+            final BatchGetItemResponse response;
+            var request = BatchGetItemRequest.builder()
+                    .requestItems(pending)
+                    .returnConsumedCapacity(returnsConsumedCapacity(limiter) ? ReturnConsumedCapacity.TOTAL : ReturnConsumedCapacity.NONE)
+                    .build();
+            int keyCount = pending.get(tableName).keys().size();
+            var sample = sample("Batch Get Item");
+            try {
+                try {
+                    response = send(sample, limiter, keyCount, () -> dynamoDb.batchGetItem(request), r -> unitsOf(r.consumedCapacity()));
+                } catch (RuntimeException e) {
+                    throw exceptionMapper("Batch Get Item").apply(e);
+                }
+                for (Map<String, AttributeValue> item : response.responses().getOrDefault(tableName, List.of())) {
+                    var key = keyAttributesOf(item);
+                    itemsByKey.put(key, sample.map(item, this::convert));
+                    if (cache != null) {
+                        cache.put(key, item, stamp);
+                    }
+                }
+            } finally {
+                sample.emit();
+            }
+            pending = response.unprocessedKeys();
+            if (isNullOrEmpty(pending)) {
+                return;
+            }
+            if (limiter != null) {
+                limiter.onThrottle();
+            }
+            if (attempt + 1 >= batchBackoff.getMaxAttempts()) {
+                throw new DataAccessException(format("'Batch Get Item' failed in '%s' table, %d keys remained unprocessed after %d attempts",
+                        tableName, pending.get(tableName).keys().size(), attempt + 1));
+            }
+            batchBackoff.pause(attempt);
+        }
+    }
+
+    private Map<String, AttributeValue> keyAttributesOf(Map<String, AttributeValue> item) {
+        String[] keyFieldNames = getSchema().keyNameArray();
+        Map<String, AttributeValue> key = new HashMap<>(keyFieldNames.length * 2);
+        for (String keyFieldName : keyFieldNames) {
+            key.put(keyFieldName, item.get(keyFieldName));
+        }
+        return key;
+    }
+
+    /**
+     * Runs the action for every chunk, in the calling thread if there is only one chunk else concurrently on the batch executor.
+     */
+    private <C> void forEachChunk(List<C> chunks, Consumer<C> action) {
+        if (chunks.size() == 1) {
+            action.accept(chunks.get(0));
+            return;
+        }
+        CompletableFuture<?>[] futures = chunks.stream()
+                .map(chunk -> CompletableFuture.runAsync(() -> action.accept(chunk), batchExecutor))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            Throwable cause = DaoExceptions.unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
     }
 
+    private static <E> List<List<E>> partition(List<E> elements, int size) {
+        List<List<E>> chunks = new ArrayList<>((elements.size() + size - 1) / size);
+        for (int from = 0; from < elements.size(); from += size) {
+            chunks.add(elements.subList(from, Math.min(elements.size(), from + size)));
+        }
+        return chunks;
+    }
 
     /**
      * @param scanBuilder  containing required filter expression and its values.
@@ -87,18 +509,13 @@ public abstract class DynamoDBBaseDao<T> {
         if (previousPage != null) {
             scanBuilder.exclusiveStartKey(previousPage.getLastEvaluatedKey());
         }
+        var sample = sample("Scan Item");
         try {
-            result = dynamoDb.scan(scanBuilder.build());
-        } catch (ResourceNotFoundException e) {
-            throw new TableDoesNotExistException(format(" `%s` table does not exist", tableName));
-        } catch (RuntimeException e) {
-            throw exceptionMapper("Scan Item").apply(e);
+            result = scan(scanBuilder.build(), sample);
+            return new PagedQueryResults<>(convertAll(result.items(), sample), result.lastEvaluatedKey());
+        } finally {
+            sample.emit();
         }
-        final List<T> items = result.items().stream()
-                .map(this::convert)
-                .collect(Collectors.toList());
-
-        return new PagedQueryResults<>(items, result.lastEvaluatedKey());
     }
 
     /**
@@ -109,14 +526,79 @@ public abstract class DynamoDBBaseDao<T> {
      * @throws TableDoesNotExistException
      */
     public List<T> scanAllItems(ScanRequest.Builder scanBuilder) throws TableDoesNotExistException {
+        return scanAllPages(scanBuilder.tableName(tableName).build());
+    }
+
+    /**
+     * Parallel variant of {@link #scanAllItems(ScanRequest.Builder)} running the segments on the batch executor.
+     *
+     * @see #scanAllItems(ScanRequest.Builder, int, Executor)
+     */
+    public List<T> scanAllItems(ScanRequest.Builder scanBuilder, int totalSegments) throws TableDoesNotExistException {
+        return scanAllItems(scanBuilder, totalSegments, batchExecutor);
+    }
+
+    /**
+     * Returns all the matching results by splitting the scan into the given number of segments, each segment is
+     * scanned and converted on the executor and the results are merged in the segment order.
+     *
+     * @param scanBuilder   scan request with all where clauses
+     * @param totalSegments number of segments the table should be divided into
+     * @param executor      executor running the segments, ie., a fork join pool or a dedicated pool sized to the segments
+     * @return list of all entities matching the criteria
+     * @throws TableDoesNotExistException
+     */
+    public List<T> scanAllItems(ScanRequest.Builder scanBuilder, int totalSegments, Executor executor) throws TableDoesNotExistException {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments should be at least 1");
+        }
+        Objects.requireNonNull(executor);
         var req = scanBuilder.tableName(tableName).build();
+        List<CompletableFuture<List<T>>> segments = new ArrayList<>(totalSegments);
+        for (int segment = 0; segment < totalSegments; segment++) {
+            var segmentReq = req.toBuilder()
+                    .segment(segment)
+                    .totalSegments(totalSegments)
+                    .build();
+            segments.add(CompletableFuture.supplyAsync(() -> scanAllPages(segmentReq), executor));
+        }
+        try {
+            List<T> items = new ArrayList<>();
+            for (CompletableFuture<List<T>> segment : segments) {
+                items.addAll(segment.join());
+            }
+            return items;
+        } catch (CompletionException e) {
+            segments.forEach(segment -> segment.cancel(false));
+            Throwable cause = DaoExceptions.unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private List<T> scanAllPages(ScanRequest req) {
+        List<T> items = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            var sample = sample("Scan Item");
+            try {
+                var result = scan(startKey == null ? req : req.toBuilder().exclusiveStartKey(startKey).build(), sample);
+                items.addAll(convertAll(result.items(), sample));
+                startKey = result.lastEvaluatedKey();
+            } finally {
+                sample.emit();
+            }
+        } while (!isNullOrEmpty(startKey));
+        return items;
+    }
+
+    private ScanResponse scan(ScanRequest req, OperationSample sample) {
+        var limiter = readRateLimiter;
+        var request = returnsConsumedCapacity(limiter) ? req.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build() : req;
         try {
-            return dynamoDb.scanPaginator(req)
-                    .stream()
-                    .flatMap(scanResponse -> scanResponse.items()
-                            .stream()
-                            .map(this::convert))
-                    .collect(Collectors.toList());
+            return send(sample, limiter, 1, () -> dynamoDb.scan(request), response -> unitsOf(response.consumedCapacity()));
         } catch (ResourceNotFoundException e) {
             throw new TableDoesNotExistException(format(" `%s` table does not exist", tableName));
         } catch (RuntimeException e) {
@@ -124,6 +606,166 @@ public abstract class DynamoDBBaseDao<T> {
         }
     }
 
+    /**
+     * Lazily streams all the matching results. Pages are fetched only when the consumer needs more items, so short
+     * circuiting operations like limit/findFirst don't fetch the remaining pages. Closing the stream stops any further fetch.
+     *
+     * @param scanBuilder scan request with all where clauses
+     * @return stream of entities matching the criteria, should be closed if not fully consumed
+     * @throws TableDoesNotExistException while consuming the stream, if the table doesn't exist
+     */
+    public Stream<T> streamAllItems(ScanRequest.Builder scanBuilder) {
+        return lazyStream(scanIterator(scanBuilder));
+    }
+
+    private Stream<T> lazyStream(LazyPageIterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Iterator variant of {@link #streamAllItems(ScanRequest.Builder)}
+     *
+     * @param scanBuilder scan request with all where clauses
+     * @return iterator fetching pages on demand
+     */
+    public Iterator<T> iterateAllItems(ScanRequest.Builder scanBuilder) {
+        return scanIterator(scanBuilder);
+    }
+
+    private LazyPageIterator<T> scanIterator(ScanRequest.Builder scanBuilder) {
+        var req = scanBuilder.tableName(tableName).build();
+        return new LazyPageIterator<>(startKey -> {
+            // items are converted lazily, so the mapping time is not part of the metrics
+            var sample = sample("Scan Item");
+            try {
+                var result = scan(startKey == null ? req : req.toBuilder().exclusiveStartKey(startKey).build(), sample);
+                return new PagedQueryResults<>(result.items(), result.lastEvaluatedKey());
+            } finally {
+                sample.emit();
+            }
+        }, this::convert);
+    }
+
+    /**
+     * @param queryBuilder containing required key condition expression and its values.
+     * @param pageSize     page size.
+     * @param previousPage if not null, uses to fetch next page of data.
+     * @return
+     */
+    public PagedQueryResults<T> queryItemsByPage(QueryRequest.Builder queryBuilder, int pageSize, PagedQueryResults<T> previousPage) throws TableDoesNotExistException {
+        queryBuilder.tableName(tableName)
+                .limit(pageSize);
+        if (previousPage != null) {
+            queryBuilder.exclusiveStartKey(previousPage.getLastEvaluatedKey());
+        }
+        var sample = sample("Query Item");
+        try {
+            var result = query(queryBuilder.build(), sample);
+            return new PagedQueryResults<>(convertAll(result.items(), sample), result.lastEvaluatedKey());
+        } finally {
+            sample.emit();
+        }
+    }
+
+    /**
+     * Lazily streams all the results of the query, pages are fetched only when the consumer needs more items.
+     *
+     * @param queryBuilder query request with key condition and filters
+     * @return stream of entities matching the criteria, should be closed if not fully consumed
+     */
+    public Stream<T> streamQueryItems(QueryRequest.Builder queryBuilder) {
+        var req = queryBuilder.tableName(tableName).build();
+        return lazyStream(new LazyPageIterator<>(startKey -> {
+            var sample = sample("Query Item");
+            try {
+                var result = query(startKey == null ? req : req.toBuilder().exclusiveStartKey(startKey).build(), sample);
+                return new PagedQueryResults<>(result.items(), result.lastEvaluatedKey());
+            } finally {
+                sample.emit();
+            }
+        }, this::convert));
+    }
+
+    /**
+     * Returns all the results of the query in a single shot. Internally might fire multiple API's to perform this operation.
+     *
+     * @param queryBuilder query request with key condition and filters
+     * @return list of all entities matching the criteria
+     */
+    public List<T> queryAllItems(QueryRequest.Builder queryBuilder) throws TableDoesNotExistException {
+        var req = queryBuilder.tableName(tableName).build();
+        List<T> items = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            var sample = sample("Query Item");
+            try {
+                var result = query(startKey == null ? req : req.toBuilder().exclusiveStartKey(startKey).build(), sample);
+                items.addAll(convertAll(result.items(), sample));
+                startKey = result.lastEvaluatedKey();
+            } finally {
+                sample.emit();
+            }
+        } while (!isNullOrEmpty(startKey));
+        return items;
+    }
+
+    /**
+     * Returns at most limit results of the query in the requested order of the range key.
+     *
+     * @param queryBuilder query request with key condition and filters
+     * @param ascending    order of the range key
+     * @param limit        maximum number of results, zero or negative for all the results
+     */
+    public List<T> queryItems(QueryRequest.Builder queryBuilder, boolean ascending, int limit) throws TableDoesNotExistException {
+        queryBuilder.scanIndexForward(ascending);
+        if (limit <= 0) {
+            return queryAllItems(queryBuilder);
+        }
+        try (Stream<T> items = streamQueryItems(queryBuilder.limit(limit))) {
+            return items.limit(limit).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Builds the key condition for the given partition key value
+     */
+    protected QueryRequest.Builder keyQuery(String hashKeyName, AttributeValue hashValue) {
+        return QueryRequest.builder()
+                .keyConditionExpression("#hk = :hk")
+                .expressionAttributeNames(Map.of("#hk", hashKeyName))
+                .expressionAttributeValues(Map.of(":hk", hashValue));
+    }
+
+    /**
+     * Builds the key condition for the given partition key value and the range key condition
+     *
+     * @param rangeCondition if null, only partition key is used
+     * @param encoder        converts the values of the range condition
+     */
+    protected <V> QueryRequest.Builder keyQuery(String hashKeyName, AttributeValue hashValue, String rangeKeyName,
+                                                RangeCondition<V> rangeCondition, Function<V, AttributeValue> encoder) {
+        if (rangeCondition == null) {
+            return keyQuery(hashKeyName, hashValue);
+        }
+        Map<String, AttributeValue> values = rangeCondition.values(":rk", encoder);
+        values.put(":hk", hashValue);
+        return QueryRequest.builder()
+                .keyConditionExpression("#hk = :hk AND " + rangeCondition.expression("#rk", ":rk"))
+                .expressionAttributeNames(Map.of("#hk", hashKeyName, "#rk", rangeKeyName))
+                .expressionAttributeValues(values);
+    }
+
+    private QueryResponse query(QueryRequest req, OperationSample sample) {
+        var limiter = readRateLimiter;
+        var request = returnsConsumedCapacity(limiter) ? req.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build() : req;
+        try {
+            return send(sample, limiter, 1, () -> dynamoDb.query(request), response -> unitsOf(response.consumedCapacity()));
+        } catch (RuntimeException e) {
+            throw exceptionMapper("Query Item").apply(e);
+        }
+    }
+
     /**
      * Inserts new entity
      *
@@ -132,7 +774,20 @@ public abstract class DynamoDBBaseDao<T> {
     public void insertEntity(T entity) {
         var builder = PutItemRequest.builder()
                 .item(convert(entity));
-        this.insertItem(builder, getKeyFieldNames());
+        this.insertItem(getSchema().applyKeyNotExists(builder));
+    }
+
+    /**
+     * Inserts new entity unless an item with the same key exists. Unlike {@link #insertEntity(Object)} an existing
+     * item is reported through the result, which avoids creating an exception when duplicates are expected.
+     *
+     * @param entity
+     * @return written result holding the entity, or condition failed if the key exists already
+     */
+    public ConditionalWriteResult<T> tryInsert(T entity) {
+        var builder = getSchema().applyKeyNotExists(PutItemRequest.builder()
+                .item(convert(entity)));
+        return putItem(builder, e -> null) == null ? ConditionalWriteResult.conditionFailed() : ConditionalWriteResult.written(entity);
     }
 
 
@@ -150,18 +805,37 @@ public abstract class DynamoDBBaseDao<T> {
         if (!isNullOrEmpty(keyFieldNames)) {
             putItemBuilder.conditionExpression(attributeNotExists(keyFieldNames));
         }
-        return putItem(putItemBuilder);
+        return putItem(putItemBuilder, this::couldNotInsert);
+    }
+
+    private PutItemResponse couldNotInsert(ConditionalCheckFailedException e) {
+        var format = format(" Create Item failed in '%s' table due to conditional checks '%s'", tableName, e.getMessage());
+        throw new CouldNotInsertException(format);
     }
 
-    private PutItemResponse putItem(PutItemRequest.Builder putItemBuilder) {
+    /**
+     * @param onConditionFailed result to return, or exception to throw, when the conditional checks fail
+     */
+    private PutItemResponse putItem(PutItemRequest.Builder putItemBuilder,
+                                    Function<ConditionalCheckFailedException, PutItemResponse> onConditionFailed) {
+        var limiter = writeRateLimiter;
+        if (returnsConsumedCapacity(limiter)) {
+            putItemBuilder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
         var putItemRequest = putItemBuilder.tableName(tableName).build();
+        var sample = sample("Create Item");
         try {
-            return dynamoDb.putItem(putItemRequest);
+            return send(sample, limiter, 1, () -> dynamoDb.putItem(putItemRequest), response -> unitsOf(response.consumedCapacity()));
         } catch (ConditionalCheckFailedException e) {
-            var format = format(" Create Item failed in '%s' table due to conditional checks '%s'", tableName, e.getMessage());
-            throw new CouldNotInsertException(format);
+            return onConditionFailed.apply(e);
         } catch (RuntimeException e) {
             throw exceptionMapper("Create Item").apply(e);
+        } finally {
+            sample.emit();
+            var cache = entityCache;
+            if (cache != null) {
+                cache.invalidate(keyAttributesOf(putItemRequest.item()));
+            }
         }
     }
 
@@ -172,8 +846,20 @@ public abstract class DynamoDBBaseDao<T> {
      * @return
      */
     public T replaceEntity(T newerValue) {
-        return convert(this.replaceItem(PutItemRequest.builder()
-                .item(convert(newerValue)), this.getKeyFieldNames()).attributes());
+        return convert(this.replaceItem(getSchema().applyKeyExists(PutItemRequest.builder()
+                .item(convert(newerValue)))).attributes());
+    }
+
+    /**
+     * Replaces an existing entity. Unlike {@link #replaceEntity(Object)} a missing item is reported through the result.
+     *
+     * @param newerValue
+     * @return written result holding the newer value, or condition failed if there is no item with the same key
+     */
+    public ConditionalWriteResult<T> tryReplace(T newerValue) {
+        var builder = getSchema().applyKeyExists(PutItemRequest.builder()
+                .item(convert(newerValue)));
+        return putItem(builder, e -> null) == null ? ConditionalWriteResult.conditionFailed() : ConditionalWriteResult.written(newerValue);
     }
 
     /**
@@ -190,7 +876,7 @@ public abstract class DynamoDBBaseDao<T> {
         if (!isNullOrEmpty(keyFieldNames)) {
             putItemBuilder.conditionExpression(attributeExists(keyFieldNames));
         }
-        return putItem(putItemBuilder);
+        return putItem(putItemBuilder, this::couldNotInsert);
     }
 
     /**
@@ -208,23 +894,110 @@ public abstract class DynamoDBBaseDao<T> {
         if (!isNullOrEmpty(keyFieldNames)) {
             builder.conditionExpression(attributeExists(keyFieldNames));
         }
+        var limiter = writeRateLimiter;
+        if (returnsConsumedCapacity(limiter)) {
+            builder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
         var req = builder.build();
+        var sample = sample("Update Item");
         try {
-            var updateResponse = dynamoDb.updateItem(req);
-            return convert(updateResponse.attributes());
+            var updateResponse = send(sample, limiter, 1, () -> dynamoDb.updateItem(req), response -> unitsOf(response.consumedCapacity()));
+            return sample.map(updateResponse.attributes(), this::convert);
         } catch (ConditionalCheckFailedException e) {
             var format = format(" Update Item failed in '%s' table due to conditional checks '%s'", tableName, e.getMessage());
             throw new CouldNotUpdateException(format);
         } catch (RuntimeException e) {
             throw exceptionMapper("Update Item").apply(e);
+        } finally {
+            sample.emit();
+            invalidateCached(req.key());
+        }
+    }
+
+    /**
+     * Saves only the attributes which differ between the original and the modified entity, using update item with SET
+     * and REMOVE clauses instead of replacing the whole item. Nothing is written when no attribute changed.
+     *
+     * @param original snapshot of the stored entity, see {@link #snapshot(Object)}. Must not share mutable fields, ie., lists, with the modified entity
+     * @param modified entity holding newer values, with the same key as the original
+     * @return entity with updated values, the modified entity if nothing changed
+     * @throws CouldNotUpdateException if the item doesn't exist
+     */
+    public T saveChanges(T original, T modified) throws CouldNotUpdateException, TableDoesNotExistException {
+        Map<String, AttributeValue> key = entityToKeyAttributes(modified);
+        if (!key.equals(entityToKeyAttributes(original))) {
+            throw new IllegalArgumentException("Original and modified entities should have the same key");
         }
+        var changes = changedAttributes(original, modified);
+        if (changes.isEmpty()) {
+            return modified;
+        }
+        return updateItem(ItemChanges.toUpdate(key, changes, getSchema()));
+    }
+
+    /**
+     * Deep copy of the entity made through the mapper, to be kept as the original of {@link #saveChanges(Object, Object)}
+     */
+    public T snapshot(T entity) {
+        return convert(convert(entity));
+    }
+
+    /**
+     * Adds the delta to a numeric field through a single update item, <code>ADD #f :v</code>, without reading the item,
+     * so concurrent increments aren't lost. A missing attribute is taken as 0.
+     *
+     * @param entityWithKeyFields entity holding the key of the item, other fields are ignored
+     * @param field               numeric field, ie., MovieFields.VIEW_COUNT
+     * @param delta               negative to decrement
+     * @return entity with the values after the update
+     * @throws CouldNotUpdateException if the item doesn't exist
+     */
+    public T increment(T entityWithKeyFields, EntityField<? extends Number> field, Number delta) throws CouldNotUpdateException, TableDoesNotExistException {
+        return updateItem(ItemChanges.toMutation("ADD", entityToKeyAttributes(entityWithKeyFields), field,
+                ItemChanges.numberOperand(delta), getSchema()));
+    }
+
+    /**
+     * Adds the values to a set field through a single update item, <code>ADD #f :v</code>, without reading the item.
+     * The field should be stored as native set, see DynamoField#nativeSet.
+     *
+     * @param values non empty strings or numbers
+     * @return entity with the values after the update
+     * @throws CouldNotUpdateException if the item doesn't exist
+     */
+    public <V> T addToSet(T entityWithKeyFields, EntityField<? extends Set<V>> field, Collection<? extends V> values) throws CouldNotUpdateException, TableDoesNotExistException {
+        return updateItem(ItemChanges.toMutation("ADD", entityToKeyAttributes(entityWithKeyFields), field,
+                ItemChanges.setOperand(values), getSchema()));
+    }
+
+    /**
+     * Removes the values from a set field through a single update item, <code>DELETE #f :v</code>. The attribute is
+     * removed once the set becomes empty.
+     *
+     * @see #addToSet(Object, EntityField, Collection)
+     */
+    public <V> T removeFromSet(T entityWithKeyFields, EntityField<? extends Set<V>> field, Collection<? extends V> values) throws CouldNotUpdateException, TableDoesNotExistException {
+        return updateItem(ItemChanges.toMutation("DELETE", entityToKeyAttributes(entityWithKeyFields), field,
+                ItemChanges.setOperand(values), getSchema()));
     }
 
     public T deleteEntity(T entityWithKeyFields) {
         Map<String, AttributeValue> convert = this.entityToKeyAttributes(entityWithKeyFields);
-        return this.deleteItem(DeleteItemRequest.builder()
-                        .key(convert)
-                , this.getKeyFieldNames());
+        return this.deleteItem(getSchema().applyKeyExists(DeleteItemRequest.builder()
+                .key(convert)));
+    }
+
+    /**
+     * Deletes an existing entity. Unlike {@link #deleteEntity(Object)} a missing item is reported through the result.
+     *
+     * @param entityWithKeyFields
+     * @return written result holding the deleted entity, or condition failed if there is no item with the same key
+     */
+    public ConditionalWriteResult<T> tryDelete(T entityWithKeyFields) {
+        var builder = getSchema().applyKeyExists(DeleteItemRequest.builder()
+                .key(this.entityToKeyAttributes(entityWithKeyFields)));
+        T deleted = deleteItem(builder, e -> null);
+        return deleted == null ? ConditionalWriteResult.conditionFailed() : ConditionalWriteResult.written(deleted);
     }
 
     /**
@@ -236,39 +1009,307 @@ public abstract class DynamoDBBaseDao<T> {
      * @return
      */
     public T deleteItem(DeleteItemRequest.Builder builder, String... keyFieldNames) throws CouldNotDeleteException, TableDoesNotExistException {
-        builder.returnValues(ReturnValue.ALL_OLD).tableName(tableName);
         if (!isNullOrEmpty(keyFieldNames)) {
             builder.conditionExpression(attributeExists(keyFieldNames));
         }
+        return deleteItem(builder, e -> {
+            var format = format(" Delete Item failed in '%s' table due to conditional checks '%s'", tableName, e.getMessage());
+            throw new CouldNotDeleteException(format);
+        });
+    }
+
+    /**
+     * @param onConditionFailed result to return, or exception to throw, when the conditional checks fail
+     */
+    private T deleteItem(DeleteItemRequest.Builder builder, Function<ConditionalCheckFailedException, T> onConditionFailed) {
+        builder.returnValues(ReturnValue.ALL_OLD).tableName(tableName);
+        var limiter = writeRateLimiter;
+        if (returnsConsumedCapacity(limiter)) {
+            builder.returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
         var req = builder.build();
+        var sample = sample("Delete Item");
         try {
-            var response = dynamoDb.deleteItem(req);
-            return convert(response.attributes());
+            var response = send(sample, limiter, 1, () -> dynamoDb.deleteItem(req), r -> unitsOf(r.consumedCapacity()));
+            return sample.map(response.attributes(), this::convert);
         } catch (ConditionalCheckFailedException e) {
-            var format = format(" Delete Item failed in '%s' table due to conditional checks '%s'", tableName, e.getMessage());
-            throw new CouldNotDeleteException(format);
+            return onConditionFailed.apply(e);
         } catch (RuntimeException e) {
-            throw exceptionMapper("Update Item").apply(e);
+            throw exceptionMapper("Delete Item").apply(e);
+        } finally {
+            sample.emit();
+            invalidateCached(req.key());
         }
     }
 
-    protected Function<RuntimeException, ? extends DataAccessException> exceptionMapper(String operation) {
-        return e -> {
-            if (e instanceof ResourceNotFoundException || e instanceof TableNotFoundException) {
-                return new TableDoesNotExistException(format(" `%s` table does not exist. '%s'", tableName, e.getMessage()));
-            } else if (e instanceof ResourceInUseException || e instanceof TableAlreadyExistsException) {
-                return new TableExistsException(format(" `%s` table already exist. '%s'", tableName, e.getMessage()));
-            } else if (e instanceof DynamoDbException) {
-                var format = format("'%s' failed in '%s' table due to %s", operation, tableName, e.getMessage());
-                return new DataAccessException(format, e);
-            } else if (e instanceof SdkException) {
-                var format = format("'%s' failed in '%s' table due to infrastructure issue %s", operation, tableName, e.getMessage());
-                return new DataAccessException(format, e);
-            } else {
-                var format = format("'%s' failed in '%s' table due to unexpected exception. Error Message is: %s", operation, tableName, e.getMessage());
-                return new DataAccessException(format, e);
+    /**
+     * Inserts multiple entities using batch write item.
+     * Batch writes don't support conditional checks, so unlike {@link #insertEntity(Object)} an existing item with the same key is overwritten.
+     *
+     * @param entities entities to be inserted, when keys repeat only the last entity is written
+     * @return report of entities which couldn't be written
+     */
+    public BatchWriteResult<T> insertEntities(Collection<T> entities) {
+        return writeEntities(entities, this::putRequestOf);
+    }
+
+    /**
+     * Replaces multiple entities using batch write item.
+     * Batch writes don't support conditional checks, so unlike {@link #replaceEntity(Object)} missing items are created.
+     *
+     * @param entities entities holding newer values, when keys repeat only the last entity is written
+     * @return report of entities which couldn't be written
+     */
+    public BatchWriteResult<T> replaceEntities(Collection<T> entities) {
+        return insertEntities(entities);
+    }
+
+    /**
+     * Deletes multiple entities using batch write item. Deleting a non existing item is not reported as failure.
+     *
+     * @param entitiesWithKeyFields
+     * @return report of entities which couldn't be deleted
+     */
+    public BatchWriteResult<T> deleteEntities(Collection<T> entitiesWithKeyFields) {
+        return writeEntities(entitiesWithKeyFields, this::deleteRequestOf);
+    }
+
+    /**
+     * Creates a writer which buffers puts and deletes and writes them in the background using batch write item.
+     * Like {@link #insertEntities(Collection)}, the writes are unconditional.
+     *
+     * @param capacity        maximum number of buffered writes, callers block once the buffer is full
+     * @param flushSize       number of buffered writes that triggers a flush
+     * @param flushInterval   maximum time a write stays buffered
+     * @param failureListener receives the report of every flush which couldn't write some of the entities
+     * @return writer, to be closed to write the buffered entities and stop the background thread
+     */
+    public WriteBehindWriter<T> writeBehind(int capacity, int flushSize, Duration flushInterval,
+                                            Consumer<BatchWriteResult<T>> failureListener) {
+        return new WriteBehindWriter<>(this, capacity, flushSize, flushInterval, failureListener);
+    }
+
+    WriteRequest putRequestOf(T entity) {
+        return WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(convert(entity)).build())
+                .build();
+    }
+
+    WriteRequest deleteRequestOf(T entityWithKeyFields) {
+        return WriteRequest.builder()
+                .deleteRequest(DeleteRequest.builder().key(entityToKeyAttributes(entityWithKeyFields)).build())
+                .build();
+    }
+
+    private BatchWriteResult<T> writeEntities(Collection<T> entities, Function<T, WriteRequest> toWriteRequest) {
+        Objects.requireNonNull(entities);
+        List<Map.Entry<T, WriteRequest>> writes = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            writes.add(Map.entry(entity, toWriteRequest.apply(entity)));
+        }
+        return writeRequests(writes);
+    }
+
+    /**
+     * Splits the writes into chunks of at most 25 requests and 16 MB, fires the chunks concurrently using the batch
+     * executor and re-drives unprocessed items with jittered backoff.
+     *
+     * @param writes entities along with their put/delete requests, in the order they are issued
+     */
+    BatchWriteResult<T> writeRequests(List<Map.Entry<T, WriteRequest>> writes) {
+        // batch write rejects duplicate keys, retain the last write of every key
+        Map<Map<String, AttributeValue>, Map.Entry<T, WriteRequest>> writesByKey = new LinkedHashMap<>();
+        for (Map.Entry<T, WriteRequest> write : writes) {
+            var key = keyAttributesOf(write.getValue());
+            writesByKey.remove(key);
+            writesByKey.put(key, write);
+        }
+
+        List<List<Map.Entry<T, WriteRequest>>> chunks = new ArrayList<>();
+        List<Map.Entry<T, WriteRequest>> chunk = new ArrayList<>(MAX_BATCH_WRITE_SIZE);
+        long chunkBytes = 0;
+        for (Map.Entry<T, WriteRequest> write : writesByKey.values()) {
+            long writeBytes = write.getValue().putRequest() != null
+                    ? ItemSizes.of(write.getValue().putRequest().item())
+                    : ItemSizes.of(write.getValue().deleteRequest().key());
+            if (chunk.size() == MAX_BATCH_WRITE_SIZE || (!chunk.isEmpty() && chunkBytes + writeBytes > MAX_BATCH_WRITE_BYTES)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(MAX_BATCH_WRITE_SIZE);
+                chunkBytes = 0;
+            }
+            chunk.add(write);
+            chunkBytes += writeBytes;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        BatchWriteResult<T> result = new BatchWriteResult<>();
+        if (!chunks.isEmpty()) {
+            try {
+                forEachChunk(chunks, writes -> batchWriteChunk(writes, result));
+            } finally {
+                var cache = entityCache;
+                if (cache != null) {
+                    writesByKey.keySet().forEach(cache::invalidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void batchWriteChunk(List<Map.Entry<T, WriteRequest>> writes, BatchWriteResult<T> result) {
+        Map<Map<String, AttributeValue>, T> unwritten = new HashMap<>(writes.size() * 2);
+        List<WriteRequest> requests = new ArrayList<>(writes.size());
+        for (Map.Entry<T, WriteRequest> write : writes) {
+            unwritten.put(keyAttributesOf(write.getValue()), write.getKey());
+            requests.add(write.getValue());
+        }
+        Map<String, List<WriteRequest>> pending = Map.of(tableName, requests);
+        var limiter = writeRateLimiter;
+        try {
+            for (int attempt = 0; ; attempt++) {
+                final BatchWriteItemResponse response;
+                var request = BatchWriteItemRequest.builder()
+                        .requestItems(pending)
+                        .returnConsumedCapacity(returnsConsumedCapacity(limiter) ? ReturnConsumedCapacity.TOTAL : ReturnConsumedCapacity.NONE)
+                        .build();
+                int writeCount = pending.get(tableName).size();
+                var sample = sample("Batch Write Item");
+                try {
+                    response = send(sample, limiter, writeCount, () -> dynamoDb.batchWriteItem(request), r -> unitsOf(r.consumedCapacity()));
+                } catch (RuntimeException e) {
+                    throw exceptionMapper("Batch Write Item").apply(e);
+                } finally {
+                    sample.emit();
+                }
+                pending = response.unprocessedItems();
+                Set<Map<String, AttributeValue>> unprocessedKeys = new HashSet<>();
+                pending.getOrDefault(tableName, List.of())
+                        .forEach(request -> unprocessedKeys.add(keyAttributesOf(request)));
+                int before = unwritten.size();
+                unwritten.keySet().retainAll(unprocessedKeys);
+                result.written(before - unwritten.size());
+                if (unwritten.isEmpty()) {
+                    return;
+                }
+                if (limiter != null) {
+                    limiter.onThrottle();
+                }
+                if (attempt + 1 >= batchBackoff.getMaxAttempts()) {
+                    result.failed(unwritten.values(), null);
+                    return;
+                }
+                batchBackoff.pause(attempt);
+            }
+        } catch (RuntimeException e) {
+            result.failed(unwritten.values(), e);
+        }
+    }
+
+    private Map<String, AttributeValue> keyAttributesOf(WriteRequest request) {
+        return keyAttributesOf(request.putRequest() != null ? request.putRequest().item() : request.deleteRequest().key());
+    }
+
+    /**
+     * Sends the call through the rate limiter if there is one, retrying the call while it is throttled.
+     * Without a limiter the call is sent as is. Network time and consumed capacity are recorded in the sample.
+     *
+     * @param estimatedUnits capacity units acquired before the call
+     * @param consumedUnits  extracts the units actually consumed from the response
+     */
+    private <R> R send(OperationSample sample, AdaptiveRateLimiter limiter, double estimatedUnits, Supplier<R> call,
+                       ToDoubleFunction<R> consumedUnits) {
+        for (int attempt = 0; ; attempt++) {
+            if (limiter != null) {
+                limiter.acquire(estimatedUnits);
+            }
+            try {
+                R response = sample.network(call);
+                double consumed = consumedUnits.applyAsDouble(response);
+                if (!Double.isNaN(consumed)) {
+                    sample.consumedCapacity(consumed);
+                }
+                if (limiter != null) {
+                    limiter.onSuccess(estimatedUnits, Double.isNaN(consumed) ? estimatedUnits : consumed);
+                }
+                return response;
+            } catch (ProvisionedThroughputExceededException e) {
+                if (limiter == null) {
+                    throw e;
+                }
+                limiter.onThrottle();
+                if (attempt + 1 >= throttleBackoff.getMaxAttempts()) {
+                    throw e;
+                }
+                throttleBackoff.pause(attempt);
+            }
+        }
+    }
+
+    /**
+     * @return capacity units or NaN if consumed capacity is not returned
+     */
+    private static double unitsOf(ConsumedCapacity consumedCapacity) {
+        return consumedCapacity == null || consumedCapacity.capacityUnits() == null ? Double.NaN : consumedCapacity.capacityUnits();
+    }
+
+    private static double unitsOf(List<ConsumedCapacity> consumedCapacities) {
+        if (consumedCapacities.isEmpty()) {
+            return Double.NaN;
+        }
+        double units = 0;
+        for (ConsumedCapacity consumedCapacity : consumedCapacities) {
+            if (consumedCapacity.capacityUnits() != null) {
+                units += consumedCapacity.capacityUnits();
             }
-        };
+        }
+        return units;
+    }
+
+    /**
+     * Consumed capacity is requested when it is fed back to the rate limiter or reported to the metrics listener
+     */
+    private boolean returnsConsumedCapacity(AdaptiveRateLimiter limiter) {
+        return limiter != null || metricsListener != MetricsListener.NONE;
+    }
+
+    private OperationSample sample(String operation) {
+        return new OperationSample(metricsListener, tableName, operation);
+    }
+
+    private List<T> convertAll(List<Map<String, AttributeValue>> items, OperationSample sample) {
+        List<T> entities = new ArrayList<>(items.size());
+        for (Map<String, AttributeValue> item : items) {
+            entities.add(sample.map(item, this::convert));
+        }
+        return entities;
+    }
+
+    /**
+     * Waits for the future, rethrowing its failure without the completion wrapper
+     */
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = DaoExceptions.unwrap(e);
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+        }
+    }
+
+    /**
+     * Only for keys at hand, paths which have to build the key check the cache first
+     */
+    private void invalidateCached(Map<String, AttributeValue> key) {
+        var cache = entityCache;
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    protected Function<RuntimeException, ? extends DataAccessException> exceptionMapper(String operation) {
+        return DaoExceptions.exceptionMapper(operation, tableName);
     }
 
     protected abstract T convert(Map<String, AttributeValue> item);
@@ -277,13 +1318,43 @@ public abstract class DynamoDBBaseDao<T> {
 
     protected abstract String[] getKeyFieldNames();
 
+    /**
+     * Attributes which differ between the entities, with null value for the removed ones. Key attributes are not compared.
+     * Compares the encoded entities, generated daos override it with the field by field comparison of their mapper,
+     * ie., MovieMapper#movieChanges.
+     */
+    protected Map<String, AttributeValue> changedAttributes(T original, T modified) {
+        return ItemChanges.diff(convert(original), convert(modified), getSchema());
+    }
+
+    /**
+     * Schema of the entity, generated daos return the generated one, ie., MovieSchema.SCHEMA. Otherwise it is derived
+     * from {@link #getKeyFieldNames()} on first use.
+     */
+    protected EntitySchema getSchema() {
+        var current = schema;
+        if (current == null) {
+            current = EntitySchema.of(tableName, getKeyFieldNames());
+            schema = current;
+        }
+        return current;
+    }
+
     protected String attributeNotExists(String... fieldNames) {
+        var current = getSchema();
+        if (current.keyConditionNames().isEmpty() && current.isKeyNames(fieldNames)) {
+            return current.keyNotExistsCondition();
+        }
         return Stream.of(fieldNames)
                 .map(name -> format("attribute_not_exists( %s)", name))
                 .collect(Collectors.joining(" AND "));
     }
 
     protected String attributeExists(String... fieldNames) {
+        var current = getSchema();
+        if (current.keyConditionNames().isEmpty() && current.isKeyNames(fieldNames)) {
+            return current.keyExistsCondition();
+        }
         return Stream.of(fieldNames)
                 .map(name -> format("attribute_exists( %s)", name))
                 .collect(Collectors.joining(" AND "));
@@ -0,0 +1,179 @@
+package com.ttkey.dynamodb.dao;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded read-through cache of items keyed by their key attributes, see {@link DynamoDBBaseDao#setEntityCache(EntityCache)}.
+ * Least recently used items are evicted once the cache is full and items expire after the time to live.
+ * Optionally, keys without items are remembered for a shorter time so that repeated lookups of missing keys don't
+ * reach the table.
+ * <p>
+ * Items are held as attribute maps and converted on every hit, so callers never share a mutable entity.
+ */
+public class EntityCache {
+
+    private static final Map<String, AttributeValue> MISSING = Map.of();
+
+    // invalidations remembered per key, older ones raise the floor once evicted
+    private static final int MAX_INVALIDATION_RECORDS = 1024;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long missTtlNanos;
+    private final LinkedHashMap<Map<String, AttributeValue>, Entry> entries;
+    private final LinkedHashMap<Map<String, AttributeValue>, Long> invalidatedAt;
+    // incremented on every invalidation, stamps are taken from it
+    private long clock;
+    // fills stamped before the floor are dropped
+    private long floor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Cache without negative caching
+     */
+    public EntityCache(int maxEntries, Duration timeToLive) {
+        this(maxEntries, timeToLive, Duration.ZERO);
+    }
+
+    /**
+     * @param maxEntries     maximum number of keys held
+     * @param timeToLive     time for which an item is served from cache
+     * @param missTimeToLive time for which a missing item is remembered, zero to disable negative caching
+     */
+    public EntityCache(int maxEntries, Duration timeToLive, Duration missTimeToLive) {
+        if (maxEntries < 1 || timeToLive.isNegative() || timeToLive.isZero() || missTimeToLive.isNegative()) {
+            throw new IllegalArgumentException("maxEntries and timeToLive should be positive, missTimeToLive can't be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = timeToLive.toNanos();
+        this.missTtlNanos = missTimeToLive.toNanos();
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024) * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Map<String, AttributeValue>, Entry> eldest) {
+                if (size() > EntityCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.invalidatedAt = new LinkedHashMap<>(64) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Map<String, AttributeValue>, Long> eldest) {
+                if (size() > MAX_INVALIDATION_RECORDS) {
+                    floor = Math.max(floor, eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return cached entry or null if the key is not cached or has expired
+     */
+    synchronized Entry get(Map<String, AttributeValue> key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key);
+            evictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Stamp to be taken before reading from the table and passed to {@link #put(Map, Map, long)}
+     */
+    synchronized long stamp() {
+        return clock;
+    }
+
+    /**
+     * Caches the item read from the table. The item is dropped if its key was invalidated since the stamp was taken,
+     * as the read may have raced with a write. Invalidations of other keys don't affect the item.
+     *
+     * @param item item or null if the key has no item
+     */
+    synchronized void put(Map<String, AttributeValue> key, Map<String, AttributeValue> item, long stamp) {
+        if (stamp < floor || (item == null && missTtlNanos == 0)) {
+            return;
+        }
+        Long invalidation = invalidatedAt.get(key);
+        if (invalidation != null && invalidation > stamp) {
+            return;
+        }
+        long ttl = item == null ? missTtlNanos : ttlNanos;
+        entries.put(key, new Entry(item == null ? MISSING : item, System.nanoTime() + ttl));
+    }
+
+    /**
+     * Drops the cached item of the key, to be called when the item is written by other means than the DAO.
+     */
+    public synchronized void invalidate(Map<String, AttributeValue> key) {
+        Objects.requireNonNull(key);
+        clock++;
+        // re-inserted, so the records stay ordered by their invalidation
+        invalidatedAt.remove(key);
+        invalidatedAt.put(key, clock);
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        clock++;
+        floor = clock;
+        invalidatedAt.clear();
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of items removed due to size limit or expiry
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    static final class Entry {
+        private final Map<String, AttributeValue> item;
+        private final long expiresAt;
+
+        private Entry(Map<String, AttributeValue> item, long expiresAt) {
+            this.item = item;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isMissing() {
+            return item == MISSING;
+        }
+
+        Map<String, AttributeValue> getItem() {
+            return item;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ttkey.dynamodb.dao;
+
+import java.util.Objects;
+
+/**
+ * Typed reference to an attribute of an entity. Constants of this type are generated for every entity,
+ * ie., <code>MovieFields.TITLE</code>, and used to build projections and typed updates.
+ *
+ * @param <V> java type of the field
+ */
+public final class EntityField<V> {
+
+    private final String attributeName;
+
+    public EntityField(String attributeName) {
+        this.attributeName = Objects.requireNonNull(attributeName);
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return attributeName.equals(((EntityField<?>) o).attributeName);
+    }
+
+    @Override
+    public int hashCode() {
+        return attributeName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return attributeName;
+    }
+}
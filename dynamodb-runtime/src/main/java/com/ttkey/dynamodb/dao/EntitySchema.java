@@ -0,0 +1,155 @@
+package com.ttkey.dynamodb.dao;
+
+import com.ttkey.dynamodb.utils.ReservedWords;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.*;
+
+/**
+ * Table and attribute names of an entity along with the key conditions derived from them, built once so that requests
+ * don't rebuild them on every call. Generated for every entity, ie., <code>MovieSchema.SCHEMA</code>.
+ * <p>
+ * When a key name is a reserved word, or isn't valid in expressions, key conditions refer the keys through expression
+ * attribute names #hk and #rk, same as the key conditions of queries. Instances are immutable.
+ */
+public final class EntitySchema {
+
+    private final String tableName;
+    private final String hashKeyName;
+    private final String rangeKeyName;
+    private final String[] keyNames;
+    private final List<String> keyNameList;
+    private final Set<String> attributeNames;
+    private final String keyExistsCondition;
+    private final String keyNotExistsCondition;
+    private final Map<String, String> keyConditionNames;
+
+    /**
+     * @param rangeKeyName   null if the table has only hash key
+     * @param attributeNames names of all the attributes of the entity
+     */
+    public EntitySchema(String tableName, String hashKeyName, String rangeKeyName, Collection<String> attributeNames) {
+        this.tableName = Objects.requireNonNull(tableName);
+        this.hashKeyName = Objects.requireNonNull(hashKeyName);
+        this.rangeKeyName = rangeKeyName;
+        this.keyNames = rangeKeyName == null ? new String[]{hashKeyName} : new String[]{hashKeyName, rangeKeyName};
+        this.keyNameList = List.of(keyNames);
+        Set<String> names = new LinkedHashSet<>(keyNameList);
+        names.addAll(attributeNames);
+        this.attributeNames = Collections.unmodifiableSet(names);
+
+        boolean escaped = ReservedWords.needsEscaping(hashKeyName) || (rangeKeyName != null && ReservedWords.needsEscaping(rangeKeyName));
+        String hashRef = escaped ? "#hk" : hashKeyName;
+        String rangeRef = escaped ? "#rk" : rangeKeyName;
+        this.keyExistsCondition = keyCondition("attribute_exists", hashRef, rangeRef);
+        this.keyNotExistsCondition = keyCondition("attribute_not_exists", hashRef, rangeRef);
+        if (!escaped) {
+            this.keyConditionNames = Map.of();
+        } else if (rangeKeyName == null) {
+            this.keyConditionNames = Map.of("#hk", hashKeyName);
+        } else {
+            this.keyConditionNames = Map.of("#hk", hashKeyName, "#rk", rangeKeyName);
+        }
+    }
+
+    /**
+     * Schema of a dao which isn't generated, knowing only the key names
+     *
+     * @param keyNames hash key name followed by the range key name if any
+     */
+    static EntitySchema of(String tableName, String[] keyNames) {
+        return new EntitySchema(tableName, keyNames[0], keyNames.length > 1 ? keyNames[1] : null, List.of());
+    }
+
+    private static String keyCondition(String function, String hashRef, String rangeRef) {
+        String condition = function + "(" + hashRef + ")";
+        return rangeRef == null ? condition : condition + " AND " + function + "(" + rangeRef + ")";
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public String hashKeyName() {
+        return hashKeyName;
+    }
+
+    /**
+     * @return null if the table has only hash key
+     */
+    public String rangeKeyName() {
+        return rangeKeyName;
+    }
+
+    /**
+     * @return hash key name followed by the range key name if any
+     */
+    public List<String> keyNames() {
+        return keyNameList;
+    }
+
+    /**
+     * @return key names shared by all the callers, must not be modified
+     */
+    String[] keyNameArray() {
+        return keyNames;
+    }
+
+    public boolean isKey(String attributeName) {
+        return hashKeyName.equals(attributeName) || attributeName.equals(rangeKeyName);
+    }
+
+    boolean isKeyNames(String[] names) {
+        return Arrays.equals(keyNames, names);
+    }
+
+    /**
+     * @return names of all the attributes, key names first
+     */
+    public Set<String> attributeNames() {
+        return attributeNames;
+    }
+
+    /**
+     * @return condition satisfied if the item exists, ie., <code>attribute_exists(yr) AND attribute_exists(title)</code>
+     */
+    public String keyExistsCondition() {
+        return keyExistsCondition;
+    }
+
+    public String keyNotExistsCondition() {
+        return keyNotExistsCondition;
+    }
+
+    /**
+     * @return expression attribute names referred by the key conditions, empty if the key names aren't escaped
+     */
+    public Map<String, String> keyConditionNames() {
+        return keyConditionNames;
+    }
+
+    /**
+     * Sets the condition and its names, should be applied on builders without expression attribute names
+     */
+    public PutItemRequest.Builder applyKeyNotExists(PutItemRequest.Builder builder) {
+        builder.conditionExpression(keyNotExistsCondition);
+        return keyConditionNames.isEmpty() ? builder : builder.expressionAttributeNames(keyConditionNames);
+    }
+
+    public PutItemRequest.Builder applyKeyExists(PutItemRequest.Builder builder) {
+        builder.conditionExpression(keyExistsCondition);
+        return keyConditionNames.isEmpty() ? builder : builder.expressionAttributeNames(keyConditionNames);
+    }
+
+    public DeleteItemRequest.Builder applyKeyExists(DeleteItemRequest.Builder builder) {
+        builder.conditionExpression(keyExistsCondition);
+        return keyConditionNames.isEmpty() ? builder : builder.expressionAttributeNames(keyConditionNames);
+    }
+
+    public UpdateItemRequest.Builder applyKeyExists(UpdateItemRequest.Builder builder) {
+        builder.conditionExpression(keyExistsCondition);
+        return keyConditionNames.isEmpty() ? builder : builder.expressionAttributeNames(keyConditionNames);
+    }
+}
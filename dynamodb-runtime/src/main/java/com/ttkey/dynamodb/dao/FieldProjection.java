@@ -0,0 +1,101 @@
+package com.ttkey.dynamodb.dao;
+
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import java.util.*;
+
+/**
+ * Projection expression built from entity fields. Attribute names are always referred through expression attribute
+ * names (#p0, #p1 ...) so reserved words can be projected. Instances are immutable and can be kept as constants.
+ */
+public final class FieldProjection {
+
+    private final String expression;
+    private final Map<String, String> names;
+    private final Set<String> attributeNames;
+
+    private FieldProjection(String expression, Map<String, String> names, Set<String> attributeNames) {
+        this.expression = expression;
+        this.names = names;
+        this.attributeNames = attributeNames;
+    }
+
+    public static FieldProjection of(EntityField<?>... fields) {
+        if (fields == null || fields.length == 0) {
+            throw new IllegalArgumentException("At least one field should be projected");
+        }
+        StringBuilder expression = new StringBuilder();
+        Map<String, String> names = new HashMap<>(fields.length * 2);
+        Set<String> attributeNames = new LinkedHashSet<>();
+        for (EntityField<?> field : fields) {
+            if (!attributeNames.add(field.getAttributeName())) {
+                continue;
+            }
+            String placeholder = "#p" + names.size();
+            names.put(placeholder, field.getAttributeName());
+            if (expression.length() > 0) {
+                expression.append(", ");
+            }
+            expression.append(placeholder);
+        }
+        return new FieldProjection(expression.toString(), Collections.unmodifiableMap(names), Collections.unmodifiableSet(attributeNames));
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    /**
+     * @return expression attribute names referred by {@link #expression()}
+     */
+    public Map<String, String> names() {
+        return names;
+    }
+
+    /**
+     * @return projected attribute names
+     */
+    public Set<String> attributeNames() {
+        return attributeNames;
+    }
+
+    /**
+     * @return names of this projection merged with the given names, ie., names used by filter expressions
+     */
+    public Map<String, String> namesWith(Map<String, String> otherNames) {
+        Map<String, String> merged = new HashMap<>(otherNames);
+        merged.putAll(names);
+        return merged;
+    }
+
+    /**
+     * Sets projection and its names, merged with the expression attribute names already set on the builder
+     */
+    public GetItemRequest.Builder applyTo(GetItemRequest.Builder builder) {
+        return builder.projectionExpression(expression)
+                .expressionAttributeNames(namesWith(builder.build().expressionAttributeNames()));
+    }
+
+    /**
+     * Sets projection and its names, merged with the names already set on the builder, ie., names used by filters
+     */
+    public ScanRequest.Builder applyTo(ScanRequest.Builder builder) {
+        return builder.projectionExpression(expression)
+                .expressionAttributeNames(namesWith(builder.build().expressionAttributeNames()));
+    }
+
+    /**
+     * Sets projection and its names, merged with the names already set on the builder, ie., #hk and #rk of key queries
+     */
+    public QueryRequest.Builder applyTo(QueryRequest.Builder builder) {
+        return builder.projectionExpression(expression)
+                .expressionAttributeNames(namesWith(builder.build().expressionAttributeNames()));
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", attributeNames);
+    }
+}
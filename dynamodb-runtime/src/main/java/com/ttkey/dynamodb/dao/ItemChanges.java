@@ -0,0 +1,112 @@
+package com.ttkey.dynamodb.dao;
+
+import com.ttkey.dynamodb.mapper.DynamoDBBaseMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Diff of entities and the update item requests writing it, shared by the blocking and the async dao.
+ * See {@link DynamoDBBaseDao#saveChanges(Object, Object)} and {@link DynamoDBBaseDao#increment(Object, EntityField, Number)}
+ */
+final class ItemChanges {
+
+    private ItemChanges() {
+    }
+
+    /**
+     * Compares the encoded entities, used when the mapper doesn't compare them field by field. Key attributes are skipped.
+     *
+     * @return changed attributes with their new values, removed attributes with null value
+     */
+    static Map<String, AttributeValue> diff(Map<String, AttributeValue> original, Map<String, AttributeValue> modified, EntitySchema schema) {
+        Map<String, AttributeValue> changes = new HashMap<>();
+        modified.forEach((name, value) -> {
+            if (!schema.isKey(name) && !Objects.equals(original.get(name), value)) {
+                changes.put(name, value);
+            }
+        });
+        original.forEach((name, value) -> {
+            if (!schema.isKey(name) && value != null && !modified.containsKey(name)) {
+                changes.put(name, null);
+            }
+        });
+        return changes;
+    }
+
+    /**
+     * SET clause for the changed attributes and REMOVE clause for the ones with null value, conditioned on the existence
+     * of the item. Attributes are referred through expression attribute names (#a0, #a1 ...) so reserved words can be updated.
+     *
+     * @param changes at least one changed attribute
+     */
+    static UpdateItemRequest.Builder toUpdate(Map<String, AttributeValue> key, Map<String, AttributeValue> changes, EntitySchema schema) {
+        StringBuilder set = new StringBuilder();
+        StringBuilder remove = new StringBuilder();
+        Map<String, String> names = new HashMap<>(schema.keyConditionNames());
+        Map<String, AttributeValue> values = new HashMap<>();
+        int index = 0;
+        for (Map.Entry<String, AttributeValue> change : changes.entrySet()) {
+            String name = "#a" + index;
+            names.put(name, change.getKey());
+            if (change.getValue() == null) {
+                append(remove, name);
+            } else {
+                String value = ":a" + index;
+                values.put(value, change.getValue());
+                append(set, name).append(" = ").append(value);
+            }
+            index++;
+        }
+        StringBuilder expression = new StringBuilder();
+        if (set.length() > 0) {
+            expression.append("SET ").append(set);
+        }
+        if (remove.length() > 0) {
+            expression.append(expression.length() > 0 ? " REMOVE " : "REMOVE ").append(remove);
+        }
+        var builder = UpdateItemRequest.builder()
+                .key(key)
+                .updateExpression(expression.toString())
+                .conditionExpression(schema.keyExistsCondition())
+                .expressionAttributeNames(names);
+        return values.isEmpty() ? builder : builder.expressionAttributeValues(values);
+    }
+
+    /**
+     * Single ADD or DELETE clause applied on an attribute of an existing item, ie., <code>ADD #f :v</code>, so that
+     * counters and sets are modified by DynamoDB without reading the item first.
+     *
+     * @param action ADD or DELETE
+     */
+    static UpdateItemRequest.Builder toMutation(String action, Map<String, AttributeValue> key, EntityField<?> field,
+                                                AttributeValue operand, EntitySchema schema) {
+        if (schema.isKey(field.getAttributeName())) {
+            throw new IllegalArgumentException("Key attribute '" + field.getAttributeName() + "' can't be updated");
+        }
+        Map<String, String> names = new HashMap<>(schema.keyConditionNames());
+        names.put("#f", field.getAttributeName());
+        return UpdateItemRequest.builder()
+                .key(key)
+                .updateExpression(action + " #f :v")
+                .conditionExpression(schema.keyExistsCondition())
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(Map.of(":v", operand));
+    }
+
+    static AttributeValue numberOperand(Number delta) {
+        return AttributeValue.builder().n(DynamoDBBaseMapper.formatNumber(delta)).build();
+    }
+
+    static AttributeValue setOperand(Collection<?> values) {
+        return DynamoDBBaseMapper.setToAttr(values);
+    }
+
+    private static StringBuilder append(StringBuilder clause, String element) {
+        return (clause.length() > 0 ? clause.append(", ") : clause).append(element);
+    }
+}
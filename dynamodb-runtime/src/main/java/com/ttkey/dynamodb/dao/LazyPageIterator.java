@@ -0,0 +1,67 @@
+package com.ttkey.dynamodb.dao;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import static com.ttkey.dynamodb.utils.Conditionals.isNullOrEmpty;
+
+/**
+ * Iterates over the items of a paged scan/query. The next page is fetched only when the items of the current page are
+ * consumed and items are converted one at a time, so only a single page is held in memory.
+ * Once closed, no further page is fetched.
+ */
+class LazyPageIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final Function<Map<String, AttributeValue>, PagedQueryResults<Map<String, AttributeValue>>> pageFetcher;
+    private final Function<Map<String, AttributeValue>, T> converter;
+
+    private Iterator<Map<String, AttributeValue>> currentPage = Collections.emptyIterator();
+    private Map<String, AttributeValue> lastEvaluatedKey;
+    private boolean firstPageFetched;
+    private volatile boolean closed;
+
+    /**
+     * @param pageFetcher fetches the page starting after the given key, the key is null for the first page
+     * @param converter   converts an item to the entity
+     */
+    LazyPageIterator(Function<Map<String, AttributeValue>, PagedQueryResults<Map<String, AttributeValue>>> pageFetcher,
+                     Function<Map<String, AttributeValue>, T> converter) {
+        this.pageFetcher = pageFetcher;
+        this.converter = converter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            if (closed || (firstPageFetched && isNullOrEmpty(lastEvaluatedKey))) {
+                return false;
+            }
+            var page = pageFetcher.apply(lastEvaluatedKey);
+            firstPageFetched = true;
+            List<Map<String, AttributeValue>> items = page.getResults();
+            currentPage = items == null ? Collections.emptyIterator() : items.iterator();
+            lastEvaluatedKey = page.getLastEvaluatedKey();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return converter.apply(currentPage.next());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        currentPage = Collections.emptyIterator();
+    }
+}
@@ -0,0 +1,148 @@
+package com.ttkey.dynamodb.dao;
+
+import com.ttkey.dynamodb.metrics.MetricsListener;
+import com.ttkey.dynamodb.metrics.OperationMetrics;
+import com.ttkey.dynamodb.metrics.OperationMetrics.Outcome;
+import com.ttkey.dynamodb.utils.ItemSizes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Collects the metrics of a single call and the mapping of its response, then reports them to the listener.
+ * Used by one call at a time, does nothing when metrics are disabled.
+ */
+final class OperationSample {
+
+    private final MetricsListener listener;
+    private final String tableName;
+    private final String operation;
+    private final boolean enabled;
+
+    private long networkNanos;
+    private long mappingNanos;
+    private int itemCount;
+    private long responseBytes;
+    private double consumedCapacity = Double.NaN;
+    private Outcome outcome = Outcome.SUCCESS;
+    private boolean called;
+
+    OperationSample(MetricsListener listener, String tableName, String operation) {
+        this.listener = listener;
+        this.tableName = tableName;
+        this.operation = operation;
+        this.enabled = listener != MetricsListener.NONE;
+    }
+
+    /**
+     * Times the client call, recording the outcome if it fails
+     */
+    <R> R network(Supplier<R> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        // a successful retry of a throttled call succeeds
+        outcome = Outcome.SUCCESS;
+        called = true;
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            networkNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Times the async client call until its response arrives, recording the outcome if it fails and the capacity
+     * consumed if the response reports it
+     */
+    <R> CompletableFuture<R> networkAsync(Supplier<CompletableFuture<R>> call, Function<R, ConsumedCapacity> capacityOf) {
+        if (!enabled) {
+            return call.get();
+        }
+        called = true;
+        long start = System.nanoTime();
+        final CompletableFuture<R> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            networkNanos += System.nanoTime() - start;
+            throw e;
+        }
+        return response.whenComplete((value, error) -> {
+            networkNanos += System.nanoTime() - start;
+            if (error != null) {
+                outcome = outcomeOf(DaoExceptions.unwrap(error));
+                return;
+            }
+            var capacity = value == null ? null : capacityOf.apply(value);
+            if (capacity != null && capacity.capacityUnits() != null) {
+                consumedCapacity(capacity.capacityUnits());
+            }
+        });
+    }
+
+    /**
+     * Times the mapping of a returned item, also counting it along with its size
+     */
+    <X> X map(Map<String, AttributeValue> item, Function<Map<String, AttributeValue>, X> converter) {
+        if (!enabled) {
+            return converter.apply(item);
+        }
+        itemCount++;
+        responseBytes += ItemSizes.of(item);
+        long start = System.nanoTime();
+        try {
+            return converter.apply(item);
+        } finally {
+            mappingNanos += System.nanoTime() - start;
+        }
+    }
+
+    String getOperation() {
+        return operation;
+    }
+
+    void consumedCapacity(double units) {
+        consumedCapacity = Double.isNaN(consumedCapacity) ? units : consumedCapacity + units;
+    }
+
+    void notFound() {
+        outcome = Outcome.NOT_FOUND;
+    }
+
+    /**
+     * Reports the sample, unless no call was made, ie., the read was served by the entity cache or joined the
+     * in-flight read of the same key. Those never reached DynamoDB and would skew the latencies and the call counts.
+     */
+    void emit() {
+        if (!enabled || !called) {
+            return;
+        }
+        try {
+            listener.onOperation(new OperationMetrics(tableName, operation, networkNanos, mappingNanos, itemCount,
+                    responseBytes, consumedCapacity, outcome));
+        } catch (RuntimeException ignored) {
+            // metrics must never fail the operation
+        }
+    }
+
+    private static Outcome outcomeOf(Throwable error) {
+        if (error instanceof ConditionalCheckFailedException) {
+            return Outcome.CONDITION_FAILED;
+        } else if (error instanceof ProvisionedThroughputExceededException) {
+            return Outcome.THROTTLED;
+        }
+        return Outcome.FAILED;
+    }
+}
@@ -0,0 +1,105 @@
+package com.ttkey.dynamodb.dao;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Condition on the sort/range key used in key condition expression of queries, ie., <code>title BETWEEN :a AND :b</code>
+ *
+ * @param <V> java type of the range key
+ */
+public final class RangeCondition<V> {
+
+    private enum Operator {
+        EQ("="), LT("<"), LE("<="), GT(">"), GE(">="), BETWEEN("BETWEEN"), BEGINS_WITH("begins_with");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    private final Operator operator;
+    private final V value;
+    private final V upperValue;
+
+    private RangeCondition(Operator operator, V value, V upperValue) {
+        this.operator = operator;
+        this.value = Objects.requireNonNull(value);
+        this.upperValue = upperValue;
+    }
+
+    public static <V> RangeCondition<V> eq(V value) {
+        return new RangeCondition<>(Operator.EQ, value, null);
+    }
+
+    public static <V> RangeCondition<V> lt(V value) {
+        return new RangeCondition<>(Operator.LT, value, null);
+    }
+
+    public static <V> RangeCondition<V> le(V value) {
+        return new RangeCondition<>(Operator.LE, value, null);
+    }
+
+    public static <V> RangeCondition<V> gt(V value) {
+        return new RangeCondition<>(Operator.GT, value, null);
+    }
+
+    public static <V> RangeCondition<V> ge(V value) {
+        return new RangeCondition<>(Operator.GE, value, null);
+    }
+
+    /**
+     * Both the bounds are inclusive
+     */
+    public static <V> RangeCondition<V> between(V from, V to) {
+        return new RangeCondition<>(Operator.BETWEEN, from, Objects.requireNonNull(to));
+    }
+
+    /**
+     * Applicable only for string and binary range keys
+     */
+    public static <V> RangeCondition<V> beginsWith(V prefix) {
+        return new RangeCondition<>(Operator.BEGINS_WITH, prefix, null);
+    }
+
+    /**
+     * @param name             expression attribute name of the range key, ie., #rk
+     * @param valuePlaceholder prefix of the expression attribute values, ie., :rk
+     * @return condition expression
+     */
+    String expression(String name, String valuePlaceholder) {
+        switch (operator) {
+            case BETWEEN:
+                return name + " BETWEEN " + valuePlaceholder + "0 AND " + valuePlaceholder + "1";
+            case BEGINS_WITH:
+                return "begins_with(" + name + ", " + valuePlaceholder + "0)";
+            default:
+                return name + " " + operator.symbol + " " + valuePlaceholder + "0";
+        }
+    }
+
+    /**
+     * @return expression attribute values referred by {@link #expression(String, String)}
+     */
+    Map<String, AttributeValue> values(String valuePlaceholder, Function<V, AttributeValue> encoder) {
+        Map<String, AttributeValue> values = new HashMap<>(4);
+        values.put(valuePlaceholder + "0", encoder.apply(value));
+        if (operator == Operator.BETWEEN) {
+            values.put(valuePlaceholder + "1", encoder.apply(upperValue));
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return operator == Operator.BETWEEN
+                ? operator.symbol + " " + value + " AND " + upperValue
+                : operator.symbol + " " + value;
+    }
+}
@@ -0,0 +1,143 @@
+package com.ttkey.dynamodb.dao;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Collects single key loads arriving within a time window, or until the batch is full, and loads them with one call.
+ * Every caller receives the value of its key or null if the loader found nothing for the key.
+ *
+ * @param <K> key
+ * @param <V> loaded value
+ */
+class ReadBatcher<K, V> implements AutoCloseable {
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Function<List<K>, Map<K, V>> loader;
+    private final Supplier<Executor> executor;
+    private final ScheduledThreadPoolExecutor timer;
+
+    private List<PendingLoad<K, V>> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    /**
+     * @param window       time for which loads are collected after the first load of a batch
+     * @param maxBatchSize batch is loaded without waiting for the window once it has as many loads
+     * @param loader       loads the distinct keys of a batch
+     * @param executor     runs the loader, so that neither the timer nor the caller filling the batch is blocked.
+     *                     Looked up on every batch, so that a change of the executor applies to the next batch
+     */
+    ReadBatcher(Duration window, int maxBatchSize, Function<List<K>, Map<K, V>> loader, Supplier<Executor> executor) {
+        if (window.isNegative() || window.isZero() || maxBatchSize < 1) {
+            throw new IllegalArgumentException("window and maxBatchSize should be positive");
+        }
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.loader = loader;
+        this.executor = executor;
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "dynamodb-read-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Loads racing with {@link #close()}, ie., by callers still holding a batcher being replaced, are loaded right away
+     */
+    CompletableFuture<V> load(K key) {
+        var future = new CompletableFuture<V>();
+        var load = new PendingLoad<>(key, future);
+        List<PendingLoad<K, V>> batch = null;
+        synchronized (this) {
+            if (closed) {
+                batch = List.of(load);
+            } else {
+                // scheduled before the load is added, so a failure to schedule doesn't leave it pending
+                if (pending.isEmpty() && maxBatchSize > 1) {
+                    scheduledFlush = timer.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+                }
+                pending.add(load);
+                if (pending.size() >= maxBatchSize) {
+                    batch = drain();
+                }
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return future;
+    }
+
+    private void flush() {
+        List<PendingLoad<K, V>> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private List<PendingLoad<K, V>> drain() {
+        var batch = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(List<PendingLoad<K, V>> batch) {
+        try {
+            executor.get().execute(() -> loadBatch(batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(load -> load.future.completeExceptionally(e));
+        }
+    }
+
+    private void loadBatch(List<PendingLoad<K, V>> batch) {
+        try {
+            var keys = batch.stream()
+                    .map(load -> load.key)
+                    .distinct()
+                    .collect(Collectors.toList());
+            Map<K, V> values = loader.apply(keys);
+            batch.forEach(load -> load.future.complete(values.get(load.key)));
+        } catch (Throwable e) {
+            batch.forEach(load -> load.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Stops the timer and loads the pending keys right away, later loads are not batched
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        timer.shutdownNow();
+        flush();
+    }
+
+    private static final class PendingLoad<K, V> {
+        private final K key;
+        private final CompletableFuture<V> future;
+
+        private PendingLoad(K key, CompletableFuture<V> future) {
+            this.key = key;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.ttkey.dynamodb.dao;
+
+import com.ttkey.dynamodb.exception.DataAccessException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Buffers puts and deletes in a bounded queue and writes them in the background using batch write item, see
+ * {@link DynamoDBBaseDao#writeBehind(int, int, Duration, Consumer)}.
+ * <p>
+ * A flush is triggered once the flush size is buffered or the oldest buffered write is older than the flush interval.
+ * Flushes are written one after the other and within a flush only the last write of a key is issued, so the writes of
+ * a key are applied in the order they are submitted. Submitting blocks while the buffer is full.
+ */
+public class WriteBehindWriter<T> implements AutoCloseable {
+
+    private final DynamoDBBaseDao<T> dao;
+    private final BlockingQueue<Map.Entry<T, WriteRequest>> buffer;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final Consumer<BatchWriteResult<T>> failureListener;
+    private final Thread flusher;
+
+    private final Object progress = new Object();
+    private long submittedCount;
+    private long processedCount;
+    private boolean flushRequested;
+    private volatile boolean closed;
+
+    WriteBehindWriter(DynamoDBBaseDao<T> dao, int capacity, int flushSize, Duration flushInterval,
+                      Consumer<BatchWriteResult<T>> failureListener) {
+        if (capacity < 1 || flushSize < 1 || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("capacity, flushSize and flushInterval should be positive");
+        }
+        this.dao = dao;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.failureListener = Objects.requireNonNull(failureListener);
+        this.flusher = new Thread(this::run, "dynamodb-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Buffers a put of the entity, blocking while the buffer is full
+     */
+    public void put(T entity) {
+        submit(Map.entry(entity, dao.putRequestOf(entity)));
+    }
+
+    /**
+     * Buffers a delete of the entity, blocking while the buffer is full
+     */
+    public void delete(T entityWithKeyFields) {
+        submit(Map.entry(entityWithKeyFields, dao.deleteRequestOf(entityWithKeyFields)));
+    }
+
+    /**
+     * Buffers a put of the entity, waiting at most the timeout for space in the buffer
+     *
+     * @return false if the buffer remained full
+     */
+    public boolean offer(T entity, Duration timeout) {
+        ensureOpen();
+        try {
+            if (!buffer.offer(Map.entry(entity, dao.putRequestOf(entity)), timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            synchronized (progress) {
+                submittedCount++;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for space in write behind buffer", e);
+        }
+    }
+
+    private void submit(Map.Entry<T, WriteRequest> write) {
+        ensureOpen();
+        try {
+            buffer.put(write);
+            synchronized (progress) {
+                submittedCount++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for space in write behind buffer", e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Write behind writer is closed");
+        }
+    }
+
+    /**
+     * @return number of writes waiting to be flushed
+     */
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Writes the buffered entities without waiting for the flush size and waits till the writes submitted so far are
+     * processed, which takes at most the flush interval plus the time of the writes. Failures are reported to the
+     * failure listener.
+     */
+    public void flush() {
+        synchronized (progress) {
+            long target = submittedCount;
+            flushRequested = true;
+            while (processedCount < target && flusher.isAlive()) {
+                try {
+                    progress.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DataAccessException("Interrupted while waiting for write behind flush", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting writes, writes the buffered entities and stops the background thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while closing write behind writer", e);
+        }
+        // writes which raced with close
+        List<Map.Entry<T, WriteRequest>> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+
+    private void run() {
+        List<Map.Entry<T, WriteRequest>> batch = new ArrayList<>(flushSize);
+        long deadline = 0;
+        while (true) {
+            try {
+                long waitNanos = batch.isEmpty() ? flushIntervalNanos : deadline - System.nanoTime();
+                var write = buffer.poll(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+                if (write != null) {
+                    if (batch.isEmpty()) {
+                        deadline = System.nanoTime() + flushIntervalNanos;
+                    }
+                    batch.add(write);
+                    buffer.drainTo(batch, flushSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+            boolean drained = buffer.isEmpty();
+            boolean flushNow;
+            synchronized (progress) {
+                flushNow = flushRequested || closed;
+                if (drained) {
+                    flushRequested = false;
+                }
+            }
+            if (!batch.isEmpty() && (batch.size() >= flushSize || deadline - System.nanoTime() <= 0 || flushNow)) {
+                write(batch);
+                batch = new ArrayList<>(flushSize);
+            }
+            if (closed && drained && batch.isEmpty()) {
+                synchronized (progress) {
+                    progress.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private void write(List<Map.Entry<T, WriteRequest>> batch) {
+        BatchWriteResult<T> result;
+        try {
+            result = dao.writeRequests(batch);
+        } catch (RuntimeException e) {
+            result = new BatchWriteResult<>();
+            result.failed(batch.stream().map(Map.Entry::getKey).collect(Collectors.toList()), e);
+        }
+        if (!result.isSuccessful()) {
+            try {
+                failureListener.accept(result);
+            } catch (RuntimeException ignored) {
+                // a failing listener must not stop the background writes
+            }
+        }
+        synchronized (progress) {
+            processedCount += batch.size();
+            progress.notifyAll();
+        }
+    }
+}
@@ -7,10 +7,10 @@ package com.ttkey.dynamodb.exception;
 public class CouldNotDeleteException extends DataAccessException {
 
     public CouldNotDeleteException(String message) {
-        super(message);
+        super(message, null, false);
     }
 
     public CouldNotDeleteException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false);
     }
 }
@@ -7,10 +7,10 @@ package com.ttkey.dynamodb.exception;
 public class CouldNotInsertException extends DataAccessException {
 
     public CouldNotInsertException(String message) {
-        super(message);
+        super(message, null, false);
     }
 
     public CouldNotInsertException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false);
     }
 }
@@ -7,11 +7,11 @@ package com.ttkey.dynamodb.exception;
 public class CouldNotUpdateException extends DataAccessException {
 
     public CouldNotUpdateException(String message) {
-        super(message);
+        super(message, null, false);
     }
 
     public CouldNotUpdateException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false);
     }
 }
 
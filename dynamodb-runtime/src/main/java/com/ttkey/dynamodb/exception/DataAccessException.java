@@ -9,4 +9,15 @@ public class DataAccessException extends RuntimeException {
     public DataAccessException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    /**
+     * Used by exceptions reporting expected outcomes, like a missing item or failed conditional checks, which can be
+     * thrown on hot paths. Filling the stack trace dominates their cost and the trace adds nothing, the cause if any
+     * keeps its own trace.
+     *
+     * @param writableStackTrace false to skip capturing the stack trace
+     */
+    protected DataAccessException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, false, writableStackTrace);
+    }
 }
@@ -2,15 +2,16 @@ package com.ttkey.dynamodb.exception;
 
 /**
  * Exception to indicate operations like deleting a non-existing row/item etc.,
+ * Like the other exceptions of expected outcomes, it doesn't capture the stack trace.
  */
 public class ItemDoesNotExistException extends DataAccessException {
 
     public ItemDoesNotExistException(String message) {
-        super(message);
+        super(message, null, false);
     }
 
     public ItemDoesNotExistException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false);
     }
 
 }
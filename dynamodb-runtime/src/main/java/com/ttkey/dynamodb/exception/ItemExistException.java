@@ -6,11 +6,11 @@ package com.ttkey.dynamodb.exception;
 public class ItemExistException extends DataAccessException {
 
     public ItemExistException(String message) {
-        super(message);
+        super(message, null, false);
     }
 
     public ItemExistException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,248 @@
+package com.ttkey.dynamodb.mapper;
+
+import com.ttkey.dynamodb.exception.DataAccessException;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.util.SdkAutoConstructList;
+import software.amazon.awssdk.core.util.SdkAutoConstructMap;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of an {@link AttributeValue} tree, used as the input of compression.
+ * Every value is a type tag followed by its payload, lengths and counts are written as var ints.
+ */
+final class AttributeValueSerializer {
+
+    private static final int COMPRESSED_MARKER = 0xDC;
+
+    private static final int EMPTY = 0, S = 1, N = 2, B = 3, BOOL = 4, NUL = 5, M = 6, L = 7, SS = 8, NS = 9, BS = 10;
+
+    private AttributeValueSerializer() {
+    }
+
+    static byte[] serialize(AttributeValue value) {
+        Output out = new Output(256);
+        write(out, value);
+        return out.toByteArray();
+    }
+
+    static AttributeValue deserialize(byte[] bytes) {
+        Input in = new Input(bytes);
+        AttributeValue value = read(in);
+        if (in.position != bytes.length) {
+            throw new DataAccessException("Serialized attribute has trailing bytes");
+        }
+        return value;
+    }
+
+    /**
+     * Serializes and compresses the value. The result starts with a marker, the codec name and the serialized length.
+     *
+     * @return null if the serialized value is below the threshold or if compression doesn't reduce the size
+     */
+    static byte[] compress(AttributeValue value, CompressionCodec codec, int threshold) {
+        byte[] serialized = serialize(value);
+        if (serialized.length < threshold) {
+            return null;
+        }
+        byte[] compressed = codec.compress(serialized);
+        Output out = new Output(compressed.length + 16);
+        out.write(COMPRESSED_MARKER);
+        out.writeString(codec.name());
+        out.writeVarInt(serialized.length);
+        out.write(compressed, 0, compressed.length);
+        return out.size() < serialized.length ? out.toByteArray() : null;
+    }
+
+    static boolean isCompressed(byte[] bytes) {
+        return bytes.length > 0 && (bytes[0] & 0xFF) == COMPRESSED_MARKER;
+    }
+
+    static AttributeValue decompress(byte[] bytes) {
+        Input in = new Input(bytes);
+        if (in.read() != COMPRESSED_MARKER) {
+            throw new DataAccessException("Attribute is not compressed");
+        }
+        CompressionCodec codec = CompressionCodecs.get(in.readString());
+        int length = in.readVarInt();
+        byte[] payload = Arrays.copyOfRange(bytes, in.position, bytes.length);
+        return deserialize(codec.decompress(payload, length));
+    }
+
+    private static void write(Output out, AttributeValue value) {
+        if (value.s() != null) {
+            out.write(S);
+            out.writeString(value.s());
+        } else if (value.n() != null) {
+            out.write(N);
+            out.writeString(value.n());
+        } else if (value.b() != null) {
+            out.write(B);
+            out.writeBlob(value.b().asByteArray());
+        } else if (value.bool() != null) {
+            out.write(BOOL);
+            out.write(value.bool() ? 1 : 0);
+        } else if (value.nul() != null) {
+            out.write(NUL);
+        } else if (!(value.m() instanceof SdkAutoConstructMap)) {
+            out.write(M);
+            out.writeVarInt(value.m().size());
+            value.m().forEach((name, attribute) -> {
+                out.writeString(name);
+                write(out, attribute);
+            });
+        } else if (!(value.l() instanceof SdkAutoConstructList)) {
+            out.write(L);
+            out.writeVarInt(value.l().size());
+            value.l().forEach(attribute -> write(out, attribute));
+        } else if (!(value.ss() instanceof SdkAutoConstructList)) {
+            out.write(SS);
+            out.writeVarInt(value.ss().size());
+            value.ss().forEach(out::writeString);
+        } else if (!(value.ns() instanceof SdkAutoConstructList)) {
+            out.write(NS);
+            out.writeVarInt(value.ns().size());
+            value.ns().forEach(out::writeString);
+        } else if (!(value.bs() instanceof SdkAutoConstructList)) {
+            out.write(BS);
+            out.writeVarInt(value.bs().size());
+            value.bs().forEach(bytes -> out.writeBlob(bytes.asByteArray()));
+        } else {
+            out.write(EMPTY);
+        }
+    }
+
+    private static AttributeValue read(Input in) {
+        int tag = in.read();
+        switch (tag) {
+            case EMPTY:
+                return AttributeValue.builder().build();
+            case S:
+                return AttributeValue.builder().s(in.readString()).build();
+            case N:
+                return AttributeValue.builder().n(in.readString()).build();
+            case B:
+                return AttributeValue.builder().b(SdkBytes.fromByteArray(in.readBytes())).build();
+            case BOOL:
+                return AttributeValue.builder().bool(in.read() == 1).build();
+            case NUL:
+                return AttributeValue.builder().nul(true).build();
+            case M: {
+                int size = in.readVarInt();
+                Map<String, AttributeValue> map = new HashMap<>(Math.max(4, size * 2));
+                for (int i = 0; i < size; i++) {
+                    String name = in.readString();
+                    map.put(name, read(in));
+                }
+                return AttributeValue.builder().m(map).build();
+            }
+            case L: {
+                int size = in.readVarInt();
+                List<AttributeValue> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(in));
+                }
+                return AttributeValue.builder().l(list).build();
+            }
+            case SS:
+            case NS: {
+                int size = in.readVarInt();
+                List<String> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(in.readString());
+                }
+                return tag == SS ? AttributeValue.builder().ss(values).build() : AttributeValue.builder().ns(values).build();
+            }
+            case BS: {
+                int size = in.readVarInt();
+                List<SdkBytes> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(SdkBytes.fromByteArray(in.readBytes()));
+                }
+                return AttributeValue.builder().bs(values).build();
+            }
+            default:
+                throw new DataAccessException("Serialized attribute has unknown type tag " + tag);
+        }
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output(int size) {
+            super(size);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeBlob(byte[] bytes) {
+            writeVarInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeString(String value) {
+            writeBlob(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int read() {
+            if (position >= bytes.length) {
+                throw new DataAccessException("Serialized attribute is truncated");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = read();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new DataAccessException("Serialized attribute has malformed length");
+        }
+
+        byte[] readBytes() {
+            int length = readVarInt();
+            if (length < 0 || length > bytes.length - position) {
+                throw new DataAccessException("Serialized attribute is truncated");
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(bytes, position, result, 0, length);
+            position += length;
+            return result;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length < 0 || length > bytes.length - position) {
+                throw new DataAccessException("Serialized attribute is truncated");
+            }
+            String result = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ttkey.dynamodb.mapper;
+
+/**
+ * Codec used to compress attributes marked with <code>@DynamoField(compress = "name")</code>.
+ * Implementations should be thread safe and registered through {@link CompressionCodecs#register(CompressionCodec)}.
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return name referred from the annotation, stored along with the compressed value
+     */
+    String name();
+
+    byte[] compress(byte[] data);
+
+    /**
+     * @param originalLength length of the data before compression
+     */
+    byte[] decompress(byte[] data, int originalLength);
+}
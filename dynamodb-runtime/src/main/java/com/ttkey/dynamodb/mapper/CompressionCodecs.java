@@ -0,0 +1,98 @@
+package com.ttkey.dynamodb.mapper;
+
+import com.ttkey.dynamodb.exception.DataAccessException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Registry of the compression codecs. Deflate is available out of the box, faster codecs can be plugged in.
+ */
+public class CompressionCodecs {
+
+    public static final String DEFLATE = "deflate";
+
+    private static final Map<String, CompressionCodec> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        register(new DeflateCodec(Deflater.BEST_SPEED));
+    }
+
+    public static void register(CompressionCodec codec) {
+        CODECS.put(codec.name(), codec);
+    }
+
+    /**
+     * @throws DataAccessException if no codec is registered with the name
+     */
+    public static CompressionCodec get(String name) {
+        CompressionCodec codec = CODECS.get(name);
+        if (codec == null) {
+            throw new DataAccessException("No compression codec registered with name " + name);
+        }
+        return codec;
+    }
+
+    /**
+     * JDK deflate, favours speed over ratio by default as the values are compressed on every write
+     */
+    public static class DeflateCodec implements CompressionCodec {
+
+        private final int level;
+
+        public DeflateCodec(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public String name() {
+            return DEFLATE;
+        }
+
+        @Override
+        public byte[] compress(byte[] data) {
+            Deflater deflater = new Deflater(level);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public byte[] decompress(byte[] data, int originalLength) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                byte[] result = new byte[originalLength];
+                int length = 0;
+                while (length < originalLength && !inflater.finished()) {
+                    int inflated = inflater.inflate(result, length, originalLength - length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                if (length != originalLength) {
+                    throw new DataAccessException("Compressed attribute is corrupt, expected " + originalLength + " bytes but got " + length);
+                }
+                return result;
+            } catch (DataFormatException e) {
+                throw new DataAccessException("Compressed attribute is corrupt", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
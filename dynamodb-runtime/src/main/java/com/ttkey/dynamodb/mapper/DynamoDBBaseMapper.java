@@ -2,6 +2,9 @@ package com.ttkey.dynamodb.mapper;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.util.SdkAutoConstructList;
+import software.amazon.awssdk.core.util.SdkAutoConstructMap;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.io.IOException;
@@ -16,32 +19,106 @@ public class DynamoDBBaseMapper {
 
     private static ObjectMapper mapper = new ObjectMapper();
 
+    // AttributeValue is immutable, so values which repeat a lot are built once and shared
+    private static final AttributeValue TRUE = AttributeValue.builder().bool(true).build();
+    private static final AttributeValue FALSE = AttributeValue.builder().bool(false).build();
+    private static final AttributeValue NULL = AttributeValue.builder().nul(true).build();
+
+    private static final int SMALL_NUMBER_LOW = -128;
+    private static final int SMALL_NUMBER_HIGH = 1023;
+    private static final AttributeValue[] SMALL_NUMBERS = new AttributeValue[SMALL_NUMBER_HIGH - SMALL_NUMBER_LOW + 1];
+
+    static {
+        for (int i = SMALL_NUMBER_LOW; i <= SMALL_NUMBER_HIGH; i++) {
+            SMALL_NUMBERS[i - SMALL_NUMBER_LOW] = AttributeValue.builder().n(Integer.toString(i)).build();
+        }
+    }
+
+    // attribute value of every constant, indexed by ordinal
+    private static final ClassValue<AttributeValue[]> ENUM_ATTRIBUTES = new ClassValue<>() {
+        @Override
+        protected AttributeValue[] computeValue(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            AttributeValue[] values = new AttributeValue[constants.length];
+            for (int i = 0; i < constants.length; i++) {
+                values[i] = AttributeValue.builder().s(((Enum<?>) constants[i]).name()).build();
+            }
+            return values;
+        }
+    };
+
+    private static final ClassValue<Map<String, Enum<?>>> ENUM_CONSTANTS = new ClassValue<>() {
+        @Override
+        protected Map<String, Enum<?>> computeValue(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            Map<String, Enum<?>> byName = new HashMap<>(constants.length * 2);
+            for (Object constant : constants) {
+                byName.put(((Enum<?>) constant).name(), (Enum<?>) constant);
+            }
+            return byName;
+        }
+    };
+
     public AttributeValue byteToAttr(Byte value) {
-        return value == null ? null : AttributeValue.builder().n(String.valueOf(value)).build();
+        return value == null ? null : byteToAttr(value.byteValue());
+    }
+
+    public AttributeValue byteToAttr(byte value) {
+        return intToAttr((int) value);
     }
 
     public AttributeValue shortToAttr(Short value) {
-        return value == null ? null : AttributeValue.builder().n(String.valueOf(value)).build();
+        return value == null ? null : shortToAttr(value.shortValue());
+    }
+
+    public AttributeValue shortToAttr(short value) {
+        return intToAttr((int) value);
     }
 
     public AttributeValue intToAttr(Integer value) {
-        return value == null ? null : AttributeValue.builder().n(String.valueOf(value)).build();
+        return value == null ? null : intToAttr(value.intValue());
+    }
+
+    public AttributeValue intToAttr(int value) {
+        if (value >= SMALL_NUMBER_LOW && value <= SMALL_NUMBER_HIGH) {
+            return SMALL_NUMBERS[value - SMALL_NUMBER_LOW];
+        }
+        return numberAttr(Integer.toString(value));
     }
 
     public AttributeValue longToAttr(Long value) {
-        return value == null ? null : AttributeValue.builder().n(String.valueOf(value)).build();
+        return value == null ? null : longToAttr(value.longValue());
+    }
+
+    public AttributeValue longToAttr(long value) {
+        if (value >= SMALL_NUMBER_LOW && value <= SMALL_NUMBER_HIGH) {
+            return SMALL_NUMBERS[(int) value - SMALL_NUMBER_LOW];
+        }
+        return numberAttr(Long.toString(value));
     }
 
     public AttributeValue doubleToAttr(Double value) {
-        return value == null ? null : AttributeValue.builder().n(String.valueOf(value)).build();
+        return value == null ? null : doubleToAttr(value.doubleValue());
+    }
+
+    public AttributeValue doubleToAttr(double value) {
+        return numberAttr(formatDouble(value));
     }
 
     public AttributeValue floatToAttr(Float value) {
-        return value == null ? null : AttributeValue.builder().n(String.valueOf(value)).build();
+        return value == null ? null : floatToAttr(value.floatValue());
+    }
+
+    public AttributeValue floatToAttr(float value) {
+        return numberAttr(formatFloat(value));
     }
 
     public AttributeValue charToAttr(Character value) {
-        return value == null ? null : AttributeValue.builder().s(String.valueOf(value)).build();
+        return value == null ? null : charToAttr(value.charValue());
+    }
+
+    public AttributeValue charToAttr(char value) {
+        return AttributeValue.builder().s(String.valueOf(value)).build();
     }
 
     public AttributeValue stringToAttr(String value) {
@@ -56,12 +133,63 @@ public class DynamoDBBaseMapper {
         }
     }
 
+    /**
+     * Encodes maps, collections, arrays, numbers, booleans, strings, enums and byte arrays as native M, L, N, BOOL, S
+     * and B attributes, nested nulls as NULL. Any other object is first converted to a map using the object mapper.
+     */
+    public AttributeValue nativeToAttr(Object value) {
+        return value == null ? null : nativeValueToAttr(value);
+    }
+
+    private AttributeValue nativeValueToAttr(Object value) {
+        if (value == null) {
+            return NULL;
+        } else if (value instanceof String) {
+            return AttributeValue.builder().s((String) value).build();
+        } else if (value instanceof Boolean) {
+            return booleanToAttr(((Boolean) value).booleanValue());
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return longToAttr(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            return doubleToAttr(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            return numberAttr(value.toString());
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<String, AttributeValue> attributes = new HashMap<>(Math.max(4, map.size() * 2));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                attributes.put(String.valueOf(entry.getKey()), nativeValueToAttr(entry.getValue()));
+            }
+            return AttributeValue.builder().m(attributes).build();
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            List<AttributeValue> attributes = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                attributes.add(nativeValueToAttr(item));
+            }
+            return AttributeValue.builder().l(attributes).build();
+        } else if (value instanceof Object[]) {
+            return nativeValueToAttr(Arrays.asList((Object[]) value));
+        } else if (value instanceof byte[]) {
+            return AttributeValue.builder().b(SdkBytes.fromByteArray((byte[]) value)).build();
+        } else if (value instanceof Character) {
+            return charToAttr(((Character) value).charValue());
+        } else if (value instanceof Enum) {
+            return enumToAttr((Enum) value);
+        }
+        return nativeValueToAttr(getMapper().convertValue(value, Map.class));
+    }
+
     public AttributeValue booleanToAttr(Boolean value) {
-        return value == null ? null : AttributeValue.builder().bool(value).build();
+        return value == null ? null : booleanToAttr(value.booleanValue());
+    }
+
+    public AttributeValue booleanToAttr(boolean value) {
+        return value ? TRUE : FALSE;
     }
 
     public AttributeValue enumToAttr(Enum value) {
-        return value == null ? null : AttributeValue.builder().s(value.name()).build();
+        return value == null ? null : ENUM_ATTRIBUTES.get(value.getDeclaringClass())[value.ordinal()];
     }
 
 
@@ -91,7 +219,15 @@ public class DynamoDBBaseMapper {
     }
 
     public Byte toByte(AttributeValue val) {
-        return val == null ? null : Byte.valueOf(val.n());
+        return val == null ? null : toByteValue(val);
+    }
+
+    public byte toByteValue(Map<String, AttributeValue> attributes, String fieldName) {
+        return toByteValue(attributes.get(fieldName));
+    }
+
+    public byte toByteValue(AttributeValue val) {
+        return val == null ? 0 : Byte.parseByte(val.n());
     }
 
     public Short toShort(Map<String, AttributeValue> attributes, String fieldName) {
@@ -99,7 +235,15 @@ public class DynamoDBBaseMapper {
     }
 
     public Short toShort(AttributeValue val) {
-        return val == null ? null : Short.valueOf(val.n());
+        return val == null ? null : toShortValue(val);
+    }
+
+    public short toShortValue(Map<String, AttributeValue> attributes, String fieldName) {
+        return toShortValue(attributes.get(fieldName));
+    }
+
+    public short toShortValue(AttributeValue val) {
+        return val == null ? 0 : Short.parseShort(val.n());
     }
 
     public Integer toInt(Map<String, AttributeValue> attributes, String fieldName) {
@@ -107,7 +251,15 @@ public class DynamoDBBaseMapper {
     }
 
     public Integer toInt(AttributeValue val) {
-        return val == null ? null : Integer.valueOf(val.n());
+        return val == null ? null : toIntValue(val);
+    }
+
+    public int toIntValue(Map<String, AttributeValue> attributes, String fieldName) {
+        return toIntValue(attributes.get(fieldName));
+    }
+
+    public int toIntValue(AttributeValue val) {
+        return val == null ? 0 : Integer.parseInt(val.n());
     }
 
     public Long toLong(Map<String, AttributeValue> attributes, String fieldName) {
@@ -115,16 +267,31 @@ public class DynamoDBBaseMapper {
     }
 
     public Long toLong(AttributeValue val) {
-        return val == null ? null : Long.valueOf(val.n());
+        return val == null ? null : toLongValue(val);
     }
 
+    public long toLongValue(Map<String, AttributeValue> attributes, String fieldName) {
+        return toLongValue(attributes.get(fieldName));
+    }
+
+    public long toLongValue(AttributeValue val) {
+        return val == null ? 0L : Long.parseLong(val.n());
+    }
 
     public Double toDouble(Map<String, AttributeValue> attributes, String fieldName) {
         return toDouble(attributes.get(fieldName));
     }
 
     public Double toDouble(AttributeValue val) {
-        return val == null ? null : Double.valueOf(val.n());
+        return val == null ? null : toDoubleValue(val);
+    }
+
+    public double toDoubleValue(Map<String, AttributeValue> attributes, String fieldName) {
+        return toDoubleValue(attributes.get(fieldName));
+    }
+
+    public double toDoubleValue(AttributeValue val) {
+        return val == null ? 0d : parseDouble(val.n());
     }
 
     public Float toFloat(Map<String, AttributeValue> attributes, String fieldName) {
@@ -132,7 +299,15 @@ public class DynamoDBBaseMapper {
     }
 
     public Float toFloat(AttributeValue val) {
-        return val == null ? null : Float.valueOf(val.n());
+        return val == null ? null : toFloatValue(val);
+    }
+
+    public float toFloatValue(Map<String, AttributeValue> attributes, String fieldName) {
+        return toFloatValue(attributes.get(fieldName));
+    }
+
+    public float toFloatValue(AttributeValue val) {
+        return val == null ? 0f : Float.parseFloat(val.n());
     }
 
     public Character toChar(Map<String, AttributeValue> attributes, String fieldName) {
@@ -143,6 +318,14 @@ public class DynamoDBBaseMapper {
         return val == null ? null : val.s().charAt(0);
     }
 
+    public char toCharValue(Map<String, AttributeValue> attributes, String fieldName) {
+        return toCharValue(attributes.get(fieldName));
+    }
+
+    public char toCharValue(AttributeValue val) {
+        return val == null ? '\u0000' : val.s().charAt(0);
+    }
+
     public String toString(Map<String, AttributeValue> attributes, String fieldName) {
         return toString(attributes.get(fieldName));
     }
@@ -167,12 +350,72 @@ public class DynamoDBBaseMapper {
             return null;
     }
 
+    public Object toNative(Map<String, AttributeValue> attributes, String fieldName) {
+        return toNative(attributes.get(fieldName));
+    }
+
+    /**
+     * Decodes attributes written by {@link #nativeToAttr(Object)}. Documents become {@link LinkedHashMap}/{@link ArrayList},
+     * sets become {@link LinkedHashSet}, integral numbers become Integer, Long or BigInteger and other numbers Double.
+     */
+    public Object toNative(AttributeValue val) {
+        if (val == null || Boolean.TRUE.equals(val.nul())) {
+            return null;
+        } else if (val.s() != null) {
+            return val.s();
+        } else if (val.n() != null) {
+            return toNativeNumber(val.n());
+        } else if (val.bool() != null) {
+            return val.bool();
+        } else if (val.b() != null) {
+            return val.b().asByteArray();
+        } else if (!(val.m() instanceof SdkAutoConstructMap)) {
+            Map<String, Object> map = new LinkedHashMap<>(Math.max(4, val.m().size() * 2));
+            val.m().forEach((key, value) -> map.put(key, toNative(value)));
+            return map;
+        } else if (!(val.l() instanceof SdkAutoConstructList)) {
+            List<Object> list = new ArrayList<>(val.l().size());
+            val.l().forEach(value -> list.add(toNative(value)));
+            return list;
+        } else if (!(val.ss() instanceof SdkAutoConstructList)) {
+            return new LinkedHashSet<>(val.ss());
+        } else if (!(val.ns() instanceof SdkAutoConstructList)) {
+            Set<Object> numbers = new LinkedHashSet<>();
+            val.ns().forEach(n -> numbers.add(toNativeNumber(n)));
+            return numbers;
+        } else if (!(val.bs() instanceof SdkAutoConstructList)) {
+            Set<byte[]> bytes = new LinkedHashSet<>();
+            val.bs().forEach(b -> bytes.add(b.asByteArray()));
+            return bytes;
+        }
+        return null;
+    }
+
+    private static Object toNativeNumber(String number) {
+        if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+            return parseDouble(number);
+        }
+        try {
+            long value = Long.parseLong(number);
+            return value == (int) value ? (Object) (int) value : (Object) value;
+        } catch (NumberFormatException e) {
+            return new BigInteger(number);
+        }
+    }
+
     public <T extends Enum<T>> T toEnum(Map<String, AttributeValue> attributes, String fieldName, Class<T> enumType) {
         return toEnum(attributes.get(fieldName),enumType);
     }
 
     public <T extends Enum<T>> T toEnum(AttributeValue val, Class<T> enumType) {
-        return val == null ? null : Enum.valueOf(enumType, val.s());
+        if (val == null) {
+            return null;
+        }
+        Enum<?> constant = ENUM_CONSTANTS.get(enumType).get(val.s());
+        if (constant == null) {
+            throw new IllegalArgumentException("No enum constant " + enumType.getCanonicalName() + "." + val.s());
+        }
+        return enumType.cast(constant);
     }
 
     public Boolean toBoolean(Map<String, AttributeValue> attributes, String fieldName) {
@@ -183,6 +426,14 @@ public class DynamoDBBaseMapper {
         return val == null ? null : val.bool();
     }
 
+    public boolean toBooleanValue(Map<String, AttributeValue> attributes, String fieldName) {
+        return toBooleanValue(attributes.get(fieldName));
+    }
+
+    public boolean toBooleanValue(AttributeValue val) {
+        return val != null && Boolean.TRUE.equals(val.bool());
+    }
+
     public BigDecimal toBigDecimal(Map<String, AttributeValue> attributes, String fieldName) {
         return toBigDecimal(attributes.get(fieldName));
     }
@@ -204,7 +455,7 @@ public class DynamoDBBaseMapper {
     }
 
     public Date toDate( AttributeValue val) {
-        return val == null ? null : new Date(toLong(val));
+        return val == null ? null : new Date(toLongValue(val));
     }
 
     public Instant toInstant(Map<String, AttributeValue> attributes, String fieldName) {
@@ -212,13 +463,13 @@ public class DynamoDBBaseMapper {
     }
 
     public Instant toInstant( AttributeValue val) {
-        return val == null ? null : Instant.ofEpochMilli(toLong(val));
+        return val == null ? null : Instant.ofEpochMilli(toLongValue(val));
     }
 
     public Calendar toCalendar( AttributeValue val) {
         return Optional.ofNullable(val).map(v -> {
             Calendar instance = Calendar.getInstance();
-            instance.setTimeInMillis(toLong(v));
+            instance.setTimeInMillis(toLongValue(v));
             return instance;
         }).orElse(null);
     }
@@ -244,6 +495,65 @@ public class DynamoDBBaseMapper {
         return attributes.containsKey(fieldName) ? attributes.get(fieldName).l() : List.of();
     }
 
+    /**
+     * Native string set, see DynamoField#nativeSet. null for empty sets, as DynamoDB doesn't store empty sets.
+     */
+    public AttributeValue stringSetToAttr(Collection<String> values) {
+        return values == null || values.isEmpty() ? null : AttributeValue.builder().ss(values).build();
+    }
+
+    public AttributeValue numberSetToAttr(Collection<? extends Number> values) {
+        return values == null || values.isEmpty() ? null : setToAttr(values);
+    }
+
+    /**
+     * Encodes strings as string set and numbers as number set, used for set operands of update expressions too.
+     *
+     * @param values non empty collection of either strings or numbers
+     */
+    public static AttributeValue setToAttr(Collection<?> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("DynamoDB sets can't be empty");
+        }
+        Object first = values.iterator().next();
+        if (first instanceof String) {
+            List<String> strings = new ArrayList<>(values.size());
+            values.forEach(value -> strings.add((String) value));
+            return AttributeValue.builder().ss(strings).build();
+        } else if (first instanceof Number) {
+            List<String> numbers = new ArrayList<>(values.size());
+            values.forEach(value -> numbers.add(formatNumber((Number) value)));
+            return AttributeValue.builder().ns(numbers).build();
+        }
+        throw new IllegalArgumentException("Only sets of strings and numbers are supported, found " + first.getClass().getName());
+    }
+
+    /**
+     * Reads string sets, and lists of strings written before the field was stored as native set
+     */
+    public Set<String> toStringSet(Map<String, AttributeValue> attributes, String fieldName) {
+        return toSet(attributes.get(fieldName), AttributeValue::ss, AttributeValue::s, Function.identity());
+    }
+
+    public <N extends Number> Set<N> toNumberSet(Map<String, AttributeValue> attributes, String fieldName, Function<String, N> parser) {
+        return toSet(attributes.get(fieldName), AttributeValue::ns, AttributeValue::n, parser);
+    }
+
+    private static <V> Set<V> toSet(AttributeValue value, Function<AttributeValue, List<String>> setItems,
+                                    Function<AttributeValue, String> listItem, Function<String, V> parser) {
+        Set<V> set = new HashSet<>();
+        if (value == null) {
+            return set;
+        }
+        List<String> items = setItems.apply(value);
+        if (!items.isEmpty()) {
+            items.forEach(item -> set.add(parser.apply(item)));
+        } else {
+            value.l().forEach(item -> set.add(parser.apply(listItem.apply(item))));
+        }
+        return set;
+    }
+
     //  java.util.Map<String, SimpleTypes> to Map<String,AttributeValue>
     public <T> Map<String, AttributeValue> mapOfObjToMapOfAttr(Map<String, T> value, Function<T, AttributeValue> objToAttr) {
         return value == null ? null : value.entrySet()
@@ -268,6 +578,145 @@ public class DynamoDBBaseMapper {
     }
 
 
+    private static AttributeValue numberAttr(String number) {
+        return AttributeValue.builder().n(number).build();
+    }
+
+    /**
+     * Number as written by the number encoders of the mapper, ie., 3 for both 3 and 3.0
+     */
+    public static String formatNumber(Number value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return Long.toString(value.longValue());
+        } else if (value instanceof Double) {
+            return formatDouble(value.doubleValue());
+        } else if (value instanceof Float) {
+            return formatFloat(value.floatValue());
+        }
+        return value.toString();
+    }
+
+    /**
+     * Integral doubles are written without the trailing fraction, ie., 3 instead of 3.0
+     */
+    static String formatDouble(double value) {
+        long integral = (long) value;
+        if (integral == value && Math.abs(value) < 1e15) {
+            return Long.toString(integral);
+        }
+        return Double.toString(value);
+    }
+
+    static String formatFloat(float value) {
+        int integral = (int) value;
+        if (integral == value && Math.abs(value) < 1e7f) {
+            return Integer.toString(integral);
+        }
+        return Float.toString(value);
+    }
+
+    /**
+     * Parses plain decimals with at most 15 significant digits and 22 fraction digits without going through
+     * {@link Double#parseDouble(String)}. Both mantissa and the power of ten are exactly representable for such inputs,
+     * so a single division gives the correctly rounded value. Anything else falls back to the JDK.
+     */
+    static double parseDouble(String number) {
+        int length = number.length();
+        if (length == 0 || length > 24) {
+            return Double.parseDouble(number);
+        }
+        int i = 0;
+        boolean negative = false;
+        char c = number.charAt(0);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0, fractionDigits = 0;
+        boolean fraction = false, anyDigit = false;
+        for (; i < length; i++) {
+            c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (significantDigits > 0 || c != '0') {
+                    if (++significantDigits > 15) {
+                        return Double.parseDouble(number);
+                    }
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                fractionDigits += fraction ? 1 : 0;
+                anyDigit = true;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return Double.parseDouble(number);
+            }
+        }
+        if (!anyDigit || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(number);
+        }
+        double value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Replaces the field by a compressed binary attribute if its serialized size reaches the threshold
+     *
+     * @param fields    attributes of the entity
+     * @param codecName name of a codec registered in {@link CompressionCodecs}
+     */
+    public void compressAttribute(Map<String, AttributeValue> fields, String fieldName, String codecName, int threshold) {
+        AttributeValue value = fields.get(fieldName);
+        if (value == null) {
+            return;
+        }
+        byte[] compressed = AttributeValueSerializer.compress(value, CompressionCodecs.get(codecName), threshold);
+        if (compressed != null) {
+            fields.put(fieldName, AttributeValue.builder().b(SdkBytes.fromByteArray(compressed)).build());
+        }
+    }
+
+    /**
+     * @return the attributes with the compressed fields restored, the same map if none of the fields is compressed
+     */
+    public Map<String, AttributeValue> decompressAttributes(Map<String, AttributeValue> attributes, String... fieldNames) {
+        Map<String, AttributeValue> restored = attributes;
+        for (String fieldName : fieldNames) {
+            AttributeValue value = attributes.get(fieldName);
+            if (value != null && value.b() != null) {
+                byte[] bytes = value.b().asByteArray();
+                if (AttributeValueSerializer.isCompressed(bytes)) {
+                    if (restored == attributes) {
+                        restored = new HashMap<>(attributes);
+                    }
+                    restored.put(fieldName, AttributeValueSerializer.decompress(bytes));
+                }
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Adds the attributes whose encoded values differ, used to diff fields which can't be compared by equals,
+     * ie., pojos, collections and compressed fields. Removed attributes are added with null value.
+     *
+     * @param attributeNames attributes to be compared
+     */
+    public void putChangedAttributes(Map<String, AttributeValue> changes, Collection<String> attributeNames,
+                                     Map<String, AttributeValue> original, Map<String, AttributeValue> modified) {
+        for (String attributeName : attributeNames) {
+            AttributeValue value = modified.get(attributeName);
+            if (!Objects.equals(original.get(attributeName), value)) {
+                changes.put(attributeName, value);
+            }
+        }
+    }
+
     public ObjectMapper getMapper() {
         return mapper;
     }
@@ -0,0 +1,111 @@
+package com.ttkey.dynamodb.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates the metrics in memory per table and operation, ie., to be exposed through an admin endpoint or to be
+ * logged periodically. Can be shared by multiple DAOs.
+ */
+public class InMemoryMetrics implements MetricsListener {
+
+    private final ConcurrentMap<String, OperationStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public void onOperation(OperationMetrics metrics) {
+        String name = metrics.getTableName() + "." + metrics.getOperation();
+        OperationStats operationStats = stats.get(name);
+        if (operationStats == null) {
+            operationStats = stats.computeIfAbsent(name, key -> new OperationStats());
+        }
+        operationStats.record(metrics);
+    }
+
+    /**
+     * @return stats of the operation or null if the operation is not called yet
+     */
+    public OperationStats getStats(String tableName, String operation) {
+        return stats.get(tableName + "." + operation);
+    }
+
+    /**
+     * @return stats keyed by table name and operation, ie., movies.Get Item
+     */
+    public Map<String, OperationStats> getAllStats() {
+        return new TreeMap<>(stats);
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    public static class OperationStats {
+        private final LatencyHistogram networkLatency = new LatencyHistogram();
+        private final LatencyHistogram mappingLatency = new LatencyHistogram();
+        private final LatencyHistogram totalLatency = new LatencyHistogram();
+        private final LongAdder items = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final DoubleAdder consumedCapacity = new DoubleAdder();
+        private final ConcurrentMap<OperationMetrics.Outcome, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+        void record(OperationMetrics metrics) {
+            networkLatency.record(metrics.getNetworkNanos());
+            mappingLatency.record(metrics.getMappingNanos());
+            totalLatency.record(metrics.getTotalNanos());
+            items.add(metrics.getItemCount());
+            responseBytes.add(metrics.getResponseBytes());
+            if (!Double.isNaN(metrics.getConsumedCapacity())) {
+                consumedCapacity.add(metrics.getConsumedCapacity());
+            }
+            outcomes.computeIfAbsent(metrics.getOutcome(), outcome -> new LongAdder()).increment();
+        }
+
+        public long getCount() {
+            return totalLatency.getCount();
+        }
+
+        public long getCount(OperationMetrics.Outcome outcome) {
+            LongAdder count = outcomes.get(outcome);
+            return count == null ? 0 : count.sum();
+        }
+
+        public LatencyHistogram getNetworkLatency() {
+            return networkLatency;
+        }
+
+        public LatencyHistogram getMappingLatency() {
+            return mappingLatency;
+        }
+
+        public LatencyHistogram getTotalLatency() {
+            return totalLatency;
+        }
+
+        public long getItemCount() {
+            return items.sum();
+        }
+
+        public long getResponseBytes() {
+            return responseBytes.sum();
+        }
+
+        /**
+         * @return total capacity units consumed by the calls which returned consumed capacity
+         */
+        public double getConsumedCapacity() {
+            return consumedCapacity.sum();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, p50=%dus, p99=%dus, max=%dus, mapping p99=%dus, items=%d, capacity=%.1f",
+                    getCount(), totalLatency.getPercentileNanos(50) / 1000, totalLatency.getPercentileNanos(99) / 1000,
+                    totalLatency.getMaxNanos() / 1000, mappingLatency.getPercentileNanos(99) / 1000, getItemCount(),
+                    getConsumedCapacity());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.ttkey.dynamodb.metrics;
+
+/**
+ * Receives the metrics of every call made by a DAO. Invoked on the calling thread right after the call and the mapping
+ * of its response, so implementations should be fast and thread safe. Failures of the listener are ignored.
+ */
+@FunctionalInterface
+public interface MetricsListener {
+
+    MetricsListener NONE = metrics -> {
+    };
+
+    void onOperation(OperationMetrics metrics);
+}
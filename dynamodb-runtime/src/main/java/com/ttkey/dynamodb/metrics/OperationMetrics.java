@@ -0,0 +1,101 @@
+package com.ttkey.dynamodb.metrics;
+
+/**
+ * Metrics of a single DynamoDB call along with the mapping of its response, ie., one page of a scan.
+ */
+public final class OperationMetrics {
+
+    public enum Outcome {
+        SUCCESS,
+        /**
+         * Get item found no item
+         */
+        NOT_FOUND,
+        CONDITION_FAILED,
+        /**
+         * Throttled even after the retries
+         */
+        THROTTLED,
+        FAILED
+    }
+
+    private final String tableName;
+    private final String operation;
+    private final long networkNanos;
+    private final long mappingNanos;
+    private final int itemCount;
+    private final long responseBytes;
+    private final double consumedCapacity;
+    private final Outcome outcome;
+
+    public OperationMetrics(String tableName, String operation, long networkNanos, long mappingNanos, int itemCount,
+                            long responseBytes, double consumedCapacity, Outcome outcome) {
+        this.tableName = tableName;
+        this.operation = operation;
+        this.networkNanos = networkNanos;
+        this.mappingNanos = mappingNanos;
+        this.itemCount = itemCount;
+        this.responseBytes = responseBytes;
+        this.consumedCapacity = consumedCapacity;
+        this.outcome = outcome;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @return name of the operation, ie., Get Item
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return time spent in the client call, including the throttled attempts when a rate limiter retries them
+     */
+    public long getNetworkNanos() {
+        return networkNanos;
+    }
+
+    /**
+     * @return time spent converting the returned items to entities
+     */
+    public long getMappingNanos() {
+        return mappingNanos;
+    }
+
+    public long getTotalNanos() {
+        return networkNanos + mappingNanos;
+    }
+
+    /**
+     * @return number of items returned
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * @return estimated size of the returned items, see {@link com.ttkey.dynamodb.utils.ItemSizes}
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return capacity units consumed, NaN if not returned by DynamoDB
+     */
+    public double getConsumedCapacity() {
+        return consumedCapacity;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    @Override
+    public String toString() {
+        return operation + " on " + tableName + " " + outcome + " in " + getTotalNanos() / 1000 + " us";
+    }
+}
@@ -0,0 +1,117 @@
+package com.ttkey.dynamodb.utils;
+
+import com.ttkey.dynamodb.exception.DataAccessException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the capacity units sent to a table per second and adapts the limit the AIMD way, ie., the permitted rate grows
+ * by a fixed step for every second worth of capacity consumed without throttling and is cut by a factor when throttled.
+ * <p>
+ * Callers acquire an estimate of the units before the call and report the units actually consumed afterwards,
+ * the difference is settled against the following callers. Burst is limited to one second worth of capacity.
+ */
+public class AdaptiveRateLimiter {
+
+    private static final long DECREASE_COOL_DOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final double minRate;
+    private final double maxRate;
+    private final double increaseStep;
+    private final double decreaseFactor;
+
+    private double rate;
+    private double available;
+    private long lastRefill;
+    private long lastDecrease;
+    private long throttleCount;
+
+    /**
+     * Starts at the initial rate, increases by 5% of the initial rate per second without throttling and halves on throttling
+     */
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate) {
+        this(initialRate, minRate, maxRate, Math.max(1, initialRate * 0.05), 0.5);
+    }
+
+    /**
+     * @param initialRate    capacity units per second to start with
+     * @param minRate        rate is never reduced below
+     * @param maxRate        rate is never increased above
+     * @param increaseStep   units per second added for every second worth of capacity consumed
+     * @param decreaseFactor multiplier applied to the rate when throttled, between 0 and 1
+     */
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, double increaseStep, double decreaseFactor) {
+        if (minRate <= 0 || initialRate < minRate || maxRate < initialRate || increaseStep < 0
+                || decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("Rates should satisfy 0 < minRate <= initialRate <= maxRate and 0 < decreaseFactor < 1");
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increaseStep = increaseStep;
+        this.decreaseFactor = decreaseFactor;
+        this.rate = initialRate;
+        this.available = initialRate;
+        this.lastRefill = System.nanoTime();
+        this.lastDecrease = lastRefill - DECREASE_COOL_DOWN_NANOS;
+    }
+
+    /**
+     * Reserves the units, blocking until the permitted rate allows them
+     *
+     * @throws DataAccessException if interrupted while waiting, interrupt flag is restored
+     */
+    public void acquire(double units) {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            available -= units;
+            waitNanos = available >= 0 ? 0 : (long) (-available / rate * TimeUnit.SECONDS.toNanos(1));
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataAccessException("Interrupted while waiting for capacity", e);
+            }
+        }
+    }
+
+    /**
+     * Settles the units consumed by a successful call against the acquired estimate and grows the rate
+     */
+    public synchronized void onSuccess(double acquiredUnits, double consumedUnits) {
+        available -= consumedUnits - acquiredUnits;
+        rate = Math.min(maxRate, rate + increaseStep * consumedUnits / rate);
+    }
+
+    /**
+     * Cuts the rate, at most once in 500 ms so that the concurrent calls throttled by the same burst cut it once
+     */
+    public synchronized void onThrottle() {
+        throttleCount++;
+        long now = System.nanoTime();
+        if (now - lastDecrease >= DECREASE_COOL_DOWN_NANOS) {
+            lastDecrease = now;
+            rate = Math.max(minRate, rate * decreaseFactor);
+            available = Math.min(available, rate);
+        }
+    }
+
+    /**
+     * @return capacity units per second currently permitted
+     */
+    public synchronized double getPermittedRate() {
+        return rate;
+    }
+
+    public synchronized long getThrottleCount() {
+        return throttleCount;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        available = Math.min(rate, available + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,62 @@
+package com.ttkey.dynamodb.utils;
+
+import com.ttkey.dynamodb.exception.DataAccessException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter, ie., the n-th retry waits a random time between zero and
+ * min(maxDelay, baseDelay * 2^n) milli seconds. Used while re-driving unprocessed items of batch calls.
+ */
+public class Backoff {
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public Backoff(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1 || baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("maxAttempts should be positive and 0 <= baseDelay <= maxDelay");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * 8 attempts, starting at 25 ms and capped at 2 seconds
+     */
+    public static Backoff defaultBackoff() {
+        return new Backoff(8, 25, 2000);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param attempt zero based number of the attempt which just failed
+     * @return jittered delay before the next attempt
+     */
+    public long delayMillis(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt, 30);
+        if (ceiling <= 0 || ceiling > maxDelayMillis) {
+            ceiling = maxDelayMillis;
+        }
+        return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Blocks the current thread for {@link #delayMillis(int)}
+     *
+     * @throws DataAccessException if interrupted while waiting, interrupt flag is restored
+     */
+    public void pause(int attempt) {
+        try {
+            Thread.sleep(delayMillis(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while backing off before retry", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.ttkey.dynamodb.utils;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the size of items the way DynamoDB accounts them, ie., length of attribute names plus length of the values.
+ * Numbers are approximated by their textual length and documents by the size of their elements plus 3 bytes overhead.
+ */
+public class ItemSizes {
+
+    private static final int DOCUMENT_OVERHEAD = 3;
+
+    public static long of(Map<String, AttributeValue> item) {
+        if (item == null) {
+            return 0;
+        }
+        long size = 0;
+        for (Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+            size += utf8Length(entry.getKey()) + of(entry.getValue());
+        }
+        return size;
+    }
+
+    public static long of(AttributeValue value) {
+        if (value == null) {
+            return 0;
+        } else if (value.s() != null) {
+            return utf8Length(value.s());
+        } else if (value.n() != null) {
+            return value.n().length();
+        } else if (value.b() != null) {
+            return value.b().asByteBuffer().remaining();
+        } else if (value.bool() != null || value.nul() != null) {
+            return 1;
+        }
+        long size = 0;
+        for (String s : value.ss()) {
+            size += utf8Length(s);
+        }
+        for (String n : value.ns()) {
+            size += n.length();
+        }
+        for (SdkBytes b : value.bs()) {
+            size += b.asByteBuffer().remaining();
+        }
+        if (!value.m().isEmpty()) {
+            size += DOCUMENT_OVERHEAD + of(value.m());
+        }
+        if (!value.l().isEmpty()) {
+            size += DOCUMENT_OVERHEAD + of(value.l());
+        }
+        return size;
+    }
+
+    private static long of(List<AttributeValue> values) {
+        long size = 0;
+        for (AttributeValue value : values) {
+            size += of(value) + 1;
+        }
+        return size;
+    }
+
+    public static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
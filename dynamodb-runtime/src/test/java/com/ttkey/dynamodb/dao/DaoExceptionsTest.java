@@ -0,0 +1,37 @@
+package com.ttkey.dynamodb.dao;
+
+import com.ttkey.dynamodb.exception.DataAccessException;
+import com.ttkey.dynamodb.exception.TableDoesNotExistException;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DaoExceptionsTest {
+
+    @Test
+    void keepsDataAccessExceptions() {
+        var interrupted = new DataAccessException("Interrupted while waiting for capacity", new InterruptedException());
+        assertSame(interrupted, DaoExceptions.exceptionMapper("Get Item", "movies").apply(interrupted));
+    }
+
+    @Test
+    void translatesSdkExceptions() {
+        var mapper = DaoExceptions.exceptionMapper("Get Item", "movies");
+        assertTrue(mapper.apply(ResourceNotFoundException.builder().message("missing").build()) instanceof TableDoesNotExistException);
+
+        var throttled = ProvisionedThroughputExceededException.builder().message("throttled").build();
+        var failure = mapper.apply(throttled);
+        assertSame(throttled, failure.getCause());
+        assertTrue(failure.getMessage().contains("'Get Item' failed in 'movies' table"));
+    }
+
+    @Test
+    void unwrapsCompletionExceptions() {
+        var cause = new IllegalStateException();
+        assertSame(cause, DaoExceptions.unwrap(new CompletionException(new CompletionException(cause))));
+    }
+}
@@ -0,0 +1,116 @@
+package com.ttkey.dynamodb.dao;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+
+    @Test
+    void servesItemsUntilTheyExpire() throws InterruptedException {
+        var cache = new EntityCache(10, Duration.ofMillis(50));
+        cache.put(key(1), item(1), cache.stamp());
+
+        assertEquals(item(1), cache.get(key(1)).getItem());
+        assertNull(cache.get(key(2)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        Thread.sleep(80);
+        assertNull(cache.get(key(1)));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void remembersMissingItemsOnlyWithMissTimeToLive() throws InterruptedException {
+        var withoutMisses = new EntityCache(10, Duration.ofMinutes(1));
+        withoutMisses.put(key(1), null, withoutMisses.stamp());
+        assertNull(withoutMisses.get(key(1)));
+
+        var cache = new EntityCache(10, Duration.ofMinutes(1), Duration.ofMillis(50));
+        cache.put(key(1), null, cache.stamp());
+        assertTrue(cache.get(key(1)).isMissing());
+
+        Thread.sleep(80);
+        assertNull(cache.get(key(1)));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        var cache = new EntityCache(2, Duration.ofMinutes(1));
+        cache.put(key(1), item(1), cache.stamp());
+        cache.put(key(2), item(2), cache.stamp());
+        assertNotNull(cache.get(key(1)));
+
+        cache.put(key(3), item(3), cache.stamp());
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(key(2)));
+        assertNotNull(cache.get(key(1)));
+        assertNotNull(cache.get(key(3)));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void dropsFillsRacingWithWritesOfTheSameKeyOnly() {
+        var cache = new EntityCache(10, Duration.ofMinutes(1));
+        long stamp = cache.stamp();
+        cache.invalidate(key(1));
+
+        cache.put(key(1), item(1), stamp);
+        cache.put(key(2), item(2), stamp);
+        assertNull(cache.get(key(1)));
+        assertNotNull(cache.get(key(2)));
+
+        cache.put(key(1), item(1), cache.stamp());
+        assertNotNull(cache.get(key(1)));
+        cache.invalidate(key(1));
+        assertNull(cache.get(key(1)));
+    }
+
+    @Test
+    void dropsAllFillsStampedBeforeInvalidateAll() {
+        var cache = new EntityCache(10, Duration.ofMinutes(1));
+        cache.put(key(1), item(1), cache.stamp());
+        long stamp = cache.stamp();
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+        cache.put(key(2), item(2), stamp);
+        assertNull(cache.get(key(2)));
+        cache.put(key(2), item(2), cache.stamp());
+        assertNotNull(cache.get(key(2)));
+    }
+
+    @Test
+    void dropsOldFillsOnceTheirInvalidationIsForgotten() {
+        var cache = new EntityCache(10, Duration.ofMinutes(1));
+        long stamp = cache.stamp();
+        // more writes than the invalidations remembered per key
+        for (int i = 100; i < 2100; i++) {
+            cache.invalidate(key(i));
+        }
+        cache.put(key(1), item(1), stamp);
+        assertNull(cache.get(key(1)));
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new EntityCache(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new EntityCache(10, Duration.ZERO));
+    }
+
+    private static Map<String, AttributeValue> key(int id) {
+        return Map.of("id", AttributeValue.builder().n(Integer.toString(id)).build());
+    }
+
+    private static Map<String, AttributeValue> item(int id) {
+        return Map.of("id", AttributeValue.builder().n(Integer.toString(id)).build(),
+                "name", AttributeValue.builder().s("Item " + id).build());
+    }
+}
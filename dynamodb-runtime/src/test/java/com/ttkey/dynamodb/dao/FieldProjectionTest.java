@@ -0,0 +1,45 @@
+package com.ttkey.dynamodb.dao;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldProjectionTest {
+
+    private static final FieldProjection PROJECTION = FieldProjection.of(new EntityField<>("title"), new EntityField<>("name"), new EntityField<>("title"));
+
+    @Test
+    void expression() {
+        assertEquals("#p0, #p1", PROJECTION.expression());
+        assertEquals(Map.of("#p0", "title", "#p1", "name"), PROJECTION.names());
+        assertThrows(IllegalArgumentException.class, FieldProjection::of);
+    }
+
+    @Test
+    void keepsNamesOfQueries() {
+        var query = PROJECTION.applyTo(QueryRequest.builder()
+                .keyConditionExpression("#hk = :hk AND #rk > :rk")
+                .expressionAttributeNames(Map.of("#hk", "yr", "#rk", "title")))
+                .build();
+
+        assertEquals("#p0, #p1", query.projectionExpression());
+        assertEquals(Map.of("#hk", "yr", "#rk", "title", "#p0", "title", "#p1", "name"), query.expressionAttributeNames());
+    }
+
+    @Test
+    void keepsNamesOfFilters() {
+        var scan = PROJECTION.applyTo(ScanRequest.builder()
+                .filterExpression("#g = :g")
+                .expressionAttributeNames(Map.of("#g", "genre")))
+                .build();
+        assertEquals(Map.of("#g", "genre", "#p0", "title", "#p1", "name"), scan.expressionAttributeNames());
+
+        var get = PROJECTION.applyTo(GetItemRequest.builder()).build();
+        assertEquals(PROJECTION.names(), get.expressionAttributeNames());
+    }
+}
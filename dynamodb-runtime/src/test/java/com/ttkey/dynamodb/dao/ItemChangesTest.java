@@ -0,0 +1,105 @@
+package com.ttkey.dynamodb.dao;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemChangesTest {
+
+    private static final EntitySchema SCHEMA = new EntitySchema("Movie", "yr", "title", List.of("genre", "rating", "plot"));
+
+    @Test
+    void diffSkipsKeysAndReportsRemovedAttributes() {
+        var original = Map.of("yr", n("2001"), "title", s("Memento"), "genre", s("DRAMA"), "rating", n("8"), "plot", s("Memory"));
+        var modified = Map.of("yr", n("2000"), "title", s("Memento"), "genre", s("THRILLER"), "plot", s("Memory"));
+
+        Map<String, AttributeValue> expected = new HashMap<>();
+        expected.put("genre", s("THRILLER"));
+        expected.put("rating", null);
+        assertEquals(expected, ItemChanges.diff(original, modified, SCHEMA));
+        assertTrue(ItemChanges.diff(original, original, SCHEMA).isEmpty());
+    }
+
+    @Test
+    void toUpdateSetsChangedAndRemovesMissingAttributes() {
+        Map<String, AttributeValue> changes = new LinkedHashMap<>();
+        changes.put("genre", s("THRILLER"));
+        changes.put("rating", null);
+        changes.put("plot", s("Memory"));
+
+        var request = ItemChanges.toUpdate(key(), changes, SCHEMA).build();
+
+        assertEquals(key(), request.key());
+        assertEquals("SET #a0 = :a0, #a2 = :a2 REMOVE #a1", request.updateExpression());
+        assertEquals("attribute_exists(yr) AND attribute_exists(title)", request.conditionExpression());
+        assertEquals(Map.of("#a0", "genre", "#a1", "rating", "#a2", "plot"), request.expressionAttributeNames());
+        assertEquals(Map.of(":a0", s("THRILLER"), ":a2", s("Memory")), request.expressionAttributeValues());
+    }
+
+    @Test
+    void toUpdateOnlyRemovingHasNoValues() {
+        Map<String, AttributeValue> changes = new HashMap<>();
+        changes.put("rating", null);
+
+        var request = ItemChanges.toUpdate(key(), changes, SCHEMA).build();
+
+        assertEquals("REMOVE #a0", request.updateExpression());
+        assertTrue(request.expressionAttributeValues().isEmpty());
+    }
+
+    @Test
+    void toUpdateKeepsNamesOfEscapedKeys() {
+        var schema = new EntitySchema("Person", "name", null, List.of("age"));
+
+        var request = ItemChanges.toUpdate(Map.of("name", s("Ann")), Map.of("age", n("30")), schema).build();
+
+        assertEquals("attribute_exists(#hk)", request.conditionExpression());
+        assertEquals(Map.of("#hk", "name", "#a0", "age"), request.expressionAttributeNames());
+    }
+
+    @Test
+    void toMutationAppliesTheActionOnAnExistingItem() {
+        var request = ItemChanges.toMutation("ADD", key(), new EntityField<Long>("rating"), ItemChanges.numberOperand(5), SCHEMA).build();
+
+        assertEquals(key(), request.key());
+        assertEquals("ADD #f :v", request.updateExpression());
+        assertEquals("attribute_exists(yr) AND attribute_exists(title)", request.conditionExpression());
+        assertEquals(Map.of("#f", "rating"), request.expressionAttributeNames());
+        assertEquals(Map.of(":v", n("5")), request.expressionAttributeValues());
+    }
+
+    @Test
+    void toMutationRejectsKeyFields() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ItemChanges.toMutation("ADD", key(), new EntityField<Integer>("yr"), ItemChanges.numberOperand(1), SCHEMA));
+        assertThrows(IllegalArgumentException.class,
+                () -> ItemChanges.toMutation("DELETE", key(), new EntityField<String>("title"), ItemChanges.setOperand(List.of("x")), SCHEMA));
+    }
+
+    @Test
+    void operands() {
+        assertEquals(n("-2.5"), ItemChanges.numberOperand(-2.5));
+        assertEquals(n("3"), ItemChanges.numberOperand(3.0));
+        assertEquals(AttributeValue.builder().ss("drama", "crime").build(), ItemChanges.setOperand(List.of("drama", "crime")));
+        assertEquals(AttributeValue.builder().ns("1", "2").build(), ItemChanges.setOperand(List.of(1, 2L)));
+        assertThrows(IllegalArgumentException.class, () -> ItemChanges.setOperand(List.of()));
+    }
+
+    private static Map<String, AttributeValue> key() {
+        return Map.of("yr", n("2001"), "title", s("Memento"));
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private static AttributeValue n(String value) {
+        return AttributeValue.builder().n(value).build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.ttkey.dynamodb.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadBatcherTest {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    // loads the square of the even keys, odd keys have no value
+    private final Function<List<Integer>, Map<Integer, Integer>> loader = keys -> {
+        batches.add(keys);
+        return keys.stream().filter(key -> key % 2 == 0).collect(Collectors.toMap(key -> key, key -> key * key));
+    };
+
+    @Test
+    void loadsFullBatchWithoutWaitingForTheWindow() throws Exception {
+        try (var batcher = new ReadBatcher<>(Duration.ofMinutes(1), 3, loader, () -> Runnable::run)) {
+            var first = batcher.load(2);
+            var second = batcher.load(3);
+            assertFalse(first.isDone());
+
+            var third = batcher.load(2);
+
+            assertEquals(4, (int) first.get(1, TimeUnit.SECONDS));
+            assertNull(second.get(1, TimeUnit.SECONDS));
+            assertEquals(4, (int) third.get(1, TimeUnit.SECONDS));
+            assertEquals(List.of(List.of(2, 3)), batches);
+        }
+    }
+
+    @Test
+    void loadsPartialBatchOnceTheWindowElapses() throws Exception {
+        try (var batcher = new ReadBatcher<>(Duration.ofMillis(20), 100, loader, () -> ForkJoinPool.commonPool())) {
+            var first = batcher.load(4);
+            var second = batcher.load(6);
+
+            assertEquals(16, (int) first.get(1, TimeUnit.SECONDS));
+            assertEquals(36, (int) second.get(1, TimeUnit.SECONDS));
+            assertEquals(List.of(List.of(4, 6)), batches);
+
+            assertEquals(64, (int) batcher.load(8).get(1, TimeUnit.SECONDS));
+            assertEquals(2, batches.size());
+        }
+    }
+
+    @Test
+    void failsEveryLoadOfTheBatchWhenTheLoaderFails() {
+        var failure = new IllegalStateException("table is gone");
+        try (var batcher = new ReadBatcher<Integer, Integer>(Duration.ofMinutes(1), 2, keys -> {
+            throw failure;
+        }, () -> Runnable::run)) {
+            var first = batcher.load(1);
+            var second = batcher.load(2);
+
+            assertSame(failure, assertThrows(ExecutionException.class, first::get).getCause());
+            assertSame(failure, assertThrows(ExecutionException.class, second::get).getCause());
+        }
+    }
+
+    @Test
+    void usesTheCurrentExecutorOfEveryBatch() throws Exception {
+        var executed = new AtomicInteger();
+        var executor = new AtomicReference<Executor>(Runnable::run);
+        try (var batcher = new ReadBatcher<>(Duration.ofMinutes(1), 1, loader, executor::get)) {
+            assertEquals(4, (int) batcher.load(2).get(1, TimeUnit.SECONDS));
+
+            executor.set(task -> {
+                executed.incrementAndGet();
+                task.run();
+            });
+            assertEquals(16, (int) batcher.load(4).get(1, TimeUnit.SECONDS));
+            assertEquals(1, executed.get());
+        }
+    }
+
+    @Test
+    void closeLoadsPendingKeys() throws Exception {
+        CompletableFuture<Integer> pending;
+        try (var batcher = new ReadBatcher<>(Duration.ofMinutes(1), 100, loader, () -> Runnable::run)) {
+            pending = batcher.load(10);
+            assertFalse(pending.isDone());
+        }
+        assertEquals(100, (int) pending.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void loadsRightAwayOnceClosed() throws Exception {
+        var batcher = new ReadBatcher<>(Duration.ofMinutes(1), 100, loader, () -> Runnable::run);
+        batcher.close();
+
+        // callers still holding the batcher replaced by the dao neither fail nor wait for a batch
+        assertEquals(4, (int) batcher.load(2).get(1, TimeUnit.SECONDS));
+        assertEquals(16, (int) batcher.load(4).get(1, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(2), List.of(4)), batches);
+    }
+
+    @Test
+    void rejectsLoadsWhenTheExecutorRejectsTheBatch() {
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("shut down");
+        };
+        try (var batcher = new ReadBatcher<>(Duration.ofMinutes(1), 1, loader, () -> rejecting)) {
+            var failure = assertThrows(ExecutionException.class, () -> batcher.load(2).get());
+            assertTrue(failure.getCause() instanceof RejectedExecutionException);
+        }
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ReadBatcher<>(Duration.ZERO, 1, loader, () -> Runnable::run));
+        assertThrows(IllegalArgumentException.class, () -> new ReadBatcher<>(Duration.ofMillis(1), 0, loader, () -> Runnable::run));
+    }
+}
@@ -0,0 +1,68 @@
+package com.ttkey.dynamodb.mapper;
+
+import com.ttkey.dynamodb.exception.DataAccessException;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttributeValueSerializerTest {
+
+    private static final AttributeValue NESTED = AttributeValue.builder().m(Map.of(
+            "title", AttributeValue.builder().s("Gro\u00dfe Freiheit").build(),
+            "year", AttributeValue.builder().n("1944").build(),
+            "poster", AttributeValue.builder().b(SdkBytes.fromByteArray(new byte[]{0, -1, 127})).build(),
+            "released", AttributeValue.builder().bool(true).build(),
+            "rating", AttributeValue.builder().nul(true).build(),
+            "cast", AttributeValue.builder().l(
+                    AttributeValue.builder().s("Hans Albers").build(),
+                    AttributeValue.builder().m(Map.of()).build(),
+                    AttributeValue.builder().build()).build(),
+            "tags", AttributeValue.builder().ss("drama", "music").build(),
+            "scores", AttributeValue.builder().ns("7.5", "8").build(),
+            "frames", AttributeValue.builder().bs(SdkBytes.fromByteArray(new byte[200])).build()))
+            .build();
+
+    @Test
+    void roundTripsEveryType() {
+        assertEquals(NESTED, AttributeValueSerializer.deserialize(AttributeValueSerializer.serialize(NESTED)));
+        assertEquals(AttributeValue.builder().l(List.of()).build(),
+                AttributeValueSerializer.deserialize(AttributeValueSerializer.serialize(AttributeValue.builder().l(List.of()).build())));
+    }
+
+    @Test
+    void compressesValuesReachingTheThreshold() {
+        var codec = CompressionCodecs.get(CompressionCodecs.DEFLATE);
+        byte[] compressed = AttributeValueSerializer.compress(NESTED, codec, 64);
+
+        assertNotNull(compressed);
+        assertTrue(AttributeValueSerializer.isCompressed(compressed));
+        assertTrue(compressed.length < AttributeValueSerializer.serialize(NESTED).length);
+        assertEquals(NESTED, AttributeValueSerializer.decompress(compressed));
+    }
+
+    @Test
+    void skipsSmallOrIncompressibleValues() {
+        var codec = CompressionCodecs.get(CompressionCodecs.DEFLATE);
+        assertNull(AttributeValueSerializer.compress(NESTED, codec, 100_000));
+        assertNull(AttributeValueSerializer.compress(AttributeValue.builder().s("short").build(), codec, 0));
+        assertFalse(AttributeValueSerializer.isCompressed(AttributeValueSerializer.serialize(NESTED)));
+    }
+
+    @Test
+    void rejectsCorruptInput() {
+        byte[] serialized = AttributeValueSerializer.serialize(NESTED);
+        assertThrows(DataAccessException.class, () -> AttributeValueSerializer.deserialize(Arrays.copyOf(serialized, serialized.length - 1)));
+        assertThrows(DataAccessException.class, () -> AttributeValueSerializer.deserialize(Arrays.copyOf(serialized, serialized.length + 1)));
+        assertThrows(DataAccessException.class, () -> AttributeValueSerializer.deserialize(new byte[]{42}));
+        assertThrows(DataAccessException.class, () -> AttributeValueSerializer.decompress(serialized));
+
+        byte[] compressed = AttributeValueSerializer.compress(NESTED, CompressionCodecs.get(CompressionCodecs.DEFLATE), 0);
+        assertThrows(DataAccessException.class, () -> AttributeValueSerializer.decompress(Arrays.copyOf(compressed, compressed.length / 2)));
+    }
+}
@@ -0,0 +1,45 @@
+package com.ttkey.dynamodb.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamoDBBaseMapperTest {
+
+    @Test
+    void parsesPlainDecimalsLikeTheJdk() {
+        var random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            String digits = Long.toString((long) (random.nextDouble() * Math.pow(10, 1 + random.nextInt(15))));
+            int fractionDigits = random.nextInt(23);
+            if (fractionDigits > 0) {
+                digits = "0".repeat(Math.max(0, fractionDigits + 1 - digits.length())) + digits;
+                int point = digits.length() - fractionDigits;
+                digits = digits.substring(0, point) + "." + digits.substring(point);
+            }
+            assertParsedLikeTheJdk(random.nextBoolean() ? "-" + digits : digits);
+        }
+    }
+
+    @Test
+    void parsesEdgeCasesLikeTheJdk() {
+        for (String number : new String[]{"0", "-0", "-0.0", "+1.5", "1.", ".5", "0.1", "123456789012345",
+                "1234567890123456", "0.0000000000000000000001", "0.00000000000000000000001", "1e3", "-2.5E-3",
+                "NaN", "Infinity", "12345678901234567890.12345"}) {
+            assertParsedLikeTheJdk(number);
+        }
+    }
+
+    @Test
+    void rejectsMalformedNumbers() {
+        for (String number : new String[]{"", ".", "-", "1.2.3", "1-2", "abc"}) {
+            assertThrows(NumberFormatException.class, () -> DynamoDBBaseMapper.parseDouble(number), number);
+        }
+    }
+
+    private static void assertParsedLikeTheJdk(String number) {
+        assertEquals(Double.parseDouble(number), DynamoDBBaseMapper.parseDouble(number), number);
+    }
+}
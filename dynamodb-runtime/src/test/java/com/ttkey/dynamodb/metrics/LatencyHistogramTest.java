@@ -0,0 +1,61 @@
+package com.ttkey.dynamodb.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void reportsNothingWhenEmpty() {
+        var histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+        assertEquals(0, histogram.getMeanNanos());
+    }
+
+    @Test
+    void keepsSmallValuesExact() {
+        var histogram = new LatencyHistogram();
+        for (long value = 0; value < 16; value++) {
+            histogram.record(value);
+        }
+        assertEquals(7, histogram.getPercentileNanos(50));
+        assertEquals(15, histogram.getPercentileNanos(100));
+        assertEquals(7.5, histogram.getMeanNanos(), 0.001);
+    }
+
+    @Test
+    void reportsPercentilesWithinTheBucketPrecision() {
+        var histogram = new LatencyHistogram();
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1_000_000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000_000, histogram.getMaxNanos());
+        assertWithin(500_000_000, histogram.getPercentileNanos(50));
+        assertWithin(990_000_000, histogram.getPercentileNanos(99));
+        assertEquals(1_000_000_000, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    void bucketsCoverEveryValue() {
+        for (long value : new long[]{16, 17, 31, 32, 1_000_003, Long.MAX_VALUE}) {
+            long upperBound = LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(value));
+            assertTrue(upperBound >= value, "bucket of " + value + " ends at " + upperBound);
+            assertTrue(upperBound - value <= value / 16, "bucket of " + value + " ends at " + upperBound);
+        }
+    }
+
+    @Test
+    void clampsNegativeValuesAndRejectsInvalidPercentiles() {
+        var histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.getMaxNanos());
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(101));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.07, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ttkey.dynamodb.utils;
+
+import com.ttkey.dynamodb.exception.DataAccessException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveRateLimiterTest {
+
+    @Test
+    void cutsTheRateOnceForABurstOfThrottles() throws InterruptedException {
+        var limiter = new AdaptiveRateLimiter(50, 10, 100);
+        limiter.onThrottle();
+        limiter.onThrottle();
+
+        assertEquals(25, limiter.getPermittedRate(), 0.001);
+        assertEquals(2, limiter.getThrottleCount());
+
+        Thread.sleep(600);
+        limiter.onThrottle();
+        assertEquals(12.5, limiter.getPermittedRate(), 0.001);
+        Thread.sleep(600);
+        limiter.onThrottle();
+        assertEquals(10, limiter.getPermittedRate(), 0.001);
+    }
+
+    @Test
+    void growsTheRateWithConsumedCapacityUpToMaxRate() {
+        var limiter = new AdaptiveRateLimiter(50, 1, 60, 10, 0.5);
+        limiter.onSuccess(1, 50);
+        assertEquals(60, limiter.getPermittedRate(), 0.001);
+
+        limiter.onSuccess(1, 600);
+        assertEquals(60, limiter.getPermittedRate(), 0.001);
+        assertEquals(0, limiter.getThrottleCount());
+    }
+
+    @Test
+    void waitsForCapacityBeyondTheBurst() {
+        var limiter = new AdaptiveRateLimiter(10, 1, 10);
+        long start = System.nanoTime();
+        limiter.acquire(10);
+        limiter.acquire(5);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis >= 400, "waited " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void restoresTheInterruptFlagWhenInterruptedWhileWaiting() {
+        var limiter = new AdaptiveRateLimiter(1, 1, 1);
+        limiter.acquire(1);
+
+        Thread.currentThread().interrupt();
+        var failure = assertThrows(DataAccessException.class, () -> limiter.acquire(1));
+        assertTrue(failure.getCause() instanceof InterruptedException);
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    void rejectsInvalidRates() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveRateLimiter(10, 0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveRateLimiter(10, 20, 100));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveRateLimiter(10, 1, 5));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveRateLimiter(10, 1, 100, 1, 1));
+    }
+}
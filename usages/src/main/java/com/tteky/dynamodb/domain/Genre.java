@@ -0,0 +1,8 @@
+package com.tteky.dynamodb.domain;
+
+/**
+ * Enum field of Movie, stored by its name
+ */
+public enum Genre {
+    ACTION, COMEDY, DRAMA, THRILLER
+}
@@ -5,10 +5,12 @@ import com.tteky.dynamodb.DynamoDBEntity;
 import com.tteky.dynamodb.DynamoField;
 import com.tteky.dynamodb.DynamoHashKey;
 import com.tteky.dynamodb.DynamoRangeKey;
+import com.tteky.dynamodb.ObjectEncoding;
 import lombok.ToString;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @DynamoDBEntity
 @ToString
@@ -26,9 +28,12 @@ public class Movie {
     private String title;
 
     @DynamoField
+    private Genre genre;
+
+    @DynamoField(compress = "deflate", compressThreshold = 2048)
     private List<Review> reviews;
 
-    @DynamoField
+    @DynamoField(objectEncoding = ObjectEncoding.NATIVE)
     private Map<String,Object> info;
 
     @DynamoField
@@ -37,6 +42,12 @@ public class Movie {
     @DynamoField
     private Map<String,Info> objInfo;
 
+    @DynamoField
+    private Long viewCount;
+
+    @DynamoField(nativeSet = true)
+    private Set<String> tags;
+
     public Integer getYear() {
         return year;
     }
@@ -69,6 +80,14 @@ public class Movie {
         this.title = title;
     }
 
+    public Genre getGenre() {
+        return genre;
+    }
+
+    public void setGenre(Genre genre) {
+        this.genre = genre;
+    }
+
     public List<Review> getReviews() {
         return reviews;
     }
@@ -100,4 +119,20 @@ public class Movie {
     public void setObjInfo(Map<String, Info> objInfo) {
         this.objInfo = objInfo;
     }
+
+    public Long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(Long viewCount) {
+        this.viewCount = viewCount;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(Set<String> tags) {
+        this.tags = tags;
+    }
 }
@@ -0,0 +1,105 @@
+package com.tteky.dynamodb.dao;
+
+import com.ttkey.dynamodb.inmemory.InMemoryDynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-memory client counting the calls of every operation, so tests can assert how a dao talks to the table.
+ * A listener can be set to hold or fail calls before they reach the table, and calls can be throttled.
+ */
+class CountingDynamoDbClient extends InMemoryDynamoDbClient {
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> throttles = new ConcurrentHashMap<>();
+    private volatile Consumer<String> callListener = operation -> { };
+
+    /**
+     * @param callListener invoked with the operation name before every call, after the call is counted
+     */
+    void setCallListener(Consumer<String> callListener) {
+        this.callListener = callListener;
+    }
+
+    /**
+     * @param operation operation name of the API, ie., GetItem
+     */
+    int getCallCount(String operation) {
+        var count = calls.get(operation);
+        return count == null ? 0 : count.get();
+    }
+
+    void resetCallCounts() {
+        calls.clear();
+    }
+
+    /**
+     * Fails the next calls of the operation with {@link ProvisionedThroughputExceededException}, the failed calls are counted
+     */
+    void throttle(String operation, int times) {
+        throttles.put(operation, new AtomicInteger(times));
+    }
+
+    private void count(String operation) {
+        calls.computeIfAbsent(operation, name -> new AtomicInteger()).incrementAndGet();
+        callListener.accept(operation);
+        var remaining = throttles.get(operation);
+        if (remaining != null && remaining.getAndDecrement() > 0) {
+            throw ProvisionedThroughputExceededException.builder()
+                    .message("Throttled " + operation)
+                    .build();
+        }
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        count("GetItem");
+        return super.getItem(request);
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        count("PutItem");
+        return super.putItem(request);
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        count("UpdateItem");
+        return super.updateItem(request);
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        count("DeleteItem");
+        return super.deleteItem(request);
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        count("Query");
+        return super.query(request);
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        count("Scan");
+        return super.scan(request);
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        count("BatchGetItem");
+        return super.batchGetItem(request);
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        count("BatchWriteItem");
+        return super.batchWriteItem(request);
+    }
+}
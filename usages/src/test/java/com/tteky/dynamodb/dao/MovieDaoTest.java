@@ -1,56 +1,64 @@
 package com.tteky.dynamodb.dao;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tteky.dynamodb.domain.Genre;
 import com.tteky.dynamodb.domain.Info;
 import com.tteky.dynamodb.domain.Movie;
 import com.tteky.dynamodb.domain.Review;
+import com.ttkey.dynamodb.dao.BatchWriteResult;
+import com.ttkey.dynamodb.dao.EntityCache;
+import com.ttkey.dynamodb.dao.EntitySchema;
+import com.ttkey.dynamodb.dao.RangeCondition;
 import com.ttkey.dynamodb.exception.CouldNotInsertException;
+import com.ttkey.dynamodb.exception.CouldNotUpdateException;
+import com.ttkey.dynamodb.exception.DataAccessException;
+import com.ttkey.dynamodb.exception.ItemDoesNotExistException;
+import com.ttkey.dynamodb.inmemory.InMemoryDynamoDbClient;
+import com.ttkey.dynamodb.metrics.InMemoryMetrics;
+import com.ttkey.dynamodb.metrics.OperationMetrics;
+import com.ttkey.dynamodb.utils.AdaptiveRateLimiter;
+import com.ttkey.dynamodb.utils.Backoff;
 import com.ttkey.dynamodb.exception.TableExistsException;
 import org.junit.jupiter.api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.testcontainers.containers.GenericContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
-import org.testcontainers.shaded.com.fasterxml.jackson.databind.ObjectMapper;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
-import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@Testcontainers
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class MovieDaoTest {
 
     private Logger log = LoggerFactory.getLogger(ReviewDaoTest.class);
 
-    @Container
-    private static GenericContainer dynamoDb = new GenericContainer<>("amazon/dynamodb-local:latest").withExposedPorts(8000);
-
     private static MovieDao dao;
     private static MovieMapper mapper;
     private static ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeAll
     static void setupDb() {
-        Integer mappedPort = dynamoDb.getMappedPort(8000);
-        var credentialsProvider = StaticCredentialsProvider.create(AwsBasicCredentials.create("AWS_ACCESS_KEY_ID", "AWS_SECRET_KEY"));
-        var dbClient = DynamoDbClient.builder()
-                .endpointOverride(URI.create("http://127.0.0.1:" + mappedPort))
-                .credentialsProvider(credentialsProvider)
-                .region(Region.US_EAST_1)
-                .build();
-
-        dao = new MovieDao(dbClient);
+        dao = new MovieDao(new InMemoryDynamoDbClient());
         mapper = new MovieMapper();
     }
 
@@ -58,14 +66,7 @@ class MovieDaoTest {
     @Order(1)
     void createTable(){
 
-        CreateTableRequest.Builder builder = CreateTableRequest.builder()
-                .keySchema(List.of(
-                        KeySchemaElement.builder().keyType(KeyType.HASH).attributeName("yr").build(),
-                        KeySchemaElement.builder().keyType(KeyType.RANGE).attributeName("title").build()))
-                .attributeDefinitions(List.of(
-                        AttributeDefinition.builder().attributeType("N").attributeName("yr").build(),
-                        AttributeDefinition.builder().attributeType("S").attributeName("title").build()))
-                .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(5L).writeCapacityUnits(5L).build());
+        CreateTableRequest.Builder builder = movieTable();
 
         dao.createTable(builder);
         log.info("Table created");
@@ -80,6 +81,7 @@ class MovieDaoTest {
         Movie movie = new Movie();
         movie.setYear(1990);
         movie.setTitle("Big Hit Movie");
+        movie.setGenre(Genre.THRILLER);
         movie.setReviews(List.of(newReview(3.8f, "Comment 1"), newReview(3.9f, "Comment 2")));
         movie.setCreatedOn(Instant.now().toEpochMilli());
         movie.setInfo(Map.of("mapInfoKey1", "mapInfoValue1","mapInfoKey2","mapInfoValue2"));
@@ -102,6 +104,532 @@ class MovieDaoTest {
 
     }
 
+    @Test
+    @Order(3)
+    void batchGet() {
+        List<Movie> keys = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            Movie movie = populatedMovie(2000, "Batch Movie " + i);
+            dao.insertEntity(movie);
+            keys.add(newMovie(2000, movie.getTitle()));
+        }
+        Collections.reverse(keys);
+        keys.add(newMovie(2000, "Batch Movie 7"));
+        keys.add(newMovie(1800, "Missing Movie"));
+
+        List<Movie> movies = dao.getEntities(keys);
+
+        assertEquals(150, movies.size());
+        for (int i = 0; i < movies.size(); i++) {
+            assertEquals(keys.get(i).getTitle(), movies.get(i).getTitle());
+        }
+    }
+
+    @Test
+    @Order(4)
+    void batchWrite() {
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            movies.add(populatedMovie(2001, "Bulk Movie " + i));
+        }
+
+        var inserted = dao.insertEntities(movies);
+        assertTrue(inserted.isSuccessful());
+        assertEquals(60, inserted.getWrittenCount());
+        assertEquals(60, dao.getEntities(movies).size());
+
+        var deleted = dao.deleteEntities(movies);
+        assertTrue(deleted.isSuccessful());
+        assertTrue(dao.getEntities(movies).isEmpty());
+    }
+
+    @Test
+    @Order(5)
+    void parallelScan() {
+        var filter = ScanRequest.builder()
+                .filterExpression("yr = :yr")
+                .expressionAttributeValues(Map.of(":yr", AttributeValue.builder().n("2000").build()));
+
+        List<Movie> serial = dao.scanAllItems(filter);
+        List<Movie> parallel = dao.scanAllItems(filter, 4);
+
+        assertEquals(150, serial.size());
+        assertEquals(serial.size(), parallel.size());
+        assertTrue(parallel.stream().allMatch(movie -> movie.getYear() == 2000));
+    }
+
+    @Test
+    @Order(6)
+    void streamScan() {
+        var client = new CountingDynamoDbClient();
+        var movieDao = newMovieDao(client);
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            movies.add(populatedMovie(2000, "Streamed Movie " + i));
+        }
+        assertTrue(movieDao.insertEntities(movies).isSuccessful());
+
+        try (Stream<Movie> stream = movieDao.streamAllItems(ScanRequest.builder().limit(10))) {
+            var iterator = stream.iterator();
+            assertEquals(0, client.getCallCount("Scan"));
+            assertNotNull(iterator.next());
+            assertEquals(1, client.getCallCount("Scan"));
+            int count = 1;
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+            assertEquals(45, count);
+            // 4 full pages and the last one holding 5 items
+            assertEquals(5, client.getCallCount("Scan"));
+        }
+
+        client.resetCallCounts();
+        try (Stream<Movie> stream = movieDao.streamAllItems(ScanRequest.builder().limit(10))) {
+            assertEquals(15, stream.limit(15).collect(Collectors.toList()).size());
+        }
+        assertEquals(2, client.getCallCount("Scan"));
+    }
+
+    @Test
+    @Order(7)
+    void query() {
+        assertEquals(150, dao.queryByYear(2000).size());
+        assertEquals(61, dao.queryByYear(2000, RangeCondition.beginsWith("Batch Movie 1")).size());
+        assertEquals(2, dao.queryByYear(2000, RangeCondition.between("Batch Movie 10", "Batch Movie 100")).size());
+
+        List<Movie> lastThree = dao.queryByYear(2000, RangeCondition.gt("Batch Movie"), false, 3);
+        assertEquals(List.of("Batch Movie 99", "Batch Movie 98", "Batch Movie 97"),
+                lastThree.stream().map(Movie::getTitle).collect(Collectors.toList()));
+
+        try (Stream<Movie> movies = dao.streamByYear(2000, RangeCondition.le("Batch Movie 2"))) {
+            assertEquals("Batch Movie 0", movies.findFirst().map(Movie::getTitle).orElse(null));
+        }
+    }
+
+    @Test
+    @Order(8)
+    void projection() {
+        Movie partial = dao.getEntity(newMovie(1990, "Big Hit Movie"), MovieFields.TITLE, MovieFields.CREATED_ON);
+
+        assertEquals("Big Hit Movie", partial.getTitle());
+        assertNotNull(partial.getCreatedOn());
+        assertNull(partial.getYear());
+        assertNull(partial.getReviews());
+        assertNull(partial.getObjInfo());
+    }
+
+    @Test
+    @Order(9)
+    void nativeObjectEncoding() {
+        Movie movie = populatedMovie(2002, "Native Info Movie");
+        Map<String, Object> info = Map.of(
+                "rating", 8.5,
+                "votes", 1200,
+                "cast", List.of("Actor 1", "Actor 2"),
+                "awards", Map.of("won", true, "count", 2));
+        movie.setInfo(info);
+        dao.insertEntity(movie);
+
+        Map<String, AttributeValue> stored = mapper.movieToAttributes(movie);
+        assertEquals("8.5", stored.get("info").m().get("rating").n());
+        assertEquals(List.of("Actor 1", "Actor 2"), stored.get("info").m().get("cast").l().stream().map(AttributeValue::s).collect(Collectors.toList()));
+
+        assertEquals(info, dao.getEntity(newMovie(2002, "Native Info Movie")).getInfo());
+    }
+
+    @Test
+    @Order(10)
+    void compressedAttribute() {
+        Movie movie = populatedMovie(2003, "Much Reviewed Movie");
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            reviews.add(newReview(4.0f, "A fairly long and repetitive review comment number " + i));
+        }
+        movie.setReviews(reviews);
+
+        Map<String, AttributeValue> stored = mapper.movieToAttributes(movie);
+        assertNotNull(stored.get("reviews").b());
+        assertNull(mapper.movieToAttributes(populatedMovie(2003, "Little Reviewed Movie")).get("reviews").b());
+
+        dao.insertEntity(movie);
+        Movie read = dao.getEntity(newMovie(2003, "Much Reviewed Movie"));
+        assertEquals(100, read.getReviews().size());
+        assertEquals(reviews.get(42).getComments(), read.getReviews().get(42).getComments());
+    }
+
+    @Test
+    @Order(11)
+    void cachedReads() {
+        var cache = new EntityCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        var metrics = new InMemoryMetrics();
+        dao.setEntityCache(cache);
+        try {
+            dao.insertEntity(populatedMovie(2004, "Cached Movie"));
+
+            dao.setMetricsListener(metrics);
+            assertEquals("Cached Movie", dao.getEntity(newMovie(2004, "Cached Movie")).getTitle());
+            assertEquals("Cached Movie", dao.getEntity(newMovie(2004, "Cached Movie")).getTitle());
+            assertEquals(1, cache.getMissCount());
+            assertEquals(1, cache.getHitCount());
+            // reads served by the cache don't reach the table, so they aren't sampled
+            assertEquals(1, metrics.getStats("Movie", "Get Item").getCount());
+            dao.setMetricsListener(null);
+
+            Movie changed = populatedMovie(2004, "Cached Movie");
+            changed.setGenre(Genre.COMEDY);
+            dao.replaceEntity(changed);
+            assertEquals(Genre.COMEDY, dao.getEntity(newMovie(2004, "Cached Movie")).getGenre());
+
+            assertThrows(ItemDoesNotExistException.class, () -> dao.getEntity(newMovie(2004, "Missing Movie")));
+            assertThrows(ItemDoesNotExistException.class, () -> dao.getEntity(newMovie(2004, "Missing Movie")));
+            assertEquals(2, cache.getHitCount());
+
+            dao.deleteEntity(newMovie(2004, "Cached Movie"));
+            assertThrows(ItemDoesNotExistException.class, () -> dao.getEntity(newMovie(2004, "Cached Movie")));
+        } finally {
+            dao.setEntityCache(null);
+        }
+    }
+
+    @Test
+    @Order(12)
+    void coalescedReads() throws Exception {
+        var client = new CountingDynamoDbClient();
+        var movieDao = newMovieDao(client);
+        movieDao.insertEntity(populatedMovie(2005, "Trending Movie"));
+        movieDao.setCoalesceReads(true);
+
+        // the first get item is held until all the readers are waiting for it
+        var held = new AtomicBoolean();
+        var firstGetStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        client.setCallListener(operation -> {
+            if (operation.equals("GetItem") && held.compareAndSet(false, true)) {
+                firstGetStarted.countDown();
+                awaitUninterruptibly(release);
+            }
+        });
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Movie>> reads = new ArrayList<>();
+            reads.add(executor.submit(() -> movieDao.getEntity(newMovie(2005, "Trending Movie"))));
+            assertTrue(firstGetStarted.await(5, TimeUnit.SECONDS));
+            var readersStarted = new CountDownLatch(7);
+            for (int i = 0; i < 7; i++) {
+                reads.add(executor.submit(() -> {
+                    readersStarted.countDown();
+                    return movieDao.getEntity(newMovie(2005, "Trending Movie"));
+                }));
+            }
+            assertTrue(readersStarted.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Movie> read : reads) {
+                assertEquals("Trending Movie", read.get(5, TimeUnit.SECONDS).getTitle());
+            }
+            assertEquals(1, client.getCallCount("GetItem"));
+
+            client.setCallListener(operation -> { });
+            var missingRead = executor.submit(() -> movieDao.getEntity(newMovie(2005, "Missing Movie")));
+            var failure = assertThrows(ExecutionException.class, missingRead::get);
+            assertTrue(failure.getCause() instanceof ItemDoesNotExistException);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @Order(13)
+    void batchedReads() throws Exception {
+        var client = new CountingDynamoDbClient();
+        var movieDao = newMovieDao(client);
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            movies.add(populatedMovie(2000, "Batched Movie " + i));
+        }
+        assertEquals(100, movieDao.insertEntities(movies).getWrittenCount());
+        client.resetCallCounts();
+
+        // batches are capped at the 100 keys of a batch get item, so the readers fill exactly one
+        movieDao.setReadBatching(Duration.ofMinutes(1), 500);
+        var batchTasks = new AtomicInteger();
+        var batchExecutor = Executors.newSingleThreadExecutor();
+        movieDao.setBatchExecutor(task -> {
+            batchTasks.incrementAndGet();
+            batchExecutor.execute(task);
+        });
+        var executor = Executors.newFixedThreadPool(100);
+        try {
+            List<Future<Movie>> reads = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String title = "Batched Movie " + i;
+                reads.add(executor.submit(() -> movieDao.getEntity(newMovie(2000, title))));
+            }
+            for (int i = 0; i < reads.size(); i++) {
+                assertEquals("Batched Movie " + i, reads.get(i).get(5, TimeUnit.SECONDS).getTitle());
+            }
+            assertEquals(0, client.getCallCount("GetItem"));
+            assertEquals(1, client.getCallCount("BatchGetItem"));
+            assertEquals(1, batchTasks.get());
+
+            movieDao.setReadBatching(Duration.ofMillis(5), 50);
+            Future<Movie> missingRead = executor.submit(() -> movieDao.getEntity(newMovie(2000, "Missing Movie")));
+            var failure = assertThrows(ExecutionException.class, () -> missingRead.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof ItemDoesNotExistException);
+            assertEquals(0, client.getCallCount("GetItem"));
+        } finally {
+            movieDao.setReadBatching(null, 0);
+            executor.shutdown();
+            batchExecutor.shutdown();
+        }
+    }
+
+    @Test
+    @Order(14)
+    void writeBehind() {
+        List<BatchWriteResult<Movie>> failures = new CopyOnWriteArrayList<>();
+        try (var writer = dao.writeBehind(50, 20, Duration.ofMillis(10), failures::add)) {
+            for (int i = 0; i < 60; i++) {
+                writer.put(populatedMovie(2006, "Buffered Movie " + i));
+            }
+            Movie updated = populatedMovie(2006, "Buffered Movie 0");
+            updated.setGenre(Genre.DRAMA);
+            writer.put(updated);
+            writer.delete(newMovie(2006, "Buffered Movie 1"));
+            writer.flush();
+            assertEquals(0, writer.getBufferedCount());
+        }
+
+        assertTrue(failures.isEmpty());
+        assertEquals(Genre.DRAMA, dao.getEntity(newMovie(2006, "Buffered Movie 0")).getGenre());
+        assertThrows(ItemDoesNotExistException.class, () -> dao.getEntity(newMovie(2006, "Buffered Movie 1")));
+        assertEquals(59, dao.queryByYear(2006).size());
+    }
+
+    @Test
+    @Order(15)
+    void rateLimited() {
+        var client = new CountingDynamoDbClient();
+        var movieDao = newMovieDao(client);
+        var readLimiter = new AdaptiveRateLimiter(50, 1, 100);
+        var writeLimiter = new AdaptiveRateLimiter(50, 1, 100);
+        movieDao.setReadRateLimiter(readLimiter);
+        movieDao.setWriteRateLimiter(writeLimiter);
+        movieDao.setThrottleBackoff(new Backoff(4, 1, 5));
+
+        // throttled calls are retried, and the rate is cut once for the burst
+        client.throttle("PutItem", 3);
+        movieDao.insertEntity(populatedMovie(2007, "Limited Movie 0"));
+        assertEquals(4, client.getCallCount("PutItem"));
+        assertEquals(3, writeLimiter.getThrottleCount());
+        assertTrue(writeLimiter.getPermittedRate() < 50);
+
+        // unthrottled calls grow the rate again
+        double throttledRate = writeLimiter.getPermittedRate();
+        for (int i = 1; i < 20; i++) {
+            movieDao.insertEntity(populatedMovie(2007, "Limited Movie " + i));
+        }
+        assertTrue(writeLimiter.getPermittedRate() > throttledRate);
+        assertEquals(3, writeLimiter.getThrottleCount());
+
+        // calls throttled on every attempt fail with the cause
+        client.resetCallCounts();
+        client.throttle("GetItem", 10);
+        var failure = assertThrows(DataAccessException.class, () -> movieDao.getEntity(newMovie(2007, "Limited Movie 3")));
+        assertTrue(failure.getCause() instanceof ProvisionedThroughputExceededException);
+        assertEquals(4, client.getCallCount("GetItem"));
+        assertEquals(4, readLimiter.getThrottleCount());
+        assertTrue(readLimiter.getPermittedRate() < 50);
+
+        client.throttle("GetItem", 0);
+        assertEquals(20, movieDao.queryByYear(2007).size());
+        assertEquals("Limited Movie 3", movieDao.getEntity(newMovie(2007, "Limited Movie 3")).getTitle());
+    }
+
+    @Test
+    @Order(16)
+    void metrics() {
+        var metrics = new InMemoryMetrics();
+        dao.setMetricsListener(metrics);
+        try {
+            dao.insertEntity(populatedMovie(2008, "Measured Movie"));
+            dao.getEntity(newMovie(2008, "Measured Movie"));
+            assertThrows(ItemDoesNotExistException.class, () -> dao.getEntity(newMovie(2008, "Missing Movie")));
+            assertThrows(CouldNotInsertException.class, () -> dao.insertEntity(populatedMovie(2008, "Measured Movie")));
+            dao.queryByYear(2008);
+        } finally {
+            dao.setMetricsListener(null);
+        }
+
+        var gets = metrics.getStats("Movie", "Get Item");
+        assertEquals(2, gets.getCount());
+        assertEquals(1, gets.getCount(OperationMetrics.Outcome.NOT_FOUND));
+        assertEquals(1, gets.getItemCount());
+        assertTrue(gets.getNetworkLatency().getPercentileNanos(99) > 0);
+        assertTrue(gets.getMappingLatency().getMaxNanos() > 0);
+        // capacity is requested for the metrics even without a rate limiter
+        assertTrue(gets.getConsumedCapacity() > 0);
+
+        var creates = metrics.getStats("Movie", "Create Item");
+        assertEquals(1, creates.getCount(OperationMetrics.Outcome.SUCCESS));
+        assertEquals(1, creates.getCount(OperationMetrics.Outcome.CONDITION_FAILED));
+        assertTrue(creates.getConsumedCapacity() > 0);
+        assertEquals(1, metrics.getStats("Movie", "Query Item").getItemCount());
+    }
+
+    @Test
+    @Order(17)
+    void nonThrowingLookupsAndWrites() {
+        var movie = populatedMovie(2009, "Optional Movie");
+        assertTrue(dao.findEntity(movie).isEmpty());
+
+        var inserted = dao.tryInsert(movie);
+        assertTrue(inserted.isWritten());
+        assertSame(movie, inserted.getEntity());
+        assertTrue(dao.tryInsert(movie).isConditionFailed());
+        assertEquals("Optional Movie", dao.findEntity(newMovie(2009, "Optional Movie")).orElseThrow().getTitle());
+
+        assertTrue(dao.tryReplace(populatedMovie(2009, "Missing Movie")).isConditionFailed());
+        movie.setInfo(Map.of("mapInfoKey1", "replaced"));
+        assertTrue(dao.tryReplace(movie).isWritten());
+
+        var deleted = dao.tryDelete(newMovie(2009, "Optional Movie"));
+        assertTrue(deleted.isWritten());
+        assertEquals(Map.of("mapInfoKey1", "replaced"), deleted.getEntity().getInfo());
+        assertTrue(dao.tryDelete(newMovie(2009, "Optional Movie")).isConditionFailed());
+        assertNull(dao.tryDelete(newMovie(2009, "Optional Movie")).getEntity());
+
+        var missing = assertThrows(ItemDoesNotExistException.class, () -> dao.getEntity(newMovie(2009, "Optional Movie")));
+        assertEquals(0, missing.getStackTrace().length);
+    }
+
+    @Test
+    @Order(18)
+    void keyAttributes() {
+        var movie = populatedMovie(2010, "Keyed Movie");
+        var keys = mapper.movieKeyAttributes(movie);
+        assertEquals(Map.of("yr", AttributeValue.builder().n("2010").build(), "title", AttributeValue.builder().s("Keyed Movie").build()), keys);
+
+        var attributes = mapper.movieToAttributes(movie);
+        assertEquals(Map.of("yr", attributes.get("yr"), "title", attributes.get("title")), keys);
+    }
+
+    @Test
+    @Order(19)
+    void schema() {
+        assertSame(MovieSchema.SCHEMA, dao.getSchema());
+        assertEquals(List.of("yr", "title"), MovieSchema.SCHEMA.keyNames());
+        assertTrue(MovieSchema.ATTRIBUTE_NAMES.containsAll(List.of("yr", "title", "reviews", "info")));
+        assertEquals("attribute_exists(yr) AND attribute_exists(title)", MovieSchema.SCHEMA.keyExistsCondition());
+        assertTrue(MovieSchema.SCHEMA.keyConditionNames().isEmpty());
+
+        var reserved = new EntitySchema("Movie", "year", "name", List.of());
+        assertEquals("attribute_not_exists(#hk) AND attribute_not_exists(#rk)", reserved.keyNotExistsCondition());
+        assertEquals(Map.of("#hk", "year", "#rk", "name"), reserved.keyConditionNames());
+
+        assertTrue(dao.tryInsert(populatedMovie(2011, "Schema Movie")).isWritten());
+        assertTrue(dao.tryInsert(populatedMovie(2011, "Schema Movie")).isConditionFailed());
+    }
+
+    @Test
+    @Order(20)
+    void saveChanges() {
+        dao.insertEntity(populatedMovie(2012, "Diffed Movie"));
+        var movie = dao.getEntity(newMovie(2012, "Diffed Movie"));
+        var original = dao.snapshot(movie);
+        assertSame(movie, dao.saveChanges(original, movie));
+
+        movie.setLastUpdatedOn(42L);
+        movie.setGenre(Genre.DRAMA);
+        movie.setInfo(null);
+        assertEquals(Set.of("lastUpdatedOn", "genre", "info"), mapper.movieChanges(original, movie).keySet());
+
+        var saved = dao.saveChanges(original, movie);
+        assertEquals(42L, saved.getLastUpdatedOn().longValue());
+        assertEquals(Genre.DRAMA, saved.getGenre());
+        assertNull(saved.getInfo());
+        assertEquals(1, saved.getReviews().size());
+        assertNull(mapper.movieToAttributes(dao.getEntity(newMovie(2012, "Diffed Movie"))).get("info"));
+
+        assertThrows(IllegalArgumentException.class, () -> dao.saveChanges(original, newMovie(2012, "Other Movie")));
+        assertThrows(CouldNotUpdateException.class, () -> dao.saveChanges(newMovie(2012, "Missing Movie"), populatedMovie(2012, "Missing Movie")));
+    }
+
+    @Test
+    @Order(21)
+    void atomicMutations() {
+        var movie = populatedMovie(2013, "Counted Movie");
+        movie.setTags(Set.of("classic"));
+        dao.insertEntity(movie);
+        var key = newMovie(2013, "Counted Movie");
+        assertEquals(Set.of("classic"), dao.getEntity(key).getTags());
+
+        assertEquals(1L, dao.increment(key, MovieFields.VIEW_COUNT, 1).getViewCount().longValue());
+        assertEquals(6L, dao.increment(key, MovieFields.VIEW_COUNT, 5).getViewCount().longValue());
+        assertEquals(4L, dao.increment(key, MovieFields.VIEW_COUNT, -2).getViewCount().longValue());
+
+        assertEquals(Set.of("classic", "drama", "noir"), dao.addToSet(key, MovieFields.TAGS, List.of("drama", "noir")).getTags());
+        var removed = dao.removeFromSet(key, MovieFields.TAGS, List.of("classic", "noir"));
+        assertEquals(Set.of("drama"), removed.getTags());
+        assertEquals(4L, removed.getViewCount().longValue());
+        assertEquals("Comment 1", removed.getReviews().get(0).getComments());
+        // DynamoDB removes the attribute once the set becomes empty
+        assertNull(dao.removeFromSet(key, MovieFields.TAGS, List.of("drama")).getTags());
+
+        assertThrows(CouldNotUpdateException.class, () -> dao.increment(newMovie(2013, "Missing Movie"), MovieFields.VIEW_COUNT, 1));
+        assertThrows(IllegalArgumentException.class, () -> dao.increment(key, MovieFields.YEAR, 1));
+        assertThrows(IllegalArgumentException.class, () -> dao.addToSet(key, MovieFields.TAGS, List.of()));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Dao over its own table, for tests which shouldn't depend on the items written by the other tests
+     */
+    private static MovieDao newMovieDao(DynamoDbClient client) {
+        var movieDao = new MovieDao(client);
+        movieDao.createTable(movieTable());
+        return movieDao;
+    }
+
+    private static CreateTableRequest.Builder movieTable() {
+        return CreateTableRequest.builder()
+                .keySchema(List.of(
+                        KeySchemaElement.builder().keyType(KeyType.HASH).attributeName("yr").build(),
+                        KeySchemaElement.builder().keyType(KeyType.RANGE).attributeName("title").build()))
+                .attributeDefinitions(List.of(
+                        AttributeDefinition.builder().attributeType("N").attributeName("yr").build(),
+                        AttributeDefinition.builder().attributeType("S").attributeName("title").build()))
+                .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(5L).writeCapacityUnits(5L).build());
+    }
+
+    private Movie populatedMovie(int year, String title) {
+        Movie movie = newMovie(year, title);
+        movie.setReviews(List.of(newReview(3.8f, "Comment 1")));
+        movie.setCreatedOn(Instant.now().toEpochMilli());
+        movie.setInfo(Map.of("mapInfoKey1", "mapInfoValue1"));
+        movie.setLastUpdatedOn(Instant.now().toEpochMilli());
+        movie.setObjInfo(Map.of("mapObjInfoKey1", newInfo(1)));
+        movie.setPrimInfo(Map.of("mapPrimInfoKey1", "mapInfoValue1"));
+        return movie;
+    }
+
+    private Movie newMovie(int year, String title) {
+        Movie movie = new Movie();
+        movie.setYear(year);
+        movie.setTitle(title);
+        return movie;
+    }
+
     private Info newInfo(int i) {
         Info info = new Info();
         info.setComments("Info Comments "+i);
@@ -2,49 +2,38 @@ package com.tteky.dynamodb.dao;
 
 import com.tteky.dynamodb.domain.Review;
 import com.ttkey.dynamodb.exception.*;
+import com.ttkey.dynamodb.inmemory.InMemoryDynamoDbAsyncClient;
+import com.ttkey.dynamodb.inmemory.InMemoryDynamoDbClient;
+import com.ttkey.dynamodb.metrics.InMemoryMetrics;
+import com.ttkey.dynamodb.metrics.OperationMetrics;
 import org.junit.jupiter.api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.testcontainers.containers.GenericContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
-import java.net.URI;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
-@Testcontainers
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class ReviewDaoTest {
 
     Logger log = LoggerFactory.getLogger(ReviewDaoTest.class);
 
-    @Container
-    private static GenericContainer dynamoDb = new GenericContainer<>("amazon/dynamodb-local:latest").withExposedPorts(8000);
-
     private static ReviewDao dao;
+    private static ReviewAsyncDao asyncDao;
     private static ReviewMapper mapper;
 
     @BeforeAll
     static void setupDb() {
-        Integer mappedPort = dynamoDb.getMappedPort(8000);
-        var credentialsProvider = StaticCredentialsProvider.create(AwsBasicCredentials.create("AWS_ACCESS_KEY_ID", "AWS_SECRET_KEY"));
-        var dbClient = DynamoDbClient.builder()
-                .endpointOverride(URI.create("http://127.0.0.1:" + mappedPort))
-                .credentialsProvider(credentialsProvider)
-                .region(Region.US_EAST_1)
-                .build();
-
+        var dbClient = new InMemoryDynamoDbClient();
         dao = new ReviewDao(dbClient);
+        asyncDao = new ReviewAsyncDao(new InMemoryDynamoDbAsyncClient(dbClient));
         mapper = new ReviewMapper();
     }
 
@@ -87,4 +76,73 @@ class ReviewDaoTest {
         assertThrows(CouldNotDeleteException.class, () -> dao.deleteEntity(withId));
     }
 
+    @Test
+    @Order(3)
+    void asyncCrud() {
+        Review r = new Review();
+        r.setComments("Some async comments");
+        r.setRating(4.5f);
+        r.setReviewer("A");
+        r.setId(UUID.randomUUID().toString());
+        asyncDao.insertEntity(r).join();
+
+        Review withId = new Review();
+        withId.setId(r.getId());
+        Review item = asyncDao.getEntity(withId).join();
+        assertEquals(r.getComments(), item.getComments());
+        assertEquals(r.getRating(), item.getRating());
+
+        var duplicate = assertThrows(CompletionException.class, () -> asyncDao.insertEntity(r).join());
+        assertTrue(duplicate.getCause() instanceof CouldNotInsertException);
+
+        asyncDao.deleteEntity(withId).join();
+        var missing = assertThrows(CompletionException.class, () -> asyncDao.getEntity(withId).join());
+        assertTrue(missing.getCause() instanceof ItemDoesNotExistException);
+
+        assertTrue(asyncDao.findEntity(withId).join().isEmpty());
+        assertTrue(asyncDao.tryDelete(withId).join().isConditionFailed());
+        assertTrue(asyncDao.tryInsert(r).join().isWritten());
+        assertTrue(asyncDao.tryInsert(r).join().isConditionFailed());
+        assertEquals(r.getComments(), asyncDao.tryDelete(withId).join().getEntity().getComments());
+    }
+
+    @Test
+    @Order(4)
+    void asyncMetrics() {
+        var metrics = new InMemoryMetrics();
+        asyncDao.setMetricsListener(metrics);
+        Review r = new Review();
+        r.setComments("Measured comments");
+        r.setRating(2.5f);
+        r.setReviewer("M");
+        r.setId(UUID.randomUUID().toString());
+        Review withId = new Review();
+        withId.setId(r.getId());
+        try {
+            asyncDao.insertEntity(r).join();
+            asyncDao.getEntity(withId).join();
+            assertThrows(CompletionException.class, () -> asyncDao.insertEntity(r).join());
+            assertTrue(asyncDao.tryInsert(r).join().isConditionFailed());
+            asyncDao.scanAllItems(ScanRequest.builder()).join();
+            asyncDao.deleteEntity(withId).join();
+            assertTrue(asyncDao.findEntity(withId).join().isEmpty());
+        } finally {
+            asyncDao.setMetricsListener(null);
+        }
+
+        var gets = metrics.getStats("Review", "Get Item");
+        assertEquals(2, gets.getCount());
+        assertEquals(1, gets.getCount(OperationMetrics.Outcome.NOT_FOUND));
+        assertEquals(1, gets.getItemCount());
+        assertTrue(gets.getNetworkLatency().getMaxNanos() > 0);
+        assertTrue(gets.getMappingLatency().getMaxNanos() > 0);
+        assertTrue(gets.getConsumedCapacity() > 0);
+
+        var creates = metrics.getStats("Review", "Create Item");
+        assertEquals(1, creates.getCount(OperationMetrics.Outcome.SUCCESS));
+        assertEquals(2, creates.getCount(OperationMetrics.Outcome.CONDITION_FAILED));
+        assertTrue(metrics.getStats("Review", "Scan Item").getItemCount() >= 1);
+        assertEquals(1, metrics.getStats("Review", "Delete Item").getItemCount());
+    }
+
 }